@@ -0,0 +1,35 @@
+package web.benchmark;
+
+import java.lang.reflect.Field;
+
+/**
+ * Wires the EJB of the application outside of the container for the
+ * benchmarks: the injected fields are set directly, the way the container
+ * sets them.
+ *
+ * @author SoundlyGifted
+ */
+public final class Beans {
+
+    private Beans() {
+    }
+
+    /**
+     * Sets the injected field of the bean.
+     *
+     * @param bean bean instance.
+     * @param fieldName name of the injected field.
+     * @param value bean or resource to inject.
+     */
+    public static void inject(Object bean, String fieldName, Object value) {
+        try {
+            Field field = bean.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(bean, value);
+        } catch (ReflectiveOperationException roex) {
+            throw new IllegalStateException("Field '" + fieldName
+                    + "' of " + bean.getClass().getSimpleName()
+                    + " can not be set", roex);
+        }
+    }
+}
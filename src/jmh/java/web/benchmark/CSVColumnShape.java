@@ -0,0 +1,55 @@
+package web.benchmark;
+
+/**
+ * Shapes of the generated csv-file values. The values of the DOUBLEDATA column
+ * always use the comma decimal separator, the TEXTDATA values differ in length
+ * and in the amount of quoting the parsers and writers have to handle.
+ *
+ * @author SoundlyGifted
+ */
+public enum CSVColumnShape {
+
+    /* Short text values that are never quoted. */
+    SHORT_TEXT {
+        @Override
+        String text(int row) {
+            return "text" + row;
+        }
+    },
+    /* Text values close to the VARCHAR(255) limit of the column. */
+    LONG_TEXT {
+        @Override
+        String text(int row) {
+            StringBuilder text = new StringBuilder(240);
+            while (text.length() < 230) {
+                text.append("long text value ").append(row).append(' ');
+            }
+            return text.toString();
+        }
+    },
+    /* Text values with delimiters, quotes and line ends, always quoted. */
+    QUOTED_TEXT {
+        @Override
+        String text(int row) {
+            return "text; \"quoted\" " + row + "\r\nsecond line";
+        }
+    };
+
+    /**
+     * Used to get the TEXTDATA value of a row.
+     *
+     * @param row index of the row.
+     * @return value of the row.
+     */
+    abstract String text(int row);
+
+    /**
+     * Used to get the DOUBLEDATA value of a row, as written in a csv-file.
+     *
+     * @param row index of the row.
+     * @return value of the row with the comma decimal separator.
+     */
+    String number(int row) {
+        return row + "," + (row % 100);
+    }
+}
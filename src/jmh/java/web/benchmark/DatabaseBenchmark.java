@@ -0,0 +1,138 @@
+package web.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import web.process.csvdata.CSVFileData;
+import web.process.csvdata.CSVRecordSource;
+import web.process.database.DBDataHandlerLocal;
+import web.process.database.EmbeddedDerbyDatabase;
+import web.process.database.ExportFilter;
+import web.process.metrics.AppMetrics;
+
+/**
+ * Throughput of the insert methods of the upload and of the reading of the
+ * whole table (or of a filtered part of it) by the download, against an 
+ * in-memory embedded Derby database. One operation is the insert (or the 
+ * read) of a whole file, the table is emptied after each insert.
+ *
+ * @author SoundlyGifted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    @Param({"1000", "50000"})
+    private int rows;
+
+    @Param({"SHORT_TEXT", "LONG_TEXT"})
+    private CSVColumnShape shape;
+
+    private EmbeddedDerbyDatabase database;
+    private DBDataHandlerLocal dataHandler;
+    private CSVFileData csvFileData;
+    private CSVRecordSource recordSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        GeneratedCSVFile file = new GeneratedCSVFile(rows, shape);
+        csvFileData = file.toCSVFileData();
+        recordSource = consumer -> {
+            for (Map<String, String> record : file.getRecords()) {
+                consumer.accept(record);
+            }
+        };
+        database = new EmbeddedDerbyDatabase("benchmark" + rows + shape, 
+                new AppMetrics());
+        dataHandler = database.getDataHandler();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /* insertMultRecs, the records of a parsed CSVFileData. */
+    @Benchmark
+    public long insertMultRecs(Cleanup cleanup) throws Exception {
+        return dataHandler.insertMultRecs(csvFileData).getRecordCount();
+    }
+
+    /* insertRecordStream, the "Streaming" upload mode. */
+    @Benchmark
+    public long insertRecordStream(Cleanup cleanup) throws Exception {
+        return dataHandler.insertRecordStream(recordSource).getRecordCount();
+    }
+
+    /* insertRecordStreamParallel, the "Parallel" upload mode. */
+    @Benchmark
+    public long insertRecordStreamParallel(Cleanup cleanup) throws Exception {
+        return dataHandler.insertRecordStreamParallel(recordSource)
+                .getRecordCount();
+    }
+
+    /* selectAll, the reading of the download. */
+    @Benchmark
+    public int selectAll(Filled filled) throws Exception {
+        return dataHandler.selectAll(record -> {
+        });
+    }
+
+    /* select, a download of the DOUBLEDATA column of 1% of the records. */
+    @Benchmark
+    public int selectDoubleRange(Filled filled) throws Exception {
+        return dataHandler.select(new ExportFilter(List.of("DOUBLEDATA"), 
+                0.0, rows / 100.0, null), record -> {
+        });
+    }
+
+
+    /**
+     * Empties the table after each insert, so every insert starts with the
+     * same table.
+     */
+    @State(Scope.Thread)
+    public static class Cleanup {
+
+        @TearDown(Level.Invocation)
+        public void deleteAll(DatabaseBenchmark benchmark) throws Exception {
+            benchmark.dataHandler.deleteAll();
+        }
+    }
+
+
+    /**
+     * Fills the table with the records of the file for the reading.
+     */
+    @State(Scope.Thread)
+    public static class Filled {
+
+        @Setup(Level.Trial)
+        public void insert(DatabaseBenchmark benchmark) throws Exception {
+            benchmark.dataHandler.deleteAll();
+            benchmark.dataHandler.insertMultRecs(benchmark.csvFileData);
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteAll(DatabaseBenchmark benchmark) throws Exception {
+            benchmark.dataHandler.deleteAll();
+        }
+    }
+}
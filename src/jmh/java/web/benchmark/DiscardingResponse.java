@@ -0,0 +1,97 @@
+package web.benchmark;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Response of a download request for the writer benchmarks. The written bytes
+ * are only counted, so the benchmarks measure the csv writers and not the
+ * network.
+ *
+ * @author SoundlyGifted
+ */
+public final class DiscardingResponse {
+
+    private final CountingOutputStream outputStream = new CountingOutputStream();
+    private final HttpServletResponse response;
+
+    /**
+     * Creates a response with the UTF-8 character encoding.
+     */
+    public DiscardingResponse() {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                outputStream, StandardCharsets.UTF_8));
+        response = (HttpServletResponse) Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWriter":
+                            return writer;
+                        case "getOutputStream":
+                            return outputStream;
+                        case "getCharacterEncoding":
+                            return "UTF-8";
+                        case "isCommitted":
+                            return outputStream.byteCount > 0;
+                        default:
+                            if (method.getReturnType() == void.class) {
+                                return null;
+                            }
+                            throw new UnsupportedOperationException(
+                                    method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Used to get the response passed to the writers.
+     *
+     * @return servlet response.
+     */
+    public HttpServletResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Used to get the number of bytes written to the response.
+     *
+     * @return number of bytes.
+     */
+    public long getByteCount() {
+        return outputStream.byteCount;
+    }
+
+
+    /**
+     * Output stream of the response counting the written bytes.
+     */
+    private static class CountingOutputStream extends ServletOutputStream {
+
+        private long byteCount = 0;
+
+        @Override
+        public void write(int b) {
+            byteCount++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            byteCount += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package web.benchmark;
+
+import jakarta.servlet.http.Part;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import web.process.csvdata.CSVFileData;
+
+/**
+ * Csv-file generated in memory for the benchmarks, in the format the
+ * application reads and writes (Excel format with ';' delimiter and the
+ * TEXTDATA;DOUBLEDATA header record).
+ *
+ * @author SoundlyGifted
+ */
+public final class GeneratedCSVFile {
+
+    private final List<Map<String, String>> records;
+    private final byte[] bytes;
+
+    /**
+     * Generates a csv-file with the given number of rows.
+     *
+     * @param rows number of records of the file.
+     * @param shape shape of the values of the records.
+     */
+    public GeneratedCSVFile(int rows, CSVColumnShape shape) {
+        records = new ArrayList<>(rows);
+        StringBuilder content = new StringBuilder("TEXTDATA;DOUBLEDATA\r\n");
+        for (int row = 0; row < rows; row++) {
+            Map<String, String> record = new LinkedHashMap<>();
+            record.put("TEXTDATA", shape.text(row));
+            record.put("DOUBLEDATA", shape.number(row));
+            records.add(record);
+            content.append(quote(record.get("TEXTDATA"))).append(';')
+                    .append(quote(record.get("DOUBLEDATA"))).append("\r\n");
+        }
+        bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Used to get the records of the file.
+     *
+     * @return records mapped to the csv-file headers.
+     */
+    public List<Map<String, String>> getRecords() {
+        return records;
+    }
+
+    /**
+     * Used to get the size of the file.
+     *
+     * @return size in bytes.
+     */
+    public int getSize() {
+        return bytes.length;
+    }
+
+    /**
+     * Used to get the file as a file part of an upload request.
+     *
+     * @return new file part with the "text/csv" content type.
+     */
+    public Part toPart() {
+        return new InMemoryPart();
+    }
+
+    /**
+     * Used to get the records of the file as the parsers return them.
+     *
+     * @return CSVFileData object containing all records.
+     */
+    public CSVFileData toCSVFileData() {
+        CSVFileData csvFileData = new CSVFileData();
+        for (Map<String, String> record : records) {
+            csvFileData.addRecord(record);
+        }
+        return csvFileData;
+    }
+
+
+    /* Values with a delimiter, quote or line end are quoted (Excel format). */
+    private static String quote(String value) {
+        if (value.indexOf(';') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\r') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+
+    /**
+     * File part reading the generated bytes.
+     */
+    private class InMemoryPart implements Part {
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/csv";
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getSubmittedFileName() {
+            return "benchmark.csv";
+        }
+
+        @Override
+        public long getSize() {
+            return bytes.length;
+        }
+
+        @Override
+        public void write(String fileName) throws IOException {
+            Files.write(Paths.get(fileName), bytes);
+        }
+
+        @Override
+        public void delete() {
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package web.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import web.process.config.AppConfigProvider;
+import web.process.metrics.AppMetrics;
+import web.process.parse.AppCSVParser;
+
+/**
+ * Throughput of the parsing methods ("selected_method" of the upload form)
+ * reading an uploaded csv-file. One operation is the parsing of a whole file,
+ * the records are passed to a consumer that only consumes them, as the
+ * streaming upload does.
+ *
+ * @author SoundlyGifted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"SHORT_TEXT", "LONG_TEXT", "QUOTED_TEXT"})
+    private CSVColumnShape shape;
+
+    @Param({"CommonsCSV", "OpenCSV", "FastCSV", "ParallelFastCSV"})
+    private String method;
+
+    private GeneratedCSVFile file;
+    private AppCSVParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = new GeneratedCSVFile(rows, shape);
+        AppConfigProvider configProvider = new AppConfigProvider();
+        configProvider.postConstruct();
+        parser = new AppCSVParser();
+        Beans.inject(parser, "configProvider", configProvider);
+        Beans.inject(parser, "metrics", new AppMetrics());
+    }
+
+    @Benchmark
+    public int parse(Blackhole blackhole) throws Exception {
+        switch (method) {
+            case "CommonsCSV":
+                return parser.parseWithCommonsCSV(file.toPart(),
+                        blackhole::consume);
+            case "OpenCSV":
+                return parser.parseWithOpenCSV(file.toPart(),
+                        blackhole::consume);
+            case "FastCSV":
+                return parser.parseWithFastCSV(file.toPart(),
+                        blackhole::consume);
+            case "ParallelFastCSV":
+                return parser.parseWithParallelFastCSV(file.toPart(),
+                        blackhole::consume);
+            default:
+                throw new IllegalArgumentException(method);
+        }
+    }
+
+    @Benchmark
+    public int parseToCSVFileData() throws Exception {
+        switch (method) {
+            case "CommonsCSV":
+                return parser.parseWithCommonsCSV(file.toPart()).size();
+            case "OpenCSV":
+                return parser.parseWithOpenCSV(file.toPart()).size();
+            case "FastCSV":
+                return parser.parseWithFastCSV(file.toPart()).size();
+            case "ParallelFastCSV":
+                return parser.parseWithParallelFastCSV(file.toPart()).size();
+            default:
+                throw new IllegalArgumentException(method);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package web.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import web.process.csvdata.CSVFileData;
+import web.process.download.AppCSVWriter;
+import web.process.download.CSVStreamWriter;
+import web.process.download.ContentCoding;
+import web.process.metrics.AppMetrics;
+
+/**
+ * Throughput of the download methods writing the database records to the
+ * response. One operation is the writing of a whole file to a response that
+ * only counts the bytes.
+ *
+ * @author SoundlyGifted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"SHORT_TEXT", "LONG_TEXT", "QUOTED_TEXT"})
+    private CSVColumnShape shape;
+
+    @Param({"CommonsCSV", "OpenCSV"})
+    private String method;
+
+    @Param({"IDENTITY", "GZIP"})
+    private ContentCoding coding;
+
+    private GeneratedCSVFile file;
+    private CSVFileData csvFileData;
+    private final AppCSVWriter writer = new AppCSVWriter();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = new GeneratedCSVFile(rows, shape);
+        csvFileData = file.toCSVFileData();
+        Beans.inject(writer, "metrics", new AppMetrics());
+    }
+
+    /* Writing of the parsed records, the compressed download has no
+     * writeWith* method, so the records are written to the opened stream.
+     */
+    @Benchmark
+    public long write() throws Exception {
+        DiscardingResponse response = new DiscardingResponse();
+        if (coding == ContentCoding.IDENTITY) {
+            switch (method) {
+                case "CommonsCSV":
+                    writer.writeWithCommonsCSV(csvFileData,
+                            response.getResponse());
+                    break;
+                case "OpenCSV":
+                    writer.writeWithOpenCSV(csvFileData,
+                            response.getResponse());
+                    break;
+                default:
+                    throw new IllegalArgumentException(method);
+            }
+        } else {
+            try (CSVStreamWriter stream = open(response)) {
+                for (Map<String, String> record
+                        : csvFileData.getRecordListWithCSVFileHeaders()) {
+                    stream.accept(record);
+                }
+            }
+        }
+        return response.getByteCount();
+    }
+
+    /* Writing of the records as the download streams them from the
+     * database, one record map at a time.
+     */
+    @Benchmark
+    public long writeStream() throws Exception {
+        DiscardingResponse response = new DiscardingResponse();
+        try (CSVStreamWriter stream = open(response)) {
+            for (Map<String, String> record : file.getRecords()) {
+                stream.accept(record);
+            }
+        }
+        return response.getByteCount();
+    }
+
+
+    private CSVStreamWriter open(DiscardingResponse response) 
+            throws Exception {
+        switch (method) {
+            case "CommonsCSV":
+                return writer.openCommonsCSVStream(response.getResponse(),
+                        coding);
+            case "OpenCSV":
+                return writer.openOpenCSVStream(response.getResponse(),
+                        coding);
+            default:
+                throw new IllegalArgumentException(method);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package web.process.database;
+
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import web.benchmark.Beans;
+import web.process.config.AppConfigProvider;
+import web.process.metrics.AppMetrics;
+
+/**
+ * In-memory embedded Derby database with the database EJB wired to it the
+ * way the container does (the injected fields are set directly), used by the
+ * benchmarks of the database path. The MYDATA table and its indexes are 
+ * created by the "create.*" queries of the application, the pool and insert
+ * settings are read from config.properties.
+ *
+ * @author SoundlyGifted
+ */
+public final class EmbeddedDerbyDatabase implements AutoCloseable {
+
+    private final String url;
+    private final ConnectionPool pool;
+    private final InsertExecutorProvider insertExecutorProvider 
+            = new InsertExecutorProvider();
+    private final DBDataHandler dataHandler = new DBDataHandler();
+
+    /**
+     * Creates the database and the MYDATA table.
+     *
+     * @param name name of the in-memory database.
+     * @param metrics metrics the database EJB record the stages to.
+     * @throws IOException if the sql-files can not be read.
+     * @throws SQLException if the database can not be created.
+     */
+    public EmbeddedDerbyDatabase(String name, AppMetrics metrics) 
+            throws IOException, SQLException {
+        url = "jdbc:derby:memory:" + name;
+        AppConfigProvider configProvider = new AppConfigProvider();
+        configProvider.postConstruct();
+        pool = new ConnectionPool(
+                () -> DriverManager.getConnection(url + ";create=true"), 1,
+                configProvider.getIntProperty("pool.size.max", 10), 
+                60000, 10000, 2);
+        // The managed thread factory of the container.
+        ManagedThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-insert");
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        DBConnectionHandler connectionHandler = new DBConnectionHandler();
+        Beans.inject(connectionHandler, "configProvider", configProvider);
+        Beans.inject(connectionHandler, "metrics", metrics);
+        Beans.inject(connectionHandler, "pool", pool);
+        Beans.inject(insertExecutorProvider, "connectionHandler", 
+                connectionHandler);
+        Beans.inject(insertExecutorProvider, "threadFactory", threadFactory);
+        insertExecutorProvider.postConstruct();
+        SQLQueryProvider sqlQueryProvider = new SQLQueryProvider();
+        sqlQueryProvider.postConstruct();
+        Beans.inject(dataHandler, "connectionHandler", connectionHandler);
+        Beans.inject(dataHandler, "configProvider", configProvider);
+        Beans.inject(dataHandler, "sqlQueryProvider", sqlQueryProvider);
+        Beans.inject(dataHandler, "insertExecutorProvider", 
+                insertExecutorProvider);
+        Beans.inject(dataHandler, "metrics", metrics);
+
+        try (Connection connection = pool.borrow();
+                Statement statement = connection.createStatement()) {
+            statement.execute(sqlQueryProvider.getQuery("create.mydata"));
+            statement.execute(sqlQueryProvider
+                    .getQuery("create.index.doubledata.mydata"));
+            statement.execute(sqlQueryProvider
+                    .getQuery("create.index.textdata.mydata"));
+            statement.execute(sqlQueryProvider
+                    .getQuery("create.version.mydata"));
+            statement.execute(sqlQueryProvider
+                    .getQuery("create.ingested.file"));
+            statement.execute(sqlQueryProvider
+                    .getQuery("create.stats.mydata"));
+        }
+    }
+
+    /**
+     * Used to get the database EJB working with this database.
+     *
+     * @return database handler.
+     */
+    public DBDataHandlerLocal getDataHandler() {
+        return dataHandler;
+    }
+
+    /**
+     * Closes the pooled connections and drops the database.
+     */
+    @Override
+    public void close() {
+        insertExecutorProvider.preDestroy();
+        pool.close();
+        try {
+            DriverManager.getConnection(url + ";drop=true");
+        } catch (SQLException sqlex) {
+            // Derby reports a successful drop with an exception.
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package web.process.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * This EJB is used to provide the application configuration properties red 
+ * from the config.properties file once at startup.
+ * 
+ * @author SoundlyGifted
+ */
+@Startup
+@Singleton
+@Lock(LockType.READ)
+public class AppConfigProvider implements AppConfigProviderLocal {
+    
+    private static final String CONFIGS = "/resources/config.properties";
+    private final Properties configs = new Properties();
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getProperty(String name, String defaultValue) {
+        String value = configs.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntProperty(String name, int defaultValue) {
+        String value = getProperty(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException nfex) {
+            System.out.println("[AppConfigProvider]: Property '" + name 
+                    + "' has invalid value '" + value + "', default value '" 
+                    + defaultValue + "' will be used instead.");
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongProperty(String name, long defaultValue) {
+        String value = getProperty(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException nfex) {
+            System.out.println("[AppConfigProvider]: Property '" + name 
+                    + "' has invalid value '" + value + "', default value '" 
+                    + defaultValue + "' will be used instead.");
+            return defaultValue;
+        }
+    }
+    
+    
+    @PostConstruct
+    public void postConstruct() {
+        /* Resource package "resources" (containing config.properties and 
+         * package with SQL files) was placed in "/src/main/resources", so that 
+         * Maven will properly pack them into right folder in "war" archive:
+         * "[project-name].war -> WEB-INF/classes"
+         * This is the classpath of "war" archive, where the ClassLoader loads 
+         * resources from. The absolute resource name is resolved by the class,
+         * so the file is found outside of the container as well.
+         */
+        try (InputStream stream = this.getClass().getResourceAsStream(CONFIGS)) {
+            if (stream == null) {
+                throw new IOException("resource not found");
+            }
+            configs.load(stream);
+        } catch (IOException ioex) {
+            System.out.println("[AppConfigProvider]: Properties file loading "
+                    + "failure for the configuration file '" + CONFIGS + "': " 
+                    + ioex.getMessage() + ". Default values will be used.");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package web.process.config;
+
+import jakarta.ejb.Local;
+
+/**
+ * This interface contains methods to read the application configuration
+ * properties.
+ * 
+ * @author SoundlyGifted
+ */
+@Local
+public interface AppConfigProviderLocal {
+    
+    /**
+     * Returns the value of the configuration property.
+     * 
+     * @param name name of the property.
+     * @param defaultValue value to be returned if the property is not set.
+     * @return value of the property or the default value.
+     */
+    public String getProperty(String name, String defaultValue);
+    
+    /**
+     * Returns the value of the configuration property as an integer.
+     * 
+     * @param name name of the property.
+     * @param defaultValue value to be returned if the property is not set or
+     * is not a valid integer.
+     * @return value of the property or the default value.
+     */
+    public int getIntProperty(String name, int defaultValue);
+    
+    /**
+     * Returns the value of the configuration property as a long.
+     * 
+     * @param name name of the property.
+     * @param defaultValue value to be returned if the property is not set or
+     * is not a valid long.
+     * @return value of the property or the default value.
+     */
+    public long getLongProperty(String name, long defaultValue);
+}
@@ -1,7 +1,9 @@
 package web.process.csvdata;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +11,8 @@ import java.util.Map;
 /**
  * This class represents CSV File Data and used to keep data received from an
  * external CSV File or data from the database to be written to the CSV File.
+ * The data is kept by columns: values of each header are kept in primitive 
+ * arrays of the header data type, the records are available as a row view.
  * It also contains Enum that connects Header labels of the CSV File and the
  * database field labels and the field types.
  * 
@@ -56,29 +60,111 @@ public class CSVFileData {
         abstract String getDataType();
     }    
     
-    private List<Map<String, String>> recordListWithCSVFileHeaders;
     private final CSVFileAllowedHeaderEnum[] headers 
             = CSVFileAllowedHeaderEnum.values();
+    
+    /* Values of each header are kept in a column of the header data type:
+     * DOUBLE values in a DoubleColumn, VARCHAR values in a StringColumn.
+     */
+    private final Map<String, DoubleColumn> doubleColumns = new HashMap<>();
+    private final Map<String, StringColumn> stringColumns = new HashMap<>();
+    private int recordCount = 0;
 
     
     /**
-     * This constructor creates a CSVFileData object with the list of CSV File 
-     * records as an empty ArrayList<>();
+     * This constructor creates a CSVFileData object with an empty column for
+     * each of the CSV File headers.
      */
     public CSVFileData() {
-        this.recordListWithCSVFileHeaders = new ArrayList<>();
+        for (CSVFileAllowedHeaderEnum header : headers) {
+            if ("DOUBLE".equals(header.getDataType())) {
+                doubleColumns.put(header.getHeaderCSVFileName(), 
+                        new DoubleColumn());
+            } else {
+                stringColumns.put(header.getHeaderCSVFileName(), 
+                        new StringColumn());
+            }
+        }
     }
 
 
     /**
      * Used to get the List of CSV File records as a mapping of values to the 
-     * CSV File Headers.
+     * CSV File Headers. The list is a read-only view of the columns, a record
+     * Map is created when it is taken from the list.
      * 
      * @return List of CSV File records where each record is as a mapping of 
      * values to the CSV File Headers.
      */
     public List<Map<String, String>> getRecordListWithCSVFileHeaders() {
-        return recordListWithCSVFileHeaders;
+        return new AbstractList<Map<String, String>>() {
+            @Override
+            public Map<String, String> get(int index) {
+                if (index < 0 || index >= recordCount) {
+                    throw new IndexOutOfBoundsException("Record " + index 
+                            + " is out of record count " + recordCount);
+                }
+                Map<String, String> record = new LinkedHashMap<>();
+                for (CSVFileAllowedHeaderEnum header : headers) {
+                    record.put(header.getHeaderCSVFileName(), 
+                            getString(index, header.getHeaderCSVFileName()));
+                }
+                return record;
+            }
+
+            @Override
+            public int size() {
+                return recordCount;
+            }
+        };
+    }
+    
+    
+    /**
+     * Used to get the number of records.
+     * 
+     * @return number of records.
+     */
+    public int size() {
+        return recordCount;
+    }
+    
+    
+    /**
+     * Used to get the value of a DOUBLE type header of the record.
+     * 
+     * @param index index of the record.
+     * @param csvFileHeader CSV File header name of a DOUBLE type header.
+     * @return value of the header.
+     */
+    public double getDouble(int index, String csvFileHeader) {
+        DoubleColumn column = doubleColumns.get(csvFileHeader);
+        if (column == null) {
+            throw new IllegalArgumentException("[CSVFileData] '" 
+                    + csvFileHeader + "' is not a DOUBLE type header.");
+        }
+        return column.get(index);
+    }
+    
+    
+    /**
+     * Used to get the value of any header of the record as a String.
+     * 
+     * @param index index of the record.
+     * @param csvFileHeader CSV File header name.
+     * @return value of the header.
+     */
+    public String getString(int index, String csvFileHeader) {
+        StringColumn column = stringColumns.get(csvFileHeader);
+        if (column != null) {
+            return column.get(index);
+        }
+        DoubleColumn doubleColumn = doubleColumns.get(csvFileHeader);
+        if (doubleColumn == null) {
+            throw new IllegalArgumentException("[CSVFileData] '" 
+                    + csvFileHeader + "' is not an allowed header.");
+        }
+        return Double.toString(doubleColumn.get(index));
     }
 
     
@@ -128,13 +214,47 @@ public class CSVFileData {
     
     
     /**
-     * Adds a record representing a CSV File data record to the record list 
-     * within the CSVFileData object.
+     * Adds a record representing a CSV File data record to the columns
+     * within the CSVFileData object. Values of DOUBLE type headers are 
+     * converted to double (comma is accepted as a decimal separator, an empty
+     * value is 0).
      * 
      * @param record a record representing a CSV File data record which is a 
      * mapping of values to the corresponding CSV File headers.
+     * @throws java.lang.NumberFormatException if a value of a DOUBLE type 
+     * header can not be converted to double.
      */
-    public void addRecord(Map<String, String> record) {
-        recordListWithCSVFileHeaders.add(record);
+    public void addRecord(Map<String, String> record) 
+            throws NumberFormatException {
+        // Converting all values first, so that a bad record is not half-added.
+        double[] doubleValues = new double[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            if (doubleColumns.containsKey(headers[i].getHeaderCSVFileName())) {
+                doubleValues[i] = stringToDouble(
+                        record.get(headers[i].getHeaderCSVFileName()));
+            }
+        }
+        for (int i = 0; i < headers.length; i++) {
+            String csvFileHeader = headers[i].getHeaderCSVFileName();
+            DoubleColumn doubleColumn = doubleColumns.get(csvFileHeader);
+            if (doubleColumn != null) {
+                doubleColumn.add(doubleValues[i]);
+            } else {
+                stringColumns.get(csvFileHeader).add(record.get(csvFileHeader));
+            }
+        }
+        recordCount++;
+    }
+    
+    
+    private double stringToDouble(String stringVal) 
+            throws NumberFormatException {
+        try {
+            return DecimalParser.parseDouble(stringVal);
+        } catch (NumberFormatException nfex) {
+            throw new NumberFormatException("[CSVFileData] Value '" 
+                            + stringVal + "' cannot be converted to Double. "
+                            + nfex.getMessage());
+        }
     }
 }
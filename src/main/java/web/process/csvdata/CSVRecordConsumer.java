@@ -0,0 +1,29 @@
+package web.process.csvdata;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * This interface represents a receiver of CSV File records that are pushed to
+ * it one by one (e.g. by a parser reading a csv-file or by a database select
+ * reading a result set), so that the records do not have to be collected into
+ * a CSVFileData object first.
+ * 
+ * @author SoundlyGifted
+ */
+@FunctionalInterface
+public interface CSVRecordConsumer {
+    
+    /**
+     * Receives the next CSV File record.
+     * 
+     * @param record a record representing a CSV File data record which is a 
+     * mapping of values to the corresponding CSV File headers.
+     * @throws java.io.IOException if the record can not be written.
+     * @throws java.sql.SQLException if the record can not be passed to the 
+     * database.
+     */
+    public void accept(Map<String, String> record) 
+            throws IOException, SQLException;
+}
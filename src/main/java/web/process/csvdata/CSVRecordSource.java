@@ -0,0 +1,33 @@
+package web.process.csvdata;
+
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.IOException;
+import java.sql.SQLException;
+import web.process.parse.exceptions.FileValidationException;
+
+/**
+ * This interface represents a source of CSV File records (e.g. a csv-file
+ * being parsed) that pushes its records one by one to the given 
+ * CSVRecordConsumer.
+ * 
+ * @author SoundlyGifted
+ */
+@FunctionalInterface
+public interface CSVRecordSource {
+    
+    /**
+     * Pushes every record of the source to the consumer in the source order.
+     * 
+     * @param consumer consumer receiving the records.
+     * @throws java.io.IOException if the source can not be read.
+     * @throws java.sql.SQLException if the consumer could not pass a record 
+     * to the database.
+     * @throws web.process.parse.exceptions.FileValidationException if the 
+     * source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if the source 
+     * contains invalid values.
+     */
+    public void forEachRecord(CSVRecordConsumer consumer) 
+            throws IOException, SQLException, FileValidationException, 
+            CsvValidationException;
+}
@@ -0,0 +1,203 @@
+package web.process.csvdata;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Binds the values of CSV File records to the parameters of a prepared 
+ * statement. The binder is compiled once from the CSV File allowed headers 
+ * for the database columns of the statement: each bound header has a fixed
+ * parameter index and the converter of its data type, so binding a record 
+ * takes one Map lookup per header and no String comparison or conversion 
+ * other than the one of the value itself.
+ *
+ * A header missing from the record is bound as NULL (VARCHAR) or 0 (DOUBLE),
+ * the same as an empty value. The DOUBLE values can be passed to a consumer 
+ * as they are bound (e.g. to keep the statistics of the inserted values 
+ * without converting them again).
+ *
+ * @author SoundlyGifted
+ */
+public final class CSVRowBinder {
+
+    /**
+     * Converter of the values of a database field type.
+     */
+    private enum FieldType {
+
+        VARCHAR {
+            @Override
+            void bind(PreparedStatement statement, int parameterIndex, 
+                    String value, DoubleConsumer doubleValues) 
+                    throws SQLException {
+                statement.setString(parameterIndex, value);
+            }
+
+            @Override
+            void bind(PreparedStatement statement, int parameterIndex, 
+                    CSVFileData csvFileData, int index, String csvFileHeader,
+                    DoubleConsumer doubleValues) throws SQLException {
+                statement.setString(parameterIndex, 
+                        csvFileData.getString(index, csvFileHeader));
+            }
+        },
+        DOUBLE {
+            @Override
+            void bind(PreparedStatement statement, int parameterIndex, 
+                    String value, DoubleConsumer doubleValues) 
+                    throws SQLException {
+                double doubleValue;
+                try {
+                    doubleValue = DecimalParser.parseDouble(value);
+                } catch (NumberFormatException nfex) {
+                    throw new NumberFormatException("[CSVRowBinder] Value '" 
+                            + value + "' cannot be converted to Double. "
+                            + nfex.getMessage());
+                }
+                statement.setDouble(parameterIndex, doubleValue);
+                if (doubleValues != null) {
+                    doubleValues.accept(doubleValue);
+                }
+            }
+
+            @Override
+            void bind(PreparedStatement statement, int parameterIndex, 
+                    CSVFileData csvFileData, int index, String csvFileHeader,
+                    DoubleConsumer doubleValues) throws SQLException {
+                double doubleValue = csvFileData.getDouble(index, 
+                        csvFileHeader);
+                statement.setDouble(parameterIndex, doubleValue);
+                if (doubleValues != null) {
+                    doubleValues.accept(doubleValue);
+                }
+            }
+        };
+
+        abstract void bind(PreparedStatement statement, int parameterIndex, 
+                String value, DoubleConsumer doubleValues) 
+                throws SQLException;
+
+        abstract void bind(PreparedStatement statement, int parameterIndex, 
+                CSVFileData csvFileData, int index, String csvFileHeader,
+                DoubleConsumer doubleValues) throws SQLException;
+    }
+
+    private final String[] csvFileHeaders;
+    private final int[] parameterIndexes;
+    private final FieldType[] fieldTypes;
+
+    private CSVRowBinder(String[] csvFileHeaders, int[] parameterIndexes, 
+            FieldType[] fieldTypes) {
+        this.csvFileHeaders = csvFileHeaders;
+        this.parameterIndexes = parameterIndexes;
+        this.fieldTypes = fieldTypes;
+    }
+
+    /**
+     * Compiles the binder of a statement with the given database columns as 
+     * its parameters (e.g. "insert into MYDATA (TEXTDATA, DOUBLEDATA) values
+     * (?, ?)" has the columns "TEXTDATA", "DOUBLEDATA").
+     *
+     * @param databaseColumns database field names of the statement parameters
+     * in the order of the parameters.
+     * @return binder of the statement.
+     * @throws IllegalArgumentException if a column is not a database field of
+     * the CSV File allowed headers.
+     */
+    public static CSVRowBinder compile(String... databaseColumns) {
+        CSVFileData.CSVFileAllowedHeaderEnum[] headers 
+                = CSVFileData.CSVFileAllowedHeaderEnum.values();
+        String[] csvFileHeaders = new String[databaseColumns.length];
+        int[] parameterIndexes = new int[databaseColumns.length];
+        FieldType[] fieldTypes = new FieldType[databaseColumns.length];
+        for (int i = 0; i < databaseColumns.length; i++) {
+            String column = databaseColumns[i];
+            CSVFileData.CSVFileAllowedHeaderEnum header = Arrays.stream(headers)
+                    .filter(h -> h.getHeaderDatabaseName().equals(column))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "[CSVRowBinder] '" + column + "' is not a "
+                            + "database field of the allowed headers."));
+            csvFileHeaders[i] = header.getHeaderCSVFileName();
+            parameterIndexes[i] = i + 1;
+            fieldTypes[i] = FieldType.valueOf(header.getDataType());
+        }
+        return new CSVRowBinder(csvFileHeaders, parameterIndexes, fieldTypes);
+    }
+
+    /**
+     * Binds the record read from a csv-file to the statement parameters, the
+     * values are converted to their database field types.
+     *
+     * @param record a record representing a CSV File data record which is a 
+     * mapping of values to the corresponding CSV File headers.
+     * @param statement statement to bind the values to.
+     * @throws SQLException if a parameter can not be set.
+     * @throws NumberFormatException if a value of a DOUBLE type header can 
+     * not be converted to double.
+     */
+    public void bind(Map<String, String> record, PreparedStatement statement)
+            throws SQLException, NumberFormatException {
+        bind(record, statement, null);
+    }
+
+    /**
+     * Binds the record read from a csv-file to the statement parameters (see
+     * {@link #bind(Map, PreparedStatement)}) and passes the bound values of
+     * the DOUBLE type headers to the consumer.
+     *
+     * @param record a record representing a CSV File data record which is a 
+     * mapping of values to the corresponding CSV File headers.
+     * @param statement statement to bind the values to.
+     * @param doubleValues consumer of the bound DOUBLE values, or null.
+     * @throws SQLException if a parameter can not be set.
+     * @throws NumberFormatException if a value of a DOUBLE type header can 
+     * not be converted to double.
+     */
+    public void bind(Map<String, String> record, PreparedStatement statement,
+            DoubleConsumer doubleValues) 
+            throws SQLException, NumberFormatException {
+        for (int i = 0; i < csvFileHeaders.length; i++) {
+            fieldTypes[i].bind(statement, parameterIndexes[i], 
+                    record.get(csvFileHeaders[i]), doubleValues);
+        }
+    }
+
+    /**
+     * Binds the record kept in the columns of csvFileData to the statement 
+     * parameters, the values are taken in their column data types.
+     *
+     * @param csvFileData CSVFileData object containing the record.
+     * @param index index of the record.
+     * @param statement statement to bind the values to.
+     * @throws SQLException if a parameter can not be set.
+     */
+    public void bind(CSVFileData csvFileData, int index, 
+            PreparedStatement statement) throws SQLException {
+        bind(csvFileData, index, statement, null);
+    }
+
+    /**
+     * Binds the record kept in the columns of csvFileData to the statement 
+     * parameters (see {@link #bind(CSVFileData, int, PreparedStatement)}) 
+     * and passes the bound values of the DOUBLE type headers to the 
+     * consumer.
+     *
+     * @param csvFileData CSVFileData object containing the record.
+     * @param index index of the record.
+     * @param statement statement to bind the values to.
+     * @param doubleValues consumer of the bound DOUBLE values, or null.
+     * @throws SQLException if a parameter can not be set.
+     */
+    public void bind(CSVFileData csvFileData, int index, 
+            PreparedStatement statement, DoubleConsumer doubleValues) 
+            throws SQLException {
+        for (int i = 0; i < csvFileHeaders.length; i++) {
+            fieldTypes[i].bind(statement, parameterIndexes[i], csvFileData, 
+                    index, csvFileHeaders[i], doubleValues);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package web.process.csvdata;
+
+/**
+ * Parser of the decimal numbers of the csv-files, where both '.' and ',' are
+ * accepted as the decimal separator.
+ *
+ * Numbers of up to 15 significant digits with a decimal exponent of at most 22
+ * (all values of the usual csv-files) are parsed directly from the characters
+ * of the String without creating any objects: the digits are exactly
+ * representable as a double and multiplied or divided by an exact power of 10,
+ * which gives the correctly rounded result of Double.parseDouble. Other 
+ * values (more digits, "NaN", hexadecimal numbers etc.) are passed to 
+ * Double.parseDouble with ',' replaced by '.'.
+ *
+ * @author SoundlyGifted
+ */
+public final class DecimalParser {
+
+    /* Maximum number of significant digits kept exactly in a double. */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    /* Powers of 10 exactly representable as a double. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+        1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private DecimalParser() {
+    }
+
+    /**
+     * Parses the value of a DOUBLE type header. An absent or blank value is 0,
+     * leading and trailing whitespace is ignored.
+     *
+     * @param value value of the header as read from the csv-file.
+     * @return value as a double.
+     * @throws NumberFormatException if the value is not a number.
+     */
+    public static double parseDouble(String value) 
+            throws NumberFormatException {
+        if (value == null) {
+            return 0;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return 0;
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = value.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean separator = false;
+        for (; i < end; i++) {
+            c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits == 0 && c == '0') {
+                    // Leading zeros are not significant.
+                    if (separator) {
+                        scale--;
+                    }
+                    continue;
+                }
+                if (digits == MAX_FAST_DIGITS) {
+                    return parseSlow(value);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (separator) {
+                    scale--;
+                }
+            } else if ((c == '.' || c == ',') && !separator) {
+                separator = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            return parseSlow(value);
+        }
+
+        int exponent = 0;
+        if (i < end && (c == 'e' || c == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (value.charAt(i) == '-' 
+                    || value.charAt(i) == '+')) {
+                negativeExponent = value.charAt(i) == '-';
+                i++;
+            }
+            int exponentDigits = 0;
+            for (; i < end && value.charAt(i) >= '0' 
+                    && value.charAt(i) <= '9'; i++) {
+                if (exponent < 10000) {
+                    exponent = exponent * 10 + (value.charAt(i) - '0');
+                }
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return parseSlow(value);
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        if (i != end) {
+            // e.g. a second separator or a type suffix ("1d").
+            return parseSlow(value);
+        }
+
+        double result;
+        int power = scale + exponent;
+        if (mantissa == 0) {
+            result = 0;
+        } else if (power >= 0 && power < POWERS_OF_TEN.length) {
+            result = mantissa * POWERS_OF_TEN[power];
+        } else if (power < 0 && -power < POWERS_OF_TEN.length) {
+            result = mantissa / POWERS_OF_TEN[-power];
+        } else {
+            return parseSlow(value);
+        }
+        return negative ? -result : result;
+    }
+
+
+    private static double parseSlow(String value) 
+            throws NumberFormatException {
+        return Double.parseDouble(value.replace(',', '.'));
+    }
+}
@@ -0,0 +1,40 @@
+package web.process.csvdata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Column of double values kept in primitive arrays that are added in chunks
+ * of ROWS_PER_CHUNK values as the column grows (the values are never copied 
+ * to a bigger array).
+ * 
+ * @author SoundlyGifted
+ */
+class DoubleColumn {
+    
+    static final int ROWS_PER_CHUNK = 4096;
+    
+    private final List<double[]> chunks = new ArrayList<>();
+    private int size = 0;
+    
+    void add(double value) {
+        int index = size % ROWS_PER_CHUNK;
+        if (index == 0) {
+            chunks.add(new double[ROWS_PER_CHUNK]);
+        }
+        chunks.get(chunks.size() - 1)[index] = value;
+        size++;
+    }
+    
+    double get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row 
+                    + " is out of column size " + size);
+        }
+        return chunks.get(row / ROWS_PER_CHUNK)[row % ROWS_PER_CHUNK];
+    }
+    
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,91 @@
+package web.process.csvdata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Column of String values kept as UTF-8 bytes in byte arrays of 
+ * BYTES_PER_CHUNK size, a value never spans two byte arrays. The position 
+ * (byte array index and offset) and the length of each value are kept in 
+ * primitive arrays added in chunks of ROWS_PER_CHUNK values, so a value takes 
+ * its UTF-8 length plus 12 bytes instead of a String object.
+ * 
+ * @author SoundlyGifted
+ */
+class StringColumn {
+    
+    static final int ROWS_PER_CHUNK = 4096;
+    static final int BYTES_PER_CHUNK = 64 * 1024;
+    
+    /* Length of a null value. */
+    private static final int NULL_LENGTH = -1;
+    
+    private final List<byte[]> dataChunks = new ArrayList<>();
+    /* Byte array the next values are appended to, null before the first 
+     * value and after a value that got a byte array of its own.
+     */
+    private byte[] dataChunk;
+    private int dataChunkUsed = 0;
+    
+    /* (byte array index << 32 | offset) of each value. */
+    private final List<long[]> positionChunks = new ArrayList<>();
+    private final List<int[]> lengthChunks = new ArrayList<>();
+    private int size = 0;
+    
+    void add(String value) {
+        int index = size % ROWS_PER_CHUNK;
+        if (index == 0) {
+            positionChunks.add(new long[ROWS_PER_CHUNK]);
+            lengthChunks.add(new int[ROWS_PER_CHUNK]);
+        }
+        long[] positions = positionChunks.get(positionChunks.size() - 1);
+        int[] lengths = lengthChunks.get(lengthChunks.size() - 1);
+        
+        if (value == null) {
+            lengths[index] = NULL_LENGTH;
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > BYTES_PER_CHUNK) {
+                // A value longer than a chunk gets a byte array of its own.
+                dataChunks.add(bytes);
+                dataChunk = null;
+                positions[index] = (long) (dataChunks.size() - 1) << 32;
+            } else {
+                if (dataChunk == null 
+                        || BYTES_PER_CHUNK - dataChunkUsed < bytes.length) {
+                    dataChunk = new byte[BYTES_PER_CHUNK];
+                    dataChunks.add(dataChunk);
+                    dataChunkUsed = 0;
+                }
+                System.arraycopy(bytes, 0, dataChunk, dataChunkUsed, 
+                        bytes.length);
+                positions[index] = ((long) (dataChunks.size() - 1) << 32) 
+                        | dataChunkUsed;
+                dataChunkUsed += bytes.length;
+            }
+            lengths[index] = bytes.length;
+        }
+        size++;
+    }
+    
+    String get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row 
+                    + " is out of column size " + size);
+        }
+        int length = lengthChunks.get(row / ROWS_PER_CHUNK)[row % ROWS_PER_CHUNK];
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        long position 
+                = positionChunks.get(row / ROWS_PER_CHUNK)[row % ROWS_PER_CHUNK];
+        byte[] dataChunk = dataChunks.get((int) (position >>> 32));
+        return new String(dataChunk, (int) position, length, 
+                StandardCharsets.UTF_8);
+    }
+    
+    int size() {
+        return size;
+    }
+}
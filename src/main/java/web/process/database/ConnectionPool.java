@@ -0,0 +1,334 @@
+package web.process.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simple thread-safe JDBC connection pool. A borrowed connection is a proxy of
+ * the physical connection: closing it returns the physical connection to the
+ * pool instead of closing it.
+ * 
+ * The number of borrowed connections is limited by the maximum pool size, 
+ * callers wait for a free connection up to the borrow timeout. Idle 
+ * connections are validated on borrow and the ones idle for longer than the 
+ * idle timeout are closed by evictIdle() (down to the minimum pool size).
+ * 
+ * @author SoundlyGifted
+ */
+class ConnectionPool {
+    
+    /**
+     * Creates new physical database connections for the pool.
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+    
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    
+    /* Idle connections, the most recently returned one first. */
+    private final LinkedBlockingDeque<PooledConnection> idle 
+            = new LinkedBlockingDeque<>();
+    /* One permit per connection that may be borrowed. */
+    private final Semaphore permits;
+    
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    
+    private volatile boolean closed = false;
+
+    ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, 
+            long idleTimeoutMillis, long borrowTimeoutMillis, 
+            int validationTimeoutSeconds) {
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(this.maxSize, true);
+    }
+    
+    /**
+     * Borrows a connection from the pool, waits for a free one up to the 
+     * borrow timeout if the pool is exhausted.
+     * 
+     * @return proxy of a valid pooled connection.
+     * @throws SQLException if no connection became free within the borrow
+     * timeout or a new connection could not be created.
+     */
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("connection pool is closed");
+        }
+        long waitStart = System.nanoTime();
+        waiters.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, 
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a "
+                    + "connection");
+        } finally {
+            waiters.decrementAndGet();
+        }
+        long waited = System.nanoTime() - waitStart;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        borrowCount.incrementAndGet();
+        if (!acquired) {
+            throw new SQLException("no free connection within " 
+                    + borrowTimeoutMillis + " ms (pool max size " + maxSize 
+                    + ")");
+        }
+        
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isValid(pooled)) {
+                    break;
+                }
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = new PooledConnection(factory.create());
+                created.incrementAndGet();
+            }
+            active.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Closes idle connections that were not used for longer than the idle 
+     * timeout, keeping at least the minimum pool size, and opens connections
+     * if the pool holds less than the minimum pool size.
+     */
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() 
+                && idle.size() + active.get() > minSize) {
+            PooledConnection pooled = iterator.next();
+            if (now - pooled.lastUsed > idleTimeoutMillis 
+                    && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+        fillToMinSize();
+    }
+    
+    /**
+     * Opens connections until the pool holds the minimum pool size.
+     */
+    void fillToMinSize() {
+        try {
+            while (!closed && idle.size() + active.get() < minSize 
+                    && permits.tryAcquire()) {
+                try {
+                    idle.offerLast(new PooledConnection(factory.create()));
+                    created.incrementAndGet();
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException sqlex) {
+            System.out.println("[ConnectionPool]: Could not open an idle "
+                    + "connection: " + sqlex.getMessage());
+        }
+    }
+    
+    /**
+     * Closes all idle connections, the borrowed ones are closed when they are
+     * returned.
+     */
+    void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+    
+    ConnectionPoolStats getStats() {
+        return new ConnectionPoolStats(active.get(), idle.size(), 
+                waiters.get(), minSize, maxSize, borrowCount.get(), 
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()), 
+                created.get(), destroyed.get());
+    }
+    
+    
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException sqlex) {
+            return false;
+        }
+    }
+    
+    private void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            if (closed || pooled.broken || pooled.connection.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            // Returning the connection in its initial state.
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            pooled.connection.clearWarnings();
+            for (PreparedStatement statement : pooled.statements.values()) {
+                statement.clearBatch();
+                statement.clearParameters();
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException sqlex) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private void destroy(PooledConnection pooled) {
+        destroyed.incrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException sqlex) {
+            System.out.println("[ConnectionPool]: Connection closing error: " 
+                    + sqlex.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Physical connection kept by the pool.
+     */
+    private class PooledConnection {
+        
+        private final Connection connection;
+        /* Prepared statements cached by SQL query name. The connection is
+         * used by one borrower at a time, so no synchronization is needed.
+         */
+        private final Map<String, PreparedStatement> statements 
+                = new HashMap<>();
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile boolean broken = false;
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+        
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] {Connection.class, 
+                        StatementCachingConnection.class}, 
+                    new Lease(this));
+        }
+        
+        PreparedStatement prepareCachedStatement(String key, String sql) 
+                throws SQLException {
+            PreparedStatement statement = statements.get(key);
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql);
+                statements.put(key, statement);
+            }
+            return statement;
+        }
+    }
+    
+    
+    /**
+     * Handles the calls of a borrowed connection proxy: "close" returns the 
+     * physical connection to the pool, other calls are passed to the physical
+     * connection while the proxy is not closed.
+     */
+    private class Lease implements InvocationHandler {
+        
+        private final PooledConnection pooled;
+        private boolean leaseClosed = false;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+        
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, 
+                Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!leaseClosed) {
+                        leaseClosed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return leaseClosed || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + pooled.connection;
+                default:
+                    break;
+            }
+            if (leaseClosed) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                if (method.getDeclaringClass() 
+                        == StatementCachingConnection.class) {
+                    return pooled.prepareCachedStatement((String) args[0], 
+                            (String) args[1]);
+                }
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException itex) {
+                Throwable cause = itex.getCause();
+                /* SQL state class "08" is a connection exception, such a 
+                 * connection is not returned to the pool.
+                 */
+                if (cause instanceof SQLException) {
+                    String sqlState = ((SQLException) cause).getSQLState();
+                    if (sqlState != null && sqlState.startsWith("08")) {
+                        pooled.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
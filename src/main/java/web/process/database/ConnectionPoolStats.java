@@ -0,0 +1,85 @@
+package web.process.database;
+
+/**
+ * This class represents a snapshot of the database connection pool state.
+ * 
+ * @author SoundlyGifted
+ */
+public class ConnectionPoolStats {
+    
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waiters;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowCount;
+    private final long totalWaitMillis;
+    private final long maxWaitMillis;
+    private final long createdConnections;
+    private final long destroyedConnections;
+
+    ConnectionPoolStats(int activeConnections, int idleConnections, 
+            int waiters, int minSize, int maxSize, long borrowCount, 
+            long totalWaitMillis, long maxWaitMillis, long createdConnections, 
+            long destroyedConnections) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waiters = waiters;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowCount = borrowCount;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.createdConnections = createdConnections;
+        this.destroyedConnections = destroyedConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+    
+    /**
+     * Used to get the average time spent waiting for a connection.
+     * 
+     * @return average borrow wait time in milliseconds.
+     */
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0 : (double) totalWaitMillis / borrowCount;
+    }
+
+    public long getCreatedConnections() {
+        return createdConnections;
+    }
+
+    public long getDestroyedConnections() {
+        return destroyedConnections;
+    }
+}
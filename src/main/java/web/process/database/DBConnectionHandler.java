@@ -1,48 +1,81 @@
 package web.process.database;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.Timer;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
+import web.process.config.AppConfigProviderLocal;
+import web.process.metrics.AppMetricsLocal;
 
 /**
  * This EJB is used to handle database Connection.
  *
+ * Connections are taken from a connection pool configured with the "pool.*"
+ * properties of the config.properties file. The pool is thread-safe, so the
+ * bean allows concurrent access (READ lock) instead of the default singleton
+ * WRITE lock that would serialize all callers.
+ *
  * @author SoundlyGifted
  */
 @Startup
 @Singleton
+@DependsOn("AppConfigProvider")
+@Lock(LockType.READ)
 public class DBConnectionHandler implements DBConnectionHandlerLocal {
 
-    private static final String CONFIGS = "/resources/config.properties";
-    private final Properties configs = new Properties();
-    
+    @EJB
+    private AppConfigProviderLocal configProvider;
+
+    @EJB
+    private AppMetricsLocal metrics;
+
+    @Resource
+    private TimerService timerService;
+
     private String dbURL;
     private String dbUser;
     private String dbPass;
-    
+    /* True if the database server runs on this host. */
+    private boolean localDatabase;
+
+    private ConnectionPool pool;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Connection getDBConnection() throws SQLException {
         Connection connection = null;
+        long start = System.nanoTime();
         try {
-            connection = DriverManager.getConnection(dbURL, dbUser, dbPass);
+            connection = pool.borrow();
         } catch (SQLException sqlex) {
             throw new SQLException("[DBConnectionHandler] could not connect to "
-                    + "the database using URL '" + dbURL + "', user '" + dbUser 
+                    + "the database using URL '" + dbURL + "', user '" + dbUser
                     + "', password '" + dbPass + "; " + sqlex.getMessage());
+        } finally {
+            metrics.stage(AppMetricsLocal.CONNECTION_ACQUIRE)
+                    .observeSince(start, 0, 0);
         }
         return connection;
     }
-    
-    
+
+
     /**
      * {@inheritDoc}
      */
@@ -56,55 +89,103 @@ public class DBConnectionHandler implements DBConnectionHandlerLocal {
             throw new SQLException("[DBConnectionHandler] DBConnection closing "
                     + "error :" + sqlex.getMessage());
         }
-    }    
-    
-    
-    private void setDefaultConfigs(String databaseName, 
-            String user, String pass) {
-        configs.setProperty("database.driver", "jdbc:derby");
-        configs.setProperty("database.host", "localhost");
-        configs.setProperty("database.port", "1527");
-        configs.setProperty("database.name", databaseName);
-        configs.setProperty("database.name", user);
-        configs.setProperty("database.password", pass);
     }
-    
-    
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConnectionPoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDatabaseLocal() {
+        return localDatabase;
+    }
+
+
+    /**
+     * Closes the connections that stayed idle for longer than
+     * "pool.idle.timeout.seconds".
+     *
+     * @param timer idle eviction timer.
+     */
+    @Timeout
+    public void evictIdleConnections(Timer timer) {
+        pool.evictIdle();
+    }
+
+
     private void setDBConnectionParameters() {
-        dbURL = configs.getProperty("database.driver") + "://"
-                + configs.getProperty("database.host") + ":"
-                + configs.getProperty("database.port") + "/"
-                + configs.getProperty("database.name");
-        dbUser = configs.getProperty("database.user");
-        dbPass = configs.getProperty("database.password");
+        /* Default Apache Derby database configuration is used for the
+         * properties missing in the configuration file.
+         */
+        dbURL = configProvider.getProperty("database.driver", "jdbc:derby")
+                + "://"
+                + configProvider.getProperty("database.host", "localhost")
+                + ":"
+                + configProvider.getProperty("database.port", "1527") + "/"
+                + configProvider.getProperty("database.name",
+                        "DatabaseCsvFileIOAppDB");
+        dbUser = configProvider.getProperty("database.user", "app");
+        dbPass = configProvider.getProperty("database.password", "app");
+        localDatabase = isLocalHost(configProvider.getProperty(
+                "database.host", "localhost").trim());
     }
-    
-    
+
+
+    /* The host is resolved once at startup, the address of a host name is
+     * local if it is a loopback address or an address of this host.
+     */
+    private boolean isLocalHost(String host) {
+        try {
+            InetAddress address = InetAddress.getByName(host);
+            return address.isLoopbackAddress() || address.isAnyLocalAddress()
+                    || NetworkInterface.getByInetAddress(address) != null;
+        } catch (IOException ioex) {
+            // Unknown host, it is not this host.
+            return false;
+        }
+    }
+
+
     @PostConstruct
     public void postConstruct() {
-        /* Resource package "resources" (containing config.properties and 
-         * package with SQL files) was placed in "/src/main/resources", so that 
-         * Maven will properly pack them into right folder in "war" archive:
-         * "[project-name].war -> WEB-INF/classes"
-         * This is the classpath of "war" archive, where the ClassLoader loads 
-         * resources from.
-         */
-        ClassLoader classLoader = this.getClass().getClassLoader();
-        try (InputStream stream = classLoader.getResourceAsStream(CONFIGS)) {
-            configs.load(stream);
-            setDBConnectionParameters();
-        } catch (IOException ioex) {
-            System.out.println("[DBConnectionHandler]: Database connection "
-                    + "Properties file loading failure for the configuration "
-                    + "file '" + CONFIGS + "': " + ioex.getMessage());
-            System.out.println("[DBConnectionHandler]: Default Apache Derby "
-                    + "database configuration will be used instead.");
-            
-            String databaseName = "DatabaseCsvFileIOAppDB";
-            String user = "app";
-            String pass = "app";
-            setDefaultConfigs(databaseName, user, pass);
-            setDBConnectionParameters();
+        setDBConnectionParameters();
+        if (!localDatabase && configProvider.getProperty("bulk.import.dir", 
+                "").trim().isEmpty()) {
+            System.out.println("[DBConnectionHandler]: Database server is "
+                    + "remote and \"bulk.import.dir\" is not configured, the "
+                    + "Derby bulk import inserts the records in batches.");
         }
+
+        pool = new ConnectionPool(
+                () -> DriverManager.getConnection(dbURL, dbUser, dbPass),
+                configProvider.getIntProperty("pool.size.min", 2),
+                configProvider.getIntProperty("pool.size.max", 10),
+                configProvider.getLongProperty("pool.idle.timeout.seconds",
+                        300) * 1000,
+                configProvider.getLongProperty("pool.borrow.timeout.millis",
+                        10000),
+                configProvider.getIntProperty("pool.validation.timeout.seconds",
+                        2));
+        pool.fillToMinSize();
+
+        long evictionInterval = configProvider.getLongProperty(
+                "pool.eviction.interval.seconds", 60) * 1000;
+        timerService.createIntervalTimer(evictionInterval, evictionInterval,
+                new TimerConfig(null, false));
+    }
+
+
+    @PreDestroy
+    public void preDestroy() {
+        pool.close();
     }
 }
@@ -13,7 +13,8 @@ import java.sql.SQLException;
 public interface DBConnectionHandlerLocal {
     
     /**
-     * Returns database Connection
+     * Returns database Connection taken from the connection pool. Closing the
+     * connection returns it to the pool.
      * 
      * @return database Connection
      * @throws java.sql.SQLException if the connection to the database can not
@@ -29,4 +30,20 @@ public interface DBConnectionHandlerLocal {
      * database connection.
      */
     public void closeDBConnection(Connection connection) throws SQLException;
+    
+    /**
+     * Returns current state of the database connection pool.
+     * 
+     * @return connection pool statistics (active, idle connections, waiting 
+     * callers, borrow wait time).
+     */
+    public ConnectionPoolStats getPoolStats();
+    
+    /**
+     * Tells whether the database server runs on the host of the application
+     * server, resolved once at startup from the "database.host" property.
+     * 
+     * @return true if the database host is this host.
+     */
+    public boolean isDatabaseLocal();
 }
@@ -1,17 +1,48 @@
 package web.process.database;
 
+import com.opencsv.exceptions.CsvValidationException;
 import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.DoubleConsumer;
+import web.process.config.AppConfigProviderLocal;
 import web.process.csvdata.CSVFileData;
+import web.process.csvdata.CSVRecordConsumer;
+import web.process.csvdata.CSVRecordSource;
+import web.process.csvdata.CSVRowBinder;
+import web.process.csvdata.DecimalParser;
+import web.process.metrics.AppMetricsLocal;
+import web.process.metrics.StageMetrics;
+import web.process.parse.exceptions.FileValidationException;
 
 /**
  * This Bean contains implementation of methods that are used to handle 
@@ -23,82 +54,479 @@ import web.process.csvdata.CSVFileData;
 @Stateless
 public class DBDataHandler implements DBDataHandlerLocal {
 
+    /* Default number of records sent to the database within one chunk. */
+    private static final int DEFAULT_CHUNK_SIZE = 10000;
+    
+    /* Default number of rows fetched from the database at a time by select. */
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    
+    /* Default number of connections used by the parallel insert. */
+    private static final int DEFAULT_PARALLEL_CONNECTIONS = 4;
+    
+    /* Size of the buffer the records are written to the staging file with. */
+    private static final int STAGING_BUFFER_SIZE = 64 * 1024;
+    
+    /* Length of the FILE_NAME column of the uploaded files registry. */
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+    
+    /* SQL state of the error dropping a table that does not exist. */
+    private static final String TABLE_NOT_FOUND = "42Y55";
+    
+    /* Lock of the "MYDATA_STAGING" table, one replace runs at a time (the
+     * lock is shared by all instances of the bean).
+     */
+    private static final ReentrantLock REPLACE_LOCK = new ReentrantLock();
+    
+    /* Lock of the "MYDATA_LOAD" table, one bulk import into "MYDATA" table 
+     * runs at a time (the lock is shared by all instances of the bean).
+     */
+    private static final ReentrantLock LOAD_LOCK = new ReentrantLock();
+    
+    /* Progress of the inserts nobody watches. */
+    private static final InsertProgress NO_PROGRESS = recordCount -> { };
+    
+    /* Binder of the insert.mydata parameters (in the order of its columns). */
+    private static final CSVRowBinder INSERT_BINDER 
+            = CSVRowBinder.compile("TEXTDATA", "DOUBLEDATA");
+    
+    /* Columns of the database table the upsert key can be configured on. */
+    private static final List<String> UPSERT_KEY_COLUMNS 
+            = List.of("TEXTDATA", "DOUBLEDATA");
+    
+    /* Default column of the upsert key. */
+    private static final String DEFAULT_UPSERT_KEY_COLUMN = "TEXTDATA";
+    
+    /* Lock of the keys of "MYDATA" table: the inserts, imports and replaces
+     * hold its read lock and run together, an upsert holds its write lock, 
+     * so no other upload inserts a key the upsert is looking up (the lock 
+     * is shared by all instances of the bean).
+     */
+    private static final ReentrantReadWriteLock KEYS_LOCK 
+            = new ReentrantReadWriteLock();
+    
+    /* SQL state of the error inserting a duplicate primary key. */
+    private static final String DUPLICATE_KEY = "23505";
+
     @EJB
     private DBConnectionHandlerLocal connectionHandler;
     
+    @EJB
+    private AppConfigProviderLocal configProvider;
+    
     @EJB
     private SQLQueryProviderLocal sqlQueryProvider;
     
+    @EJB
+    private InsertExecutorProviderLocal insertExecutorProvider;
+    
+    @EJB
+    private AppMetricsLocal metrics;
+    
     /**
      * {@inheritDoc}
      */
     @Override
-    public void insertMultRecs(CSVFileData csvFileData) 
+    public InsertResult insertMultRecs(CSVFileData csvFileData) 
             throws IOException, SQLException, NumberFormatException {
-        String sqlFileName = "insert.mydata";
-        String sql;
-        try {
-            sql = sqlQueryProvider.getQuery(sqlFileName);
-        } catch (IOException ioex) {
-            throw new IOException("[DBDataHandler] Could not read SQL query "
-                    + "from '" + sqlFileName + ".sql' file. " + ioex.getMessage());
+        KEYS_LOCK.readLock().lock();
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            PreparedStatement statement 
+                    = prepareQuery(connection, "insert.mydata");
+            ChunkedInsert insert = new ChunkedInsert(connection, statement);
+            try {
+                for (int index = 0; index < csvFileData.size(); index++) {
+                    insert.add(csvFileData, index);
+                }
+                return insert.finish();
+            } catch (IOException | SQLException | RuntimeException ex) {
+                insert.abort();
+                throw ex;
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        } finally {
+            KEYS_LOCK.readLock().unlock();
         }
-
-        try (Connection connection = connectionHandler.getDBConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
-            List<Map<String, String>> csvFileRecordList = csvFileData
-                    .getRecordListWithCSVFileHeaders();
-            for (Map<String, String> csvFileRecord : csvFileRecordList) {
-                // values that come from the csv file
-                String csvFileHeaderName;
-                String inputStringValue;
-                
-                // variables that define a database record
-                Map<String, String> databaseHeaderNames 
-                        = csvFileData.getHeaderDatabaseNamesMappedToCSVFileHeaderNames();
-                Map<String, String> databaseFieldTypes 
-                        = csvFileData.getDataTypesMappedToCSVFileHeaderNames();
-                String databaseHeaderName;
-                String databaseFieldType;
-                String databaseVarcharValue = "";
-                Double databaseDoubleValue = (double) 0;       
-                
-                for (Map.Entry<String, String> entry : csvFileRecord.entrySet()) {
-                    csvFileHeaderName = entry.getKey();
-                    inputStringValue = entry.getValue();
-
-                    databaseHeaderName = databaseHeaderNames
-                            .get(csvFileHeaderName);
-                    databaseFieldType = databaseFieldTypes
-                            .get(csvFileHeaderName);
-
-                    if ("DOUBLE".equals(databaseFieldType)) {
-                        if (inputStringValue == null || inputStringValue.trim()
-                                .isEmpty()) {
-                            databaseDoubleValue = (double) 0;
-                        } else {
-                            databaseDoubleValue = stringToDouble(inputStringValue);
-                            if (databaseDoubleValue == null) {
-                                databaseDoubleValue = (double) 0;
-                            }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult insertRecordStream(CSVRecordSource recordSource) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        return insertRecordStream(recordSource, NO_PROGRESS);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult insertRecordStream(CSVRecordSource recordSource,
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        KEYS_LOCK.readLock().lock();
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            PreparedStatement statement 
+                    = prepareQuery(connection, "insert.mydata");
+            ChunkedInsert insert = new ChunkedInsert(connection, statement, 
+                    configuredCommitMode(), progress);
+            try {
+                /* Each record is bound to the statement as soon as the source 
+                 * provides it, the records are sent to the database and
+                 * committed in chunks.
+                 */
+                recordSource.forEachRecord(insert::add);
+                return insert.finish();
+            } catch (IOException | SQLException | RuntimeException
+                    | FileValidationException | CsvValidationException ex) {
+                insert.abort();
+                throw ex;
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        } finally {
+            KEYS_LOCK.readLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult insertMultRecsParallel(CSVFileData csvFileData) 
+            throws IOException, SQLException, NumberFormatException {
+        KEYS_LOCK.readLock().lock();
+        try {
+            ParallelInsert insert = new ParallelInsert(NO_PROGRESS);
+            try {
+                // Each connection inserts one range of the records.
+                int rangeSize = (csvFileData.size() + insert.connectionCount 
+                        - 1) / insert.connectionCount;
+                for (int start = 0; start < csvFileData.size(); 
+                        start += rangeSize) {
+                    int from = start;
+                    int to = Math.min(csvFileData.size(), start + rangeSize);
+                    insert.submit(chunkedInsert -> {
+                        for (int index = from; index < to; index++) {
+                            chunkedInsert.add(csvFileData, index);
                         }
-                    } else if ("VARCHAR".equals(databaseFieldType)) {
-                        databaseVarcharValue = inputStringValue;
-                    }
-                    
-                    if ("TEXTDATA".equals(databaseHeaderName)) {
-                        statement.setString(1, databaseVarcharValue);
-                    } else if ("DOUBLEDATA".equals(databaseHeaderName)) {
-                        statement.setDouble(2, databaseDoubleValue);
-                    }
+                    });
+                }
+                return insert.finish();
+            } catch (IOException | SQLException | RuntimeException ex) {
+                insert.abort();
+                throw ex;
+            } finally {
+                insert.close();
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        } finally {
+            KEYS_LOCK.readLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult insertRecordStreamParallel(
+            CSVRecordSource recordSource) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        return insertRecordStreamParallel(recordSource, NO_PROGRESS);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult insertRecordStreamParallel(
+            CSVRecordSource recordSource, InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        KEYS_LOCK.readLock().lock();
+        try {
+            ParallelInsert insert = new ParallelInsert(progress);
+            try {
+                /* The records are collected into batches of one chunk, each
+                 * batch is inserted by the first free connection.
+                 */
+                recordSource.forEachRecord(insert::add);
+                return insert.finish();
+            } catch (IOException | SQLException | RuntimeException
+                    | FileValidationException | CsvValidationException ex) {
+                insert.abort();
+                throw ex;
+            } finally {
+                insert.close();
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        } finally {
+            KEYS_LOCK.readLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult insertRecordStreamsParallel(
+            List<CSVRecordSource> recordSources, int sourceConcurrency, 
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        KEYS_LOCK.readLock().lock();
+        try {
+            ParallelInsert insert = new ParallelInsert(progress);
+            try {
+                readSourcesConcurrently(recordSources, 
+                        Math.max(1, sourceConcurrency), insert);
+                return insert.finish();
+            } catch (IOException | SQLException | RuntimeException
+                    | FileValidationException | CsvValidationException ex) {
+                insert.abort();
+                throw ex;
+            } finally {
+                insert.close();
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        } finally {
+            KEYS_LOCK.readLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult importRecordStream(CSVRecordSource recordSource, 
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        return importRecordStreams(List.of(recordSource), progress);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult importRecordStreams(List<CSVRecordSource> recordSources,
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        if (!isStagingFileReadable()) {
+            // The records of the sources are inserted one after another.
+            return insertRecordStream(consumer -> {
+                for (CSVRecordSource recordSource : recordSources) {
+                    recordSource.forEachRecord(consumer);
+                }
+            }, progress);
+        }
+        return importRecords(recordSources, null, progress);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult replaceWithRecordStreams(
+            List<CSVRecordSource> recordSources, boolean bulkImport, 
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        long startTime = System.currentTimeMillis();
+        REPLACE_LOCK.lock();
+        try {
+            createStagingTable();
+            try {
+                StatsDelta stats = new StatsDelta();
+                InsertResult loadResult = bulkImport 
+                        && isStagingFileReadable()
+                        ? importRecords(recordSources, stats, progress)
+                        : insertStagingRecords(recordSources, stats, progress);
+                long swapMillis = swapStagingTable(stats);
+                return new InsertResult(loadResult, 
+                        System.currentTimeMillis() - startTime, swapMillis);
+            } catch (IOException | SQLException | RuntimeException
+                    | FileValidationException | CsvValidationException ex) {
+                dropStagingTable();
+                throw ex;
+            }
+        } finally {
+            REPLACE_LOCK.unlock();
+        }
+    }
+    
+    
+    /* Writes the records to a staging file imported by the import procedure
+     * in one transaction. The procedure commits the import itself, so the 
+     * records for "MYDATA" table are imported into "MYDATA_LOAD" table first
+     * and inserted into "MYDATA" table in one transaction with the data 
+     * version and the statistics. The staging table of a replace has no data 
+     * version, the statistics of its records are passed to stagingStats 
+     * instead (null for "MYDATA" table).
+     */
+    private InsertResult importRecords(List<CSVRecordSource> recordSources,
+            StatsDelta stagingStats, InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        long startTime = System.currentTimeMillis();
+        Path stagingFile = createStagingFile();
+        try {
+            long stagingStart = System.nanoTime();
+            StatsDelta stats = stagingStats != null ? stagingStats 
+                    : new StatsDelta();
+            long recordCount = stageRecords(recordSources, stagingFile, stats);
+            metrics.stage(AppMetricsLocal.STAGE_FILE).observeSince(
+                    stagingStart, recordCount, Files.size(stagingFile));
+            
+            long importStart = System.nanoTime();
+            try (Connection connection = connectionHandler.getDBConnection()) {
+                if (stagingStats != null) {
+                    importFile(connection, "import.staging.mydata", 
+                            stagingFile);
+                } else {
+                    importLoadedFile(connection, stagingFile, stats);
+                }
+            } catch (SQLException sqlex) {
+                throw new SQLException("[DBDataHandler] Error connecting to "
+                        + "the database or importing the staging file: " 
+                        + sqlex.getMessage());
+            }
+            long importNanos = System.nanoTime() - importStart;
+            metrics.stage(AppMetricsLocal.BULK_IMPORT).observe(importNanos, 
+                    recordCount, Files.size(stagingFile));
+            progress.recordsInserted(recordCount);
+            return new InsertResult(recordCount, 
+                    System.currentTimeMillis() - startTime, 
+                    importNanos / 1000000);
+        } finally {
+            try {
+                Files.deleteIfExists(stagingFile);
+            } catch (IOException ioex) {
+                System.out.println("[DBDataHandler]: Staging file '" 
+                        + stagingFile + "' could not be deleted: " 
+                        + ioex.getMessage());
+            }
+        }
+    }
+    
+    
+    /* Imports the staging file into the empty "MYDATA_LOAD" table and moves 
+     * its records into "MYDATA" table in one transaction together with the
+     * new data version and the statistics, so a failed import changes 
+     * nothing in "MYDATA" table.
+     */
+    private void importLoadedFile(Connection connection, Path stagingFile, 
+            StatsDelta stats) throws IOException, SQLException {
+        KEYS_LOCK.readLock().lock();
+        LOAD_LOCK.lock();
+        try {
+            // The table left by an interrupted import is dropped.
+            dropTable(connection, "drop.load.mydata");
+            executeDDL(connection, "create.load.mydata");
+            try {
+                importFile(connection, "import.load.mydata", stagingFile);
+                connection.setAutoCommit(false);
+                try {
+                    prepareQuery(connection, "insert.load.mydata")
+                            .executeUpdate();
+                    updateStats(connection, stats);
+                    updateDataVersion(connection);
+                    connection.commit();
+                } catch (IOException | SQLException | RuntimeException ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                try {
+                    dropTable(connection, "drop.load.mydata");
+                } catch (IOException | SQLException ex) {
+                    System.out.println("[DBDataHandler]: Load table could "
+                            + "not be dropped: " + ex.getMessage());
+                }
+            }
+        } finally {
+            LOAD_LOCK.unlock();
+            KEYS_LOCK.readLock().unlock();
+        }
+    }
+    
+    
+    /* The procedure reads the file on the database server and inserts all 
+     * records in one transaction.
+     */
+    private void importFile(Connection connection, String importQuery, 
+            Path stagingFile) throws IOException, SQLException {
+        PreparedStatement statement = prepareQuery(connection, importQuery);
+        statement.setString(1, stagingFile.toAbsolutePath().toString());
+        statement.execute();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InsertResult upsertRecordStreams(
+            List<CSVRecordSource> recordSources, InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        String keyColumn = configuredUpsertKeyColumn();
+        KEYS_LOCK.writeLock().lock();
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            // The other columns are updated, the key is the last parameter.
+            List<String> updateColumns = new ArrayList<>(UPSERT_KEY_COLUMNS);
+            updateColumns.remove(keyColumn);
+            StringJoiner columns = new StringJoiner(", ");
+            for (String column : updateColumns) {
+                columns.add(column + " = ?");
+            }
+            updateColumns.add(keyColumn);
+            PreparedStatement updateStatement 
+                    = sqlQueryProvider.prepareStatement(connection, 
+                            "update.upsert.mydata:" + keyColumn, 
+                            sqlQueryProvider.getQuery("update.upsert.mydata")
+                                    .replace("{columns}", columns.toString())
+                                    .replace("{key}", keyColumn));
+            ChunkedUpsert upsert = new ChunkedUpsert(connection, 
+                    prepareQuery(connection, "insert.mydata"), 
+                    updateStatement, CSVRowBinder.compile(updateColumns
+                            .toArray(new String[0])), keyColumn, 
+                    configuredCommitMode(), progress);
+            try {
+                for (CSVRecordSource recordSource : recordSources) {
+                    recordSource.forEachRecord(upsert::add);
                 }
-                statement.addBatch();
+                return upsert.finish();
+            } catch (IOException | SQLException | RuntimeException
+                    | FileValidationException | CsvValidationException ex) {
+                upsert.abort();
+                throw ex;
             }
-            statement.executeBatch();
         } catch (SQLException sqlex) {
             throw new SQLException("[DBDataHandler] Error connecting to the "
                     + "database or executing SQL query: " 
                     + sqlex.getMessage());
+        } finally {
+            KEYS_LOCK.writeLock().unlock();
         }
     }
     
@@ -108,89 +536,1491 @@ public class DBDataHandler implements DBDataHandlerLocal {
     @Override
     public CSVFileData selectAll() throws IOException, SQLException {
         CSVFileData csvFileData = new CSVFileData();
-
-        String sqlFileName = "select.all.mydata";
-        String sql;
-        try {
-            sql = sqlQueryProvider.getQuery(sqlFileName);
-        } catch (IOException ioex) {
-            throw new IOException("[DBDataHandler] Could not read SQL query "
-                    + "from '" + sqlFileName + ".sql' file. " + ioex.getMessage());
+        selectAll(csvFileData::addRecord);
+        return csvFileData;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int selectAll(CSVRecordConsumer consumer) 
+            throws IOException, SQLException {
+        return select(ExportFilter.all(), consumer);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int select(ExportFilter filter, CSVRecordConsumer consumer) 
+            throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            return readRecords(connection, filter, consumer);
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long selectAllAtVersion(CSVRecordConsumer consumer) 
+            throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                /* The writes wait until the records are read, the running
+                 * writes are committed (with their data version) before.
+                 */
+                executeDDL(connection, "lock.share.mydata");
+                long dataVersion;
+                try (ResultSet resultSet = prepareQuery(connection, 
+                        "select.version.mydata").executeQuery()) {
+                    dataVersion = resultSet.next() ? resultSet.getLong(1) : 0;
+                }
+                readRecords(connection, ExportFilter.all(), consumer);
+                connection.commit();
+                return dataVersion;
+            } catch (IOException | SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        }
+    }
+    
+    
+    /* Reads the records matching the filter over the connection and passes
+     * them to the consumer, returns the number of the records.
+     */
+    private int readRecords(Connection connection, ExportFilter filter, 
+            CSVRecordConsumer consumer) throws IOException, SQLException {
+        int recordCount = 0;
+        /* Statements are prepared with the default forward-only, read-only
+         * result set type, so the rows are read through a cursor which 
+         * fetches "select.fetch.size" rows from the database at a time.
+         */
+        PreparedStatement statement 
+                = prepareExportQuery(connection, filter);
+        statement.setFetchSize(configProvider
+                .getIntProperty("select.fetch.size", DEFAULT_FETCH_SIZE));
+        try (ResultSet resultSet = statement.executeQuery()) {
+            // Columns of the exported headers are found once.
+            CSVFileData csvFileData = new CSVFileData();
+            Map<String, String> databaseHeaderNames = csvFileData
+                    .getHeaderDatabaseNamesMappedToCSVFileHeaderNames();
+            Map<String, String> databaseFieldTypes = csvFileData
+                    .getDataTypesMappedToCSVFileHeaderNames();
+            List<String> csvFileHeaders = filter.getCSVFileHeaders();
+            int[] columns = new int[csvFileHeaders.size()];
+            boolean[] doubleColumns = new boolean[csvFileHeaders.size()];
+            for (int i = 0; i < columns.length; i++) {
+                String csvFileHeader = csvFileHeaders.get(i);
+                columns[i] = resultSet.findColumn(
+                        databaseHeaderNames.get(csvFileHeader));
+                doubleColumns[i] = "DOUBLE".equals(
+                        databaseFieldTypes.get(csvFileHeader));
+            }
+            
+            while (resultSet.next()) {
+                Map<String, String> record = new HashMap<>();
+                for (int i = 0; i < columns.length; i++) {
+                    record.put(csvFileHeaders.get(i), doubleColumns[i] 
+                            ? Double.toString(resultSet.getDouble(columns[i]))
+                            : resultSet.getString(columns[i]));
+                }
+                // Passing each record on as soon as it is read.
+                consumer.accept(record);
+                recordCount++;
+            }
         }
+        return recordCount;
+    }
 
-        try (Connection connection = connectionHandler.getDBConnection();
-                Statement statement = connection.createStatement()) {
-            statement.execute(sql);
-            try (ResultSet resultSet = statement.getResultSet()) {
-                // variables that define a database record
-                Map<String, String> databaseHeaderNames 
-                        = csvFileData.getHeaderDatabaseNamesMappedToCSVFileHeaderNames();
-                String databaseHeaderName;
-                Map<String, String> record;
-                    
-                // variables to receive values from the database
-                String stringResultValue = "";
-                Double doubleResultValue;                  
-                while (resultSet.next()) {
-                    record = new HashMap<>();
-                    for (String csvFileDataHeader : databaseHeaderNames.keySet()) {
-                        databaseHeaderName = databaseHeaderNames
-                                .get(csvFileDataHeader);
-                        if (databaseHeaderName.equals("TEXTDATA")) {
-                            stringResultValue = resultSet
-                                    .getString(databaseHeaderName);
-                        } else if (databaseHeaderName.equals("DOUBLEDATA")) {
-                            doubleResultValue = resultSet
-                                    .getDouble(databaseHeaderName);
-                            stringResultValue = doubleResultValue.toString();
-                        }
-                        record.put(csvFileDataHeader, stringResultValue);
-                    }
-                    csvFileData.addRecord(record);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer selectMaxId() throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            // The highest ID is read from the primary key index.
+            try (ResultSet resultSet = prepareQuery(connection, 
+                    "select.id.range.mydata").executeQuery()) {
+                if (resultSet.next()) {
+                    int maxId = resultSet.getInt(2);
+                    return resultSet.wasNull() ? null : maxId;
                 }
+                return null;
             }
         } catch (SQLException sqlex) {
             throw new SQLException("[DBDataHandler] Error connecting to the "
                     + "database or executing SQL query: " 
                     + sqlex.getMessage());
         }
-        return csvFileData;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void deleteAll() throws IOException, SQLException {
-        String sqlFileName = "delete.all.mydata";
-        String sql;
-        try {
-            sql = sqlQueryProvider.getQuery(sqlFileName);
-        } catch (IOException ioex) {
-            throw new IOException("[DBDataHandler] Could not read SQL query "
-                    + "from '" + sqlFileName + ".sql' file. " + ioex.getMessage());
+    public long selectDataVersion() throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            try (ResultSet resultSet = prepareQuery(connection, 
+                    "select.version.mydata").executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
         }
-        
-        try (Connection connection = connectionHandler.getDBConnection();
-                Statement statement = connection.createStatement()) {
-            statement.execute(sql);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String selectDatabaseId() throws IOException, SQLException {
+        String databaseId = null;
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            try (ResultSet resultSet = prepareQuery(connection, 
+                    "select.database.id.mydata").executeQuery()) {
+                if (resultSet.next()) {
+                    databaseId = resultSet.getString(1);
+                }
+            }
         } catch (SQLException sqlex) {
             throw new SQLException("[DBDataHandler] Error connecting to the "
                     + "database or executing SQL query: " 
                     + sqlex.getMessage());
         }
+        if (databaseId == null) {
+            throw new SQLException("[DBDataHandler] The database has no "
+                    + "identity, its tables were not created at startup.");
+        }
+        return databaseId.trim();
     }
-    
 
-    private Double stringToDouble(String stringVal) 
-            throws NumberFormatException {
-        if (stringVal == null || stringVal.trim().isEmpty()) {
-            return (double) 0;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TablePage selectPage(Integer afterId, Integer beforeId, 
+            int pageSize) throws IOException, SQLException {
+        List<MyDataRecord> records = new ArrayList<>();
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            /* Lowest and highest ID are read from the primary key index, they 
+             * give the total count estimate (exact if there are no gaps in ID 
+             * sequence) without counting the rows.
+             */
+            int minId = 0;
+            int maxId = 0;
+            try (ResultSet resultSet = prepareQuery(connection, 
+                    "select.id.range.mydata").executeQuery()) {
+                if (resultSet.next()) {
+                    minId = resultSet.getInt(1);
+                    maxId = resultSet.getInt(2);
+                }
+            }
+            
+            PreparedStatement statement;
+            boolean backwards = afterId == null && beforeId != null;
+            if (backwards) {
+                statement = prepareQuery(connection, "select.page.before.mydata");
+                statement.setInt(1, beforeId);
+            } else {
+                statement = prepareQuery(connection, "select.page.after.mydata");
+                statement.setInt(1, afterId != null ? afterId : minId - 1);
+            }
+            statement.setInt(2, pageSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    records.add(new MyDataRecord(resultSet.getInt("ID"),
+                            resultSet.getString("TEXTDATA"),
+                            resultSet.getDouble("DOUBLEDATA")));
+                }
+            }
+            if (backwards) {
+                Collections.reverse(records);
+            }
+            
+            long estimatedTotal = maxId > 0 ? (long) maxId - minId + 1 : 0;
+            boolean previousAvailable = !records.isEmpty() 
+                    && records.get(0).getId() > minId;
+            boolean nextAvailable = !records.isEmpty() 
+                    && records.get(records.size() - 1).getId() < maxId;
+            return new TablePage(records, pageSize, previousAvailable, 
+                    nextAvailable, estimatedTotal);
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IngestedFile selectIngestedFile(String contentDigest) 
+            throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            PreparedStatement statement 
+                    = prepareQuery(connection, "select.ingested.file");
+            statement.setString(1, contentDigest);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return new IngestedFile(contentDigest, resultSet.getString(1), 
+                        resultSet.getLong(2), resultSet.getTimestamp(3)
+                                .getTime());
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
         }
-        stringVal = stringVal.replaceAll(",", ".");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void registerIngestedFile(String contentDigest, String fileName, 
+            long recordCount) throws IOException, SQLException {
+        if (fileName != null && fileName.length() > MAX_FILE_NAME_LENGTH) {
+            fileName = fileName.substring(0, MAX_FILE_NAME_LENGTH);
+        }
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            PreparedStatement update 
+                    = prepareQuery(connection, "update.ingested.file");
+            update.setString(1, fileName);
+            update.setLong(2, recordCount);
+            update.setString(3, contentDigest);
+            if (update.executeUpdate() == 0) {
+                PreparedStatement insert 
+                        = prepareQuery(connection, "insert.ingested.file");
+                insert.setString(1, contentDigest);
+                insert.setString(2, fileName);
+                insert.setLong(3, recordCount);
+                insert.executeUpdate();
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll() throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                /* The table is emptied at once instead of deleting its 
+                 * records one by one (the IDs are not restarted).
+                 */
+                executeDDL(connection, "truncate.mydata");
+                prepareQuery(connection, "delete.all.ingested.file")
+                        .executeUpdate();
+                prepareQuery(connection, "update.reset.stats.mydata")
+                        .executeUpdate();
+                updateDataVersion(connection);
+                connection.commit();
+            } catch (IOException | SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataStats selectStats() throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            // The only row of the statistics table, whatever the table size.
+            try (ResultSet resultSet = prepareQuery(connection, 
+                    "select.stats.mydata").executeQuery()) {
+                if (resultSet.next()) {
+                    return readStats(resultSet);
+                }
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        }
+        // Not computed yet (e.g. the table was filled before).
+        return repairStats();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataStats repairStats() throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                /* The writes wait until the statistics are computed, the 
+                 * running writes are committed (with their statistics) 
+                 * before.
+                 */
+                executeDDL(connection, "lock.share.mydata");
+                recomputeStats(connection);
+                DataStats stats;
+                try (ResultSet resultSet = prepareQuery(connection, 
+                        "select.stats.mydata").executeQuery()) {
+                    resultSet.next();
+                    stats = readStats(resultSet);
+                }
+                connection.commit();
+                return stats;
+            } catch (IOException | SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or executing SQL query: " 
+                    + sqlex.getMessage());
+        }
+    }
+    
+
+    /* "upsert.key.column" configuration property, the key column must be a
+     * column of the database table.
+     */
+    private String configuredUpsertKeyColumn() 
+            throws IllegalArgumentException {
+        String keyColumn = configProvider.getProperty("upsert.key.column", 
+                DEFAULT_UPSERT_KEY_COLUMN).trim().toUpperCase();
+        if (keyColumn.isEmpty()) {
+            return DEFAULT_UPSERT_KEY_COLUMN;
+        }
+        if (!UPSERT_KEY_COLUMNS.contains(keyColumn)) {
+            throw new IllegalArgumentException("[DBDataHandler] Upsert key "
+                    + "column '" + keyColumn + "' is not one of the columns "
+                    + UPSERT_KEY_COLUMNS + ".");
+        }
+        return keyColumn;
+    }
+    
+    
+    /* Inserts the records of the sources one source after the other into 
+     * the staging table. The staging table is not read by anybody, so the 
+     * chunks are committed as they are sent.
+     */
+    private InsertResult insertStagingRecords(
+            List<CSVRecordSource> recordSources, StatsDelta stats, 
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            PreparedStatement statement 
+                    = prepareQuery(connection, "insert.staging.mydata");
+            ChunkedInsert insert = new ChunkedInsert(connection, statement, 
+                    InsertCommitMode.PER_CHUNK, progress, true);
+            try {
+                for (CSVRecordSource recordSource : recordSources) {
+                    recordSource.forEachRecord(insert::add);
+                }
+                InsertResult result = insert.finish();
+                stats.add(insert.stats);
+                return result;
+            } catch (IOException | SQLException | RuntimeException
+                    | FileValidationException | CsvValidationException ex) {
+                insert.abort();
+                throw ex;
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or loading the staging table: " 
+                    + sqlex.getMessage());
+        }
+    }
+    
+    
+    /* Creates the empty staging table (dropping the one left by an 
+     * interrupted replace), its IDs continue the IDs of "MYDATA" table, so 
+     * the IDs of the replacing records are higher than the replaced ones 
+     * (e.g. for the incremental exports).
+     */
+    private void createStagingTable() throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            dropTable(connection, "drop.staging.mydata");
+            executeDDL(connection, "create.staging.mydata");
+            long nextId;
+            try (ResultSet resultSet = prepareQuery(connection, 
+                    "select.next.id.mydata").executeQuery()) {
+                nextId = resultSet.next() ? resultSet.getLong(1) : 1;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(sqlQueryProvider.getQuery(
+                        "restart.id.staging.mydata").replace("{id}", 
+                                String.valueOf(Math.max(1, nextId))));
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or creating the staging table: " 
+                    + sqlex.getMessage());
+        }
+    }
+    
+    
+    /* Builds the indexes of the loaded staging table and replaces "MYDATA" 
+     * table with it in one transaction, together with the new data version,
+     * the statistics of the staging records and the deletion of the 
+     * registered uploaded files. The readers see either the replaced or the 
+     * replacing records. Returns the duration of the swap in milliseconds.
+     */
+    private long swapStagingTable(StatsDelta stats) 
+            throws IOException, SQLException {
+        KEYS_LOCK.readLock().lock();
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            // The indexes are built once, after all records are loaded.
+            executeDDL(connection, "create.index.doubledata.staging.mydata");
+            executeDDL(connection, "create.index.textdata.staging.mydata");
+            
+            long swapStart = System.currentTimeMillis();
+            connection.setAutoCommit(false);
+            try {
+                executeDDL(connection, "drop.mydata");
+                executeDDL(connection, "rename.staging.mydata");
+                executeDDL(connection, "rename.index.doubledata.staging.mydata");
+                executeDDL(connection, "rename.index.textdata.staging.mydata");
+                prepareQuery(connection, "delete.all.ingested.file")
+                        .executeUpdate();
+                prepareQuery(connection, "update.reset.stats.mydata")
+                        .executeUpdate();
+                updateStats(connection, stats);
+                updateDataVersion(connection);
+                connection.commit();
+            } catch (IOException | SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return System.currentTimeMillis() - swapStart;
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBDataHandler] Error connecting to the "
+                    + "database or replacing the table with the staging "
+                    + "table: " + sqlex.getMessage());
+        } finally {
+            KEYS_LOCK.readLock().unlock();
+        }
+    }
+    
+    
+    /* Drops the staging table of a failed replace, a failure is logged (the
+     * table is dropped by the next replace).
+     */
+    private void dropStagingTable() {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            dropTable(connection, "drop.staging.mydata");
+        } catch (IOException | SQLException ex) {
+            System.out.println("[DBDataHandler]: Staging table could not be "
+                    + "dropped: " + ex.getMessage());
+        }
+    }
+    
+    
+    /* Drops the table of the drop query unless it does not exist. */
+    private void dropTable(Connection connection, String dropQuery) 
+            throws IOException, SQLException {
+        try {
+            executeDDL(connection, dropQuery);
+        } catch (SQLException sqlex) {
+            if (!TABLE_NOT_FOUND.equals(sqlex.getSQLState())) {
+                throw sqlex;
+            }
+        }
+    }
+    
+    
+    /* Executes the DDL query of the sql-file, the DDL statements are run 
+     * once in a while, so they are not cached by the connection.
+     */
+    private void executeDDL(Connection connection, String sqlFileName) 
+            throws IOException, SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sqlQueryProvider.getQuery(sqlFileName));
+        }
+    }
+    
+    
+    /* Increments the data version within the current transaction of the 
+     * connection (the version row is created by the first change), so the 
+     * version changes when the changed data is committed.
+     */
+    private void updateDataVersion(Connection connection) 
+            throws IOException, SQLException {
+        if (prepareQuery(connection, "update.version.mydata")
+                .executeUpdate() == 0) {
+            prepareQuery(connection, "insert.version.mydata").executeUpdate();
+        }
+    }
+    
+    
+    /* Adds the statistics of the written records to "MYDATA_STATS" table 
+     * within the current transaction of the connection. The missing 
+     * statistics row (e.g. of a table filled before the statistics were 
+     * kept) is computed from all records of the table, the written records
+     * included, unless a concurrent transaction has just inserted it.
+     */
+    private void updateStats(Connection connection, StatsDelta stats) 
+            throws IOException, SQLException {
+        if (stats.isEmpty()) {
+            return;
+        }
+        PreparedStatement statement 
+                = prepareQuery(connection, "update.stats.mydata");
+        statement.setLong(1, stats.recordCount);
+        statement.setLong(2, stats.doubleCount);
+        statement.setDouble(3, stats.doubleSum);
+        if (stats.doubleCount > 0) {
+            statement.setDouble(4, stats.doubleMin);
+            statement.setDouble(5, stats.doubleMin);
+            statement.setDouble(6, stats.doubleMax);
+            statement.setDouble(7, stats.doubleMax);
+        } else {
+            for (int parameterIndex = 4; parameterIndex <= 7; 
+                    parameterIndex++) {
+                statement.setNull(parameterIndex, Types.DOUBLE);
+            }
+        }
+        if (statement.executeUpdate() > 0) {
+            return;
+        }
+        try {
+            prepareQuery(connection, "insert.stats.mydata").executeUpdate();
+        } catch (SQLException sqlex) {
+            if (!DUPLICATE_KEY.equals(sqlex.getSQLState())) {
+                throw sqlex;
+            }
+            statement.executeUpdate();
+        }
+    }
+    
+    
+    /* Computes the statistics row from all records of the table within the
+     * current transaction of the connection.
+     */
+    private void recomputeStats(Connection connection) 
+            throws IOException, SQLException {
+        prepareQuery(connection, "delete.stats.mydata").executeUpdate();
+        prepareQuery(connection, "insert.stats.mydata").executeUpdate();
+    }
+    
+    
+    private DataStats readStats(ResultSet resultSet) throws SQLException {
+        long recordCount = resultSet.getLong(1);
+        long doubleCount = resultSet.getLong(2);
+        double doubleSum = resultSet.getDouble(3);
+        double doubleMin = resultSet.getDouble(4);
+        Double min = resultSet.wasNull() ? null : doubleMin;
+        double doubleMax = resultSet.getDouble(5);
+        Double max = resultSet.wasNull() ? null : doubleMax;
+        return new DataStats(recordCount, doubleCount, doubleSum, min, max);
+    }
+    
+    
+    /* Returns the prepared statement of the query cached by the connection,
+     * the statement must not be closed.
+     */
+    private PreparedStatement prepareQuery(Connection connection, 
+            String sqlFileName) throws IOException, SQLException {
+        try {
+            return sqlQueryProvider.prepareStatement(connection, sqlFileName);
+        } catch (IOException ioex) {
+            throw new IOException("[DBDataHandler] Could not read SQL query "
+                    + "from '" + sqlFileName + ".sql' file. " + ioex.getMessage());
+        }
+    }
+    
+    
+    /* Returns the "select.all.mydata" statement for the download of 
+     * everything. Otherwise the select list of "select.filtered.mydata" is 
+     * made of the database fields of the exported headers and its conditions 
+     * of the fixed conditions of the filter, the filter values are bound as 
+     * parameters. The records of an incremental export are ordered by ID (the
+     * primary key index). The statement is cached by the connection per query
+     * text.
+     */
+    private PreparedStatement prepareExportQuery(Connection connection, 
+            ExportFilter filter) throws IOException, SQLException {
+        if (filter.isUnfiltered()) {
+            return prepareQuery(connection, "select.all.mydata");
+        }
+        Map<String, String> databaseHeaderNames = new CSVFileData()
+                .getHeaderDatabaseNamesMappedToCSVFileHeaderNames();
+        StringJoiner columns = new StringJoiner(", ");
+        for (String csvFileHeader : filter.getCSVFileHeaders()) {
+            columns.add(databaseHeaderNames.get(csvFileHeader));
+        }
+        StringJoiner conditions = new StringJoiner(" and ", " where ", "")
+                .setEmptyValue("");
+        if (filter.getAfterId() != null) {
+            conditions.add("ID > ?");
+        }
+        if (filter.getUpToId() != null) {
+            conditions.add("ID <= ?");
+        }
+        if (filter.getDoubleFrom() != null) {
+            conditions.add("DOUBLEDATA >= ?");
+        }
+        if (filter.getDoubleTo() != null) {
+            conditions.add("DOUBLEDATA <= ?");
+        }
+        if (filter.getTextPrefix() != null) {
+            // A LIKE pattern without a leading wildcard is an index range.
+            conditions.add("TEXTDATA like ? escape '\\'");
+        }
+        
+        String query;
+        try {
+            query = sqlQueryProvider.getQuery("select.filtered.mydata");
+        } catch (IOException ioex) {
+            throw new IOException("[DBDataHandler] Could not read SQL query "
+                    + "from 'select.filtered.mydata.sql' file. " 
+                    + ioex.getMessage());
+        }
+        String order = filter.isIdRange() ? " order by ID" : "";
+        query = query.replace("{columns}", columns.toString())
+                .replace("{conditions}", conditions.toString())
+                .replace("{order}", order);
+        PreparedStatement statement = sqlQueryProvider.prepareStatement(
+                connection, "select.filtered.mydata:" + columns + conditions 
+                        + order, query);
+        
+        int parameterIndex = 1;
+        if (filter.getAfterId() != null) {
+            statement.setInt(parameterIndex++, filter.getAfterId());
+        }
+        if (filter.getUpToId() != null) {
+            statement.setInt(parameterIndex++, filter.getUpToId());
+        }
+        if (filter.getDoubleFrom() != null) {
+            statement.setDouble(parameterIndex++, filter.getDoubleFrom());
+        }
+        if (filter.getDoubleTo() != null) {
+            statement.setDouble(parameterIndex++, filter.getDoubleTo());
+        }
+        if (filter.getTextPrefix() != null) {
+            statement.setString(parameterIndex++, filter.getTextPrefix()
+                    .replace("\\", "\\\\").replace("%", "\\%")
+                    .replace("_", "\\_") + "%");
+        }
+        return statement;
+    }
+    
+    
+    /**
+     * Binds CSV File records to the insert statement and sends them to the
+     * database in chunks of "insert.chunk.size" records with auto-commit 
+     * turned off, so that neither the records nor the JDBC batch grow with the
+     * size of the csv-file. The chunks are committed according to the 
+     * "insert.commit.mode" configuration property, each commit adds the 
+     * statistics of the committed records to "MYDATA_STATS" table.
+     */
+    private class ChunkedInsert {
+        
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final int chunkSize;
+        private final InsertCommitMode commitMode;
+        private final InsertProgress progress;
+        /* True for the load of the staging table, which has no version (the
+         * statistics of its records are kept until the swap).
+         */
+        private final boolean staging;
+        /* Statistics of the records not committed yet. */
+        private final StatsDelta stats = new StatsDelta();
+        private final StageMetrics conversion 
+                = metrics.stage(AppMetricsLocal.CONVERT);
+        private final StageMetrics batchExecution 
+                = metrics.stage(AppMetricsLocal.EXECUTE_BATCH);
+        private final long startTime = System.currentTimeMillis();
+        /* Time spent converting and binding the records of the chunk. */
+        private long chunkConversionNanos = 0;
+        private int chunkRecordCount = 0;
+        private int chunkCount = 0;
+        private long recordCount = 0;
+
+        ChunkedInsert(Connection connection, PreparedStatement statement) 
+                throws SQLException {
+            this(connection, statement, configuredCommitMode(), NO_PROGRESS);
+        }
+        
+        ChunkedInsert(Connection connection, PreparedStatement statement, 
+                InsertCommitMode commitMode,
+                InsertProgress progress) throws SQLException {
+            this(connection, statement, commitMode, progress, false);
+        }
+        
+        ChunkedInsert(Connection connection, PreparedStatement statement, 
+                InsertCommitMode commitMode, InsertProgress progress, 
+                boolean staging) throws SQLException {
+            this.connection = connection;
+            this.staging = staging;
+            this.statement = statement;
+            this.chunkSize = Math.max(1, configProvider
+                    .getIntProperty("insert.chunk.size", DEFAULT_CHUNK_SIZE));
+            this.commitMode = commitMode;
+            this.progress = progress;
+            connection.setAutoCommit(false);
+        }
+        
+        void add(Map<String, String> csvFileRecord) 
+                throws IOException, SQLException, NumberFormatException {
+            long conversionStart = System.nanoTime();
+            INSERT_BINDER.bind(csvFileRecord, statement, stats);
+            chunkConversionNanos += System.nanoTime() - conversionStart;
+            addToChunk();
+        }
+        
+        /* Binds the record kept in the columns of csvFileData, the values are
+         * taken in their column data types without String conversion.
+         */
+        void add(CSVFileData csvFileData, int index) 
+                throws IOException, SQLException {
+            long conversionStart = System.nanoTime();
+            INSERT_BINDER.bind(csvFileData, index, statement, stats);
+            chunkConversionNanos += System.nanoTime() - conversionStart;
+            addToChunk();
+        }
+        
+        private void addToChunk() throws IOException, SQLException {
+            statement.addBatch();
+            stats.addRecord();
+            if (++chunkRecordCount >= chunkSize) {
+                sendChunk();
+            }
+        }
+        
+        /* Sends the current chunk to the database, commits it together with
+         * its statistics and a new data version in PER_CHUNK mode.
+         */
+        private void sendChunk() throws IOException, SQLException {
+            if (chunkRecordCount > 0) {
+                long executionStart = System.nanoTime();
+                statement.executeBatch();
+                batchExecution.observeSince(executionStart, chunkRecordCount, 
+                        0);
+                conversion.observe(chunkConversionNanos, chunkRecordCount, 0);
+                chunkConversionNanos = 0;
+                if (commitMode == InsertCommitMode.PER_CHUNK) {
+                    if (!staging) {
+                        updateStats(connection, stats);
+                        stats.clear();
+                        updateDataVersion(connection);
+                    }
+                    connection.commit();
+                }
+                progress.recordsInserted(chunkRecordCount);
+                recordCount += chunkRecordCount;
+                chunkRecordCount = 0;
+                chunkCount++;
+            }
+        }
+        
+        /* Sends the last chunk and commits the insert together with the new
+         * data version (committed with each chunk in PER_CHUNK mode).
+         */
+        InsertResult finish() throws IOException, SQLException {
+            sendChunk();
+            if (!staging && commitMode != InsertCommitMode.PER_CHUNK) {
+                updateStats(connection, stats);
+                stats.clear();
+                updateDataVersion(connection);
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            return new InsertResult(recordCount, chunkCount, 
+                    System.currentTimeMillis() - startTime, commitMode);
+        }
+        
+        /* Rolls back the records which are not committed yet. The chunks
+         * committed in PER_CHUNK mode stay with their data versions.
+         */
+        void abort() {
+            try {
+                statement.clearBatch();
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException sqlex) {
+                System.out.println("[DBDataHandler]: Insert rollback failure: " 
+                        + sqlex.getMessage());
+            }
+        }
+    }
+    
+
+    /**
+     * Upsert of the records keyed on a column over one connection, in chunks
+     * of "insert.chunk.size" records. The records of a chunk update the 
+     * records with the same key by one batch, the records that updated no 
+     * record are inserted by a second batch. A record of a key repeated 
+     * within the chunk replaces the earlier one (counted as an update). A 
+     * key updating several records (added by the other uploads, which do not
+     * check the keys) rejects the upsert. The chunks are committed in the 
+     * configured commit mode, the data version is updated with the last 
+     * commit.
+     * 
+     * The statistics of the inserted records are added as by ChunkedInsert.
+     * The records updated on a DOUBLEDATA key keep their DOUBLEDATA values, 
+     * but the updates on a TEXTDATA key may remove the lowest or the highest
+     * value, so the statistics are computed again from the table in the 
+     * transaction committing these updates.
+     */
+    private class ChunkedUpsert {
+        
+        private final Connection connection;
+        private final PreparedStatement insertStatement;
+        private final PreparedStatement updateStatement;
+        private final CSVRowBinder updateBinder;
+        private final String keyColumn;
+        private final boolean doubleKey;
+        private final int chunkSize;
+        private final InsertCommitMode commitMode;
+        private final InsertProgress progress;
+        private final StageMetrics conversion 
+                = metrics.stage(AppMetricsLocal.CONVERT);
+        private final StageMetrics batchExecution 
+                = metrics.stage(AppMetricsLocal.EXECUTE_BATCH);
+        private final long startTime = System.currentTimeMillis();
+        /* Statistics of the inserted records not committed yet. */
+        private final StatsDelta stats = new StatsDelta();
+        /* True once a record not committed yet was updated on a TEXTDATA 
+         * key.
+         */
+        private boolean statsChanged = false;
+        /* Records of the current chunk mapped to their keys. */
+        private final Map<Object, Map<String, String>> chunk 
+                = new LinkedHashMap<>();
+        private int chunkRecordCount = 0;
+        private int chunkCount = 0;
+        private long insertedCount = 0;
+        private long updatedCount = 0;
+
+        ChunkedUpsert(Connection connection, PreparedStatement insertStatement,
+                PreparedStatement updateStatement, CSVRowBinder updateBinder,
+                String keyColumn, InsertCommitMode commitMode, 
+                InsertProgress progress) throws SQLException {
+            this.connection = connection;
+            this.insertStatement = insertStatement;
+            this.updateStatement = updateStatement;
+            this.updateBinder = updateBinder;
+            this.keyColumn = keyColumn;
+            this.doubleKey = "DOUBLEDATA".equals(keyColumn);
+            this.chunkSize = Math.max(1, configProvider
+                    .getIntProperty("insert.chunk.size", DEFAULT_CHUNK_SIZE));
+            this.commitMode = commitMode;
+            this.progress = progress;
+            connection.setAutoCommit(false);
+        }
+        
+        void add(Map<String, String> csvFileRecord) 
+                throws IOException, SQLException, NumberFormatException {
+            String keyValue = csvFileRecord.get(keyColumn);
+            // DOUBLEDATA keys are the same key if their numbers are equal.
+            Object key = doubleKey ? stringToDouble(keyValue) : keyValue;
+            if (chunk.put(key, csvFileRecord) != null) {
+                updatedCount++;
+            }
+            if (++chunkRecordCount >= chunkSize) {
+                sendChunk();
+            }
+        }
+        
+        /* Sends the update batch of the current chunk and the insert batch 
+         * of its records that updated no record, commits the chunk in 
+         * PER_CHUNK mode.
+         */
+        private void sendChunk() throws IOException, SQLException {
+            if (chunkRecordCount == 0) {
+                return;
+            }
+            List<Map<String, String>> records = new ArrayList<>(chunk.values());
+            long conversionStart = System.nanoTime();
+            for (Map<String, String> record : records) {
+                updateBinder.bind(record, updateStatement);
+                updateStatement.addBatch();
+            }
+            long conversionNanos = System.nanoTime() - conversionStart;
+            long executionStart = System.nanoTime();
+            int[] updateCounts = updateStatement.executeBatch();
+            long executionNanos = System.nanoTime() - executionStart;
+            
+            conversionStart = System.nanoTime();
+            int chunkInsertCount = 0;
+            for (int i = 0; i < records.size(); i++) {
+                if (updateCounts[i] > 1) {
+                    // The chunk is rolled back by abort().
+                    throw new IllegalArgumentException("[DBDataHandler] The "
+                            + "database table contains the upsert key " 
+                            + keyColumn + " value '" 
+                            + records.get(i).get(keyColumn) + "' in " 
+                            + updateCounts[i] + " records, the upsert needs "
+                            + "unique keys.");
+                }
+                if (updateCounts[i] == 0) {
+                    INSERT_BINDER.bind(records.get(i), insertStatement, 
+                            stats);
+                    insertStatement.addBatch();
+                    stats.addRecord();
+                    chunkInsertCount++;
+                }
+            }
+            conversionNanos += System.nanoTime() - conversionStart;
+            if (chunkInsertCount > 0) {
+                executionStart = System.nanoTime();
+                insertStatement.executeBatch();
+                executionNanos += System.nanoTime() - executionStart;
+            }
+            batchExecution.observe(executionNanos, chunkRecordCount, 0);
+            conversion.observe(conversionNanos, chunkRecordCount, 0);
+            statsChanged |= !doubleKey && chunkInsertCount < records.size();
+            if (commitMode == InsertCommitMode.PER_CHUNK) {
+                commitStats();
+                updateDataVersion(connection);
+                connection.commit();
+            }
+            progress.recordsInserted(chunkRecordCount);
+            insertedCount += chunkInsertCount;
+            updatedCount += records.size() - chunkInsertCount;
+            chunk.clear();
+            chunkRecordCount = 0;
+            chunkCount++;
+        }
+        
+        /* Updates the statistics with the records not committed yet, in the
+         * transaction committing them.
+         */
+        private void commitStats() throws IOException, SQLException {
+            if (statsChanged) {
+                recomputeStats(connection);
+            } else {
+                updateStats(connection, stats);
+            }
+            stats.clear();
+            statsChanged = false;
+        }
+        
+        /* Sends the last chunk and commits the upsert together with the new
+         * data version (committed with each chunk in PER_CHUNK mode).
+         */
+        InsertResult finish() throws IOException, SQLException {
+            sendChunk();
+            commitStats();
+            if (commitMode != InsertCommitMode.PER_CHUNK) {
+                updateDataVersion(connection);
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            return new InsertResult(insertedCount, updatedCount, chunkCount, 
+                    System.currentTimeMillis() - startTime, commitMode);
+        }
+        
+        /* Rolls back the records which are not committed yet. The chunks
+         * committed in PER_CHUNK mode stay with their data versions and 
+         * statistics.
+         */
+        void abort() {
+            try {
+                updateStatement.clearBatch();
+                insertStatement.clearBatch();
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException sqlex) {
+                System.out.println("[DBDataHandler]: Upsert rollback failure: " 
+                        + sqlex.getMessage());
+            }
+            chunk.clear();
+        }
+    }
+    
+    
+    /* Reads up to sourceConcurrency record sources at once in the reader 
+     * threads (or in this thread once they are all busy), each source 
+     * submits its own batches of records to the parallel insert. The first
+     * failure of a source stops the insert and is thrown once the running 
+     * sources are finished.
+     */
+    private void readSourcesConcurrently(List<CSVRecordSource> recordSources,
+            int sourceConcurrency, ParallelInsert insert) 
+            throws IOException, SQLException, FileValidationException, 
+            CsvValidationException {
+        ExecutorCompletionService<Void> completion 
+                = new ExecutorCompletionService<>(
+                        insertExecutorProvider.getReaderExecutor());
+        Throwable firstFailure = null;
+        int started = 0;
+        int finished = 0;
+        while (finished < started || (firstFailure == null 
+                && started < recordSources.size())) {
+            while (firstFailure == null && started < recordSources.size() 
+                    && started - finished < sourceConcurrency) {
+                CSVRecordSource recordSource = recordSources.get(started++);
+                completion.submit(() -> {
+                    List<Map<String, String>> batch 
+                            = new ArrayList<>(insert.batchSize);
+                    recordSource.forEachRecord(record -> {
+                        batch.add(record);
+                        if (batch.size() >= insert.batchSize) {
+                            insert.submitRecords(new ArrayList<>(batch));
+                            batch.clear();
+                        }
+                    });
+                    insert.submitRecords(batch);
+                    return null;
+                });
+            }
+            try {
+                completion.take().get();
+            } catch (ExecutionException eex) {
+                if (firstFailure == null) {
+                    firstFailure = eex.getCause();
+                    if (firstFailure instanceof Exception) {
+                        insert.fail((Exception) firstFailure);
+                    }
+                }
+            } catch (InterruptedException iex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("[DBDataHandler] Parallel insert was "
+                        + "interrupted.");
+            }
+            finished++;
+        }
+        
+        if (firstFailure instanceof IOException) {
+            throw (IOException) firstFailure;
+        } else if (firstFailure instanceof SQLException) {
+            throw (SQLException) firstFailure;
+        } else if (firstFailure instanceof FileValidationException) {
+            throw (FileValidationException) firstFailure;
+        } else if (firstFailure instanceof CsvValidationException) {
+            throw (CsvValidationException) firstFailure;
+        } else if (firstFailure instanceof RuntimeException) {
+            throw (RuntimeException) firstFailure;
+        } else if (firstFailure instanceof Error) {
+            throw (Error) firstFailure;
+        }
+    }
+    
+    
+    /* The import procedure reads the staging file on the database server, at
+     * the path of the application server. The file is readable there if the
+     * database server is local or "bulk.import.dir" is configured (a 
+     * directory shared with a remote database server at the same path), 
+     * otherwise the records are inserted in batches instead (reported once 
+     * at startup).
+     */
+    private boolean isStagingFileReadable() {
+        return connectionHandler.isDatabaseLocal() 
+                || !configProvider.getProperty("bulk.import.dir", "").trim()
+                        .isEmpty();
+    }
+    
+    
+    /* The staging directory must be readable by the database server at the
+     * same path (see isStagingFileReadable).
+     */
+    private Path createStagingFile() throws IOException {
+        String importDir = configProvider.getProperty("bulk.import.dir", "");
+        if (importDir.trim().isEmpty()) {
+            importDir = System.getProperty("java.io.tmpdir");
+        }
+        try {
+            Path directory = Files.createDirectories(Paths.get(importDir));
+            return Files.createTempFile(directory, "import-", ".csv");
+        } catch (IOException ioex) {
+            throw new IOException("[DBDataHandler] Could not create the "
+                    + "staging file in '" + importDir + "'. " 
+                    + ioex.getMessage());
+        }
+    }
+    
+    
+    /* Writes the records to the staging file in the format of the import
+     * procedure: ';' delimiter, every text value within '"' quotes (an 
+     * absent value is NULL), the numbers with the '.' decimal separator.
+     */
+    private long stageRecords(List<CSVRecordSource> recordSources, 
+            Path stagingFile, StatsDelta stats) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException {
+        Map<String, String> csvFileHeaderNames = new HashMap<>();
+        new CSVFileData().getHeaderDatabaseNamesMappedToCSVFileHeaderNames()
+                .forEach((csvFileHeader, databaseHeader) 
+                        -> csvFileHeaderNames.put(databaseHeader, 
+                                csvFileHeader));
+        String textHeader = csvFileHeaderNames.get("TEXTDATA");
+        String doubleHeader = csvFileHeaderNames.get("DOUBLEDATA");
+        long[] recordCount = {0};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(stagingFile), StandardCharsets.UTF_8), 
+                STAGING_BUFFER_SIZE)) {
+            for (CSVRecordSource recordSource : recordSources) {
+                recordSource.forEachRecord(record -> {
+                    String text = record.get(textHeader);
+                    if (text != null) {
+                        writer.write('"');
+                        writer.write(text.replace("\"", "\"\""));
+                        writer.write('"');
+                    }
+                    writer.write(';');
+                    double doubleValue 
+                            = stringToDouble(record.get(doubleHeader));
+                    writer.write(Double.toString(doubleValue));
+                    writer.write('\n');
+                    stats.addRecord();
+                    stats.accept(doubleValue);
+                    recordCount[0]++;
+                });
+            }
+        }
+        return recordCount[0];
+    }
+    
+    
+    private InsertCommitMode configuredCommitMode() {
+        return InsertCommitMode.fromName(configProvider
+                .getProperty("insert.commit.mode", null), 
+                InsertCommitMode.ALL_OR_NOTHING);
+    }
+    
+    
+    /* Part of the records inserted by one connection of ParallelInsert. */
+    @FunctionalInterface
+    private interface InsertWork {
+        
+        void insertInto(ChunkedInsert insert) 
+                throws IOException, SQLException;
+    }
+    
+    
+    /**
+     * Inserts records over "insert.parallel.connections" connections at once
+     * (limited by the free connections of the connection pool). Each connection
+     * has its own insert statement and ChunkedInsert and runs in a worker 
+     * thread of InsertExecutorProvider, taking the submitted InsertWork items 
+     * from a shared bounded queue. Nothing is committed until all records are
+     * inserted, then all connections are committed one after another; if any
+     * connection fails, all of them are rolled back.
+     * 
+     * The connections are not a single distributed transaction: a failure of
+     * a commit after other connections have committed is reported as a
+     * partially committed insert.
+     */
+    private class ParallelInsert {
+        
+        /* Marks the end of the work for one connection thread. */
+        private final InsertWork endOfWork = insert -> { };
+        
+        private final int connectionCount;
+        private final int batchSize;
+        private final List<Connection> connections = new ArrayList<>();
+        private final List<ChunkedInsert> inserts = new ArrayList<>();
+        private final List<Future<?>> workers = new ArrayList<>();
+        private final BlockingQueue<InsertWork> queue;
+        private final AtomicReference<Exception> failure 
+                = new AtomicReference<>();
+        private final long startTime = System.currentTimeMillis();
+        private List<Map<String, String>> batch = new ArrayList<>();
+        
+        ParallelInsert(InsertProgress progress) 
+                throws IOException, SQLException {
+            /* Only the free connections of the pool are taken (at least 
+             * one), so the parallel inserts running at once do not hold a 
+             * part of the connections each and wait for the rest.
+             */
+            ConnectionPoolStats poolStats = connectionHandler.getPoolStats();
+            int freeConnections = poolStats.getMaxSize() 
+                    - poolStats.getActiveConnections() 
+                    - poolStats.getWaiters();
+            int maxConnections = Math.max(1, Math.min(freeConnections, 
+                    configProvider.getIntProperty(
+                            "insert.parallel.connections", 
+                            DEFAULT_PARALLEL_CONNECTIONS)));
+            batchSize = Math.max(1, configProvider
+                    .getIntProperty("insert.chunk.size", DEFAULT_CHUNK_SIZE));
+            try {
+                while (connections.size() < maxConnections) {
+                    Connection connection;
+                    try {
+                        connection = connectionHandler.getDBConnection();
+                    } catch (SQLException sqlex) {
+                        if (connections.isEmpty()) {
+                            throw sqlex;
+                        }
+                        // Taken meanwhile, fewer connections insert.
+                        break;
+                    }
+                    connections.add(connection);
+                    inserts.add(new ChunkedInsert(connection, 
+                            prepareQuery(connection, "insert.mydata"), 
+                            InsertCommitMode.ALL_OR_NOTHING, progress));
+                }
+            } catch (IOException | SQLException ex) {
+                close();
+                throw ex;
+            }
+            connectionCount = inserts.size();
+            queue = new ArrayBlockingQueue<>(connectionCount * 2);
+            for (ChunkedInsert insert : inserts) {
+                workers.add(insertExecutorProvider.getWorkerExecutor()
+                        .submit(() -> work(insert)));
+            }
+        }
+        
+        /* Runs in a worker thread until the end of work. After a
+         * failure of any connection the remaining work is skipped.
+         */
+        private void work(ChunkedInsert insert) {
+            try {
+                InsertWork work;
+                while ((work = queue.take()) != endOfWork) {
+                    if (failure.get() == null) {
+                        work.insertInto(insert);
+                    }
+                }
+                if (failure.get() == null) {
+                    insert.sendChunk();
+                }
+            } catch (InterruptedException iex) {
+                failure.compareAndSet(null, new SQLException(
+                        "[DBDataHandler] Parallel insert was interrupted."));
+                Thread.currentThread().interrupt();
+            } catch (SQLException | RuntimeException ex) {
+                failure.compareAndSet(null, ex);
+            } catch (IOException ioex) {
+                failure.compareAndSet(null, new SQLException(
+                        ioex.getMessage(), ioex));
+            }
+        }
+        
+        /* Waits for the free space in the queue, stops waiting if any 
+         * connection failed.
+         */
+        void submit(InsertWork work) throws SQLException {
+            try {
+                while (!queue.offer(work, 100, TimeUnit.MILLISECONDS)) {
+                    throwFailure();
+                }
+            } catch (InterruptedException iex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("[DBDataHandler] Parallel insert was "
+                        + "interrupted.");
+            }
+            throwFailure();
+        }
+        
+        /* Adds the record to the current batch, submits the batch once it
+         * has one chunk of records.
+         */
+        void add(Map<String, String> record) throws SQLException {
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                submitBatch();
+            }
+        }
+        
+        private void submitBatch() throws SQLException {
+            List<Map<String, String>> records = batch;
+            batch = new ArrayList<>(batchSize);
+            submitRecords(records);
+        }
+        
+        /* Submits the records collected by another thread (thread-safe). */
+        void submitRecords(List<Map<String, String>> records) 
+                throws SQLException {
+            if (!records.isEmpty()) {
+                submit(insert -> {
+                    for (Map<String, String> record : records) {
+                        insert.add(record);
+                    }
+                });
+            }
+        }
+        
+        /* Stops the work of all connections after a failure outside of
+         * them (e.g. of a record source).
+         */
+        void fail(Exception ex) {
+            failure.compareAndSet(null, ex);
+        }
+        
+        /* Ends the work of all connections and commits them if none of them
+         * failed.
+         */
+        InsertResult finish() throws IOException, SQLException {
+            submitBatch();
+            for (int i = 0; i < connectionCount; i++) {
+                submit(endOfWork);
+            }
+            awaitWorkers();
+            throwFailure();
+            // Committed with the records of the first connection.
+            StatsDelta stats = new StatsDelta();
+            for (ChunkedInsert insert : inserts) {
+                stats.add(insert.stats);
+            }
+            updateStats(inserts.get(0).connection, stats);
+            updateDataVersion(inserts.get(0).connection);
+            
+            long recordCount = 0;
+            int chunkCount = 0;
+            for (int i = 0; i < connectionCount; i++) {
+                ChunkedInsert insert = inserts.get(i);
+                try {
+                    insert.connection.commit();
+                } catch (SQLException sqlex) {
+                    throw new SQLException("[DBDataHandler] Parallel insert "
+                            + "commit failed on connection " + (i + 1) 
+                            + " of " + connectionCount + ", the records of " 
+                            + i + " connection(s) are already committed: " 
+                            + sqlex.getMessage());
+                }
+                recordCount += insert.recordCount;
+                chunkCount += insert.chunkCount;
+            }
+            for (ChunkedInsert insert : inserts) {
+                insert.connection.setAutoCommit(true);
+            }
+            return new InsertResult(recordCount, chunkCount, 
+                    System.currentTimeMillis() - startTime, 
+                    InsertCommitMode.ALL_OR_NOTHING, connectionCount);
+        }
+        
+        /* Stops the work of all connections and rolls them back. */
+        void abort() {
+            failure.compareAndSet(null, new SQLException(
+                    "[DBDataHandler] Parallel insert was aborted."));
+            queue.clear();
+            for (int i = 0; i < workers.size(); i++) {
+                queue.offer(endOfWork);
+            }
+            awaitWorkers();
+            for (ChunkedInsert insert : inserts) {
+                insert.abort();
+            }
+        }
+        
+        void close() {
+            for (Connection connection : connections) {
+                try {
+                    connectionHandler.closeDBConnection(connection);
+                } catch (SQLException sqlex) {
+                    System.out.println("[DBDataHandler]: " 
+                            + sqlex.getMessage());
+                }
+            }
+        }
+        
+        private void awaitWorkers() {
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException eex) {
+                    failure.compareAndSet(null, new SQLException(
+                            "[DBDataHandler] Parallel insert failure: " 
+                            + eex.getCause()));
+                } catch (InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet(null, new SQLException(
+                            "[DBDataHandler] Parallel insert was "
+                            + "interrupted."));
+                    return;
+                }
+            }
+        }
+        
+        private void throwFailure() throws SQLException {
+            Exception ex = failure.get();
+            if (ex instanceof SQLException) {
+                throw (SQLException) ex;
+            } else if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+        }
+    }
+    
+
+    /* Statistics of the records written by a transaction and not added to
+     * "MYDATA_STATS" table yet, the DOUBLEDATA values are passed as they are 
+     * bound or staged.
+     */
+    private static final class StatsDelta implements DoubleConsumer {
+        
+        private long recordCount = 0;
+        private long doubleCount = 0;
+        private double doubleSum = 0;
+        private double doubleMin = Double.POSITIVE_INFINITY;
+        private double doubleMax = Double.NEGATIVE_INFINITY;
+        
+        @Override
+        public void accept(double value) {
+            doubleCount++;
+            doubleSum += value;
+            doubleMin = Math.min(doubleMin, value);
+            doubleMax = Math.max(doubleMax, value);
+        }
+        
+        void addRecord() {
+            recordCount++;
+        }
+        
+        void add(StatsDelta other) {
+            recordCount += other.recordCount;
+            doubleCount += other.doubleCount;
+            doubleSum += other.doubleSum;
+            doubleMin = Math.min(doubleMin, other.doubleMin);
+            doubleMax = Math.max(doubleMax, other.doubleMax);
+        }
+        
+        boolean isEmpty() {
+            return recordCount == 0 && doubleCount == 0;
+        }
+        
+        void clear() {
+            recordCount = 0;
+            doubleCount = 0;
+            doubleSum = 0;
+            doubleMin = Double.POSITIVE_INFINITY;
+            doubleMax = Double.NEGATIVE_INFINITY;
+        }
+    }
+    
+
+    private double stringToDouble(String stringVal) 
+            throws NumberFormatException {
         try {
-            Double doubleValue = Double.valueOf(stringVal);
-            return doubleValue;
+            return DecimalParser.parseDouble(stringVal);
         } catch (NumberFormatException nfex) {
             throw new NumberFormatException("[DBDataHandler] Value '" 
                             + stringVal + "' cannot be converted to Double. "
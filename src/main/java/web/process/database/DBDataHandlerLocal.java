@@ -1,9 +1,14 @@
 package web.process.database;
 
+import com.opencsv.exceptions.CsvValidationException;
 import jakarta.ejb.Local;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.List;
 import web.process.csvdata.CSVFileData;
+import web.process.csvdata.CSVRecordConsumer;
+import web.process.csvdata.CSVRecordSource;
+import web.process.parse.exceptions.FileValidationException;
 
 /**
  * This Interface contains method declarations that are used to handle 
@@ -16,9 +21,12 @@ public interface DBDataHandlerLocal {
     
     /**
      * Inserts multiple records to the database table from the input Data Object.
+     * The records are sent to the database and committed in chunks (see 
+     * "insert.chunk.size" and "insert.commit.mode" configuration properties).
      * 
      * @param csvFileData input CSVFileData object containing records to be 
      * inserted into the database table.
+     * @return result of the insert (record and chunk count, duration).
      * @throws java.io.IOException if the file containing SQL query can not be
      * found in the resource folder or can not be read.
      * @throws java.sql.SQLException if the connection to the database can not
@@ -26,9 +34,308 @@ public interface DBDataHandlerLocal {
      * @throws java.lang.NumberFormatException if the csv data contains a value
      * that can not be converted to the proper database field type.
      */
-    public void insertMultRecs(CSVFileData csvFileData) 
+    public InsertResult insertMultRecs(CSVFileData csvFileData) 
             throws IOException, SQLException, NumberFormatException;
     
+    /**
+     * Inserts records to the database table over several database connections
+     * at once ("insert.parallel.connections" configuration property, limited
+     * by the free connections of the connection pool), each connection 
+     * inserts a range of the records. The insert is committed on all 
+     * connections only if all of them succeeded, otherwise it is rolled back
+     * on all of them.
+     * 
+     * @param csvFileData CSVFileData object that contains parsed csv-file 
+     * data.
+     * @return result of the insert (record, chunk and connection count, 
+     * duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     */
+    public InsertResult insertMultRecsParallel(CSVFileData csvFileData) 
+            throws IOException, SQLException, NumberFormatException;
+    
+    /**
+     * Inserts records to the database table as the record source provides 
+     * them, without collecting the whole source in memory first. Records are
+     * sent to the database and committed in chunks (see "insert.chunk.size" 
+     * and "insert.commit.mode" configuration properties).
+     * 
+     * @param recordSource source of the records to be inserted into the 
+     * database table (e.g. a csv-file being parsed).
+     * @return result of the insert (record and chunk count, duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if the record source
+     * can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if the 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if the record 
+     * source contains invalid values.
+     */
+    public InsertResult insertRecordStream(CSVRecordSource recordSource) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Inserts records to the database table as the record source provides 
+     * them (see {@link #insertRecordStream(CSVRecordSource)}) and reports the
+     * progress of the insert after each chunk.
+     * 
+     * @param recordSource source of the records to be inserted into the 
+     * database table (e.g. a csv-file being parsed).
+     * @param progress receives the number of records of each chunk sent to 
+     * the database.
+     * @return result of the insert (record and chunk count, duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if the record source
+     * can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if the 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if the record 
+     * source contains invalid values.
+     */
+    public InsertResult insertRecordStream(CSVRecordSource recordSource,
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Inserts records to the database table as the record source provides 
+     * them over several database connections at once (see 
+     * {@link #insertMultRecsParallel(CSVFileData)}). The records are passed 
+     * to the connections in batches of "insert.chunk.size" records, the 
+     * insert is committed on all connections or rolled back on all of them.
+     * 
+     * @param recordSource source of the records to be inserted into the 
+     * database table (e.g. a csv-file being parsed).
+     * @return result of the insert (record, chunk and connection count, 
+     * duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if the record source
+     * can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if the 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if the record 
+     * source contains invalid values.
+     */
+    public InsertResult insertRecordStreamParallel(
+            CSVRecordSource recordSource) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Inserts records to the database table over several database connections
+     * at once (see {@link #insertRecordStreamParallel(CSVRecordSource)}) and
+     * reports the progress of the insert after each chunk.
+     * 
+     * @param recordSource source of the records to be inserted into the 
+     * database table (e.g. a csv-file being parsed).
+     * @param progress receives the number of records of each chunk sent to 
+     * the database, it is called from several threads at once.
+     * @return result of the insert (record, chunk and connection count, 
+     * duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if the record source
+     * can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if the 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if the record 
+     * source contains invalid values.
+     */
+    public InsertResult insertRecordStreamParallel(
+            CSVRecordSource recordSource, InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Inserts records of several record sources (e.g. csv-files of one 
+     * upload) in one coordinated insert over several database connections
+     * (see {@link #insertRecordStreamParallel(CSVRecordSource)}). Up to 
+     * sourceConcurrency sources are read at once, each in its own thread. The
+     * insert is committed on all connections only if all sources were read 
+     * and inserted, otherwise the records of all sources are rolled back.
+     * 
+     * @param recordSources sources of the records to be inserted into the 
+     * database table.
+     * @param sourceConcurrency maximum number of sources read at once.
+     * @param progress receives the number of records of each chunk sent to 
+     * the database, it is called from several threads at once.
+     * @return result of the insert (record, chunk and connection count, 
+     * duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if a record source
+     * can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if a 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if a record 
+     * source contains invalid values.
+     */
+    public InsertResult insertRecordStreamsParallel(
+            List<CSVRecordSource> recordSources, int sourceConcurrency, 
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Imports the records of the record source with the bulk import procedure
+     * of the database (SYSCS_UTIL.SYSCS_IMPORT_DATA of Apache Derby), see 
+     * {@link #importRecordStreams(List, InsertProgress)}.
+     * 
+     * @param recordSource source of the records to be imported into the 
+     * database table.
+     * @param progress receives the number of records once they are imported.
+     * @return result of the import (record count, duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder, the staging file can not be written or 
+     * the record source can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the import procedure failed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if the 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if the record 
+     * source contains invalid values.
+     */
+    public InsertResult importRecordStream(CSVRecordSource recordSource, 
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Imports the records of the record sources with the bulk import 
+     * procedure of the database (SYSCS_UTIL.SYSCS_IMPORT_DATA of Apache 
+     * Derby). The records are validated and written to one staging file in 
+     * the "bulk.import.dir" directory (the values of DOUBLE fields with the 
+     * '.' decimal separator), the file is read and inserted by the database
+     * server in one transaction and deleted afterwards. The staging 
+     * directory must be readable by the database server at the same path:
+     * if the database server is remote and "bulk.import.dir" is not 
+     * configured, the records are inserted in batches instead.
+     * 
+     * @param recordSources sources of the records to be imported into the 
+     * database table, read one after another.
+     * @param progress receives the number of records once they are imported.
+     * @return result of the import (record count, duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder, the staging file can not be written or 
+     * a record source can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the import procedure failed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if a 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if a record 
+     * source contains invalid values.
+     */
+    public InsertResult importRecordStreams(List<CSVRecordSource> recordSources,
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Replaces all records of the database table with the records of the 
+     * record sources. The records are loaded into the "MYDATA_STAGING" table
+     * (inserted in chunks, or imported by the bulk import procedure of the 
+     * database), its indexes are built once the records are loaded and the 
+     * staging table is renamed to the database table in one transaction, 
+     * together with the new data version and the deletion of the registered
+     * uploaded files. The readers see the replaced records until the swap is
+     * committed. The IDs of the new records continue the IDs of the replaced
+     * ones. One replace runs at a time, a failed replace leaves the database
+     * table unchanged.
+     * 
+     * @param recordSources sources of the records replacing the database 
+     * table records, read one after another.
+     * @param bulkImport true to load the staging table by the bulk import 
+     * procedure (see {@link #importRecordStreams(List, InsertProgress)}).
+     * @param progress receives the number of records once they are loaded 
+     * into the staging table.
+     * @return result of the replace (record count, duration of the load and 
+     * the swap).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder, the staging file can not be written or 
+     * a record source can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws web.process.parse.exceptions.FileValidationException if a 
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if a record 
+     * source contains invalid values.
+     */
+    public InsertResult replaceWithRecordStreams(
+            List<CSVRecordSource> recordSources, boolean bulkImport, 
+            InsertProgress progress) 
+            throws IOException, SQLException, NumberFormatException, 
+            FileValidationException, CsvValidationException;
+    
+    /**
+     * Upserts the records of the record sources into the database table: a
+     * record updates the database table record with the same value of the
+     * key column ("upsert.key.column" configuration property, TEXTDATA or
+     * DOUBLEDATA), a record of a new key is inserted. The records are looked
+     * up by the index of the key column, so the cost of the upsert depends 
+     * on the number of the upserted records, not on the size of the table. 
+     * The key column is not unique in the database table (the other inserts 
+     * do not check the keys), the chunk updating a key found in several 
+     * records is rolled back and the upsert is rejected. No other insert, 
+     * import or replace runs while an upsert runs, so no key is added by 
+     * them meanwhile. Of the records of a key repeated within the sources 
+     * the last one wins. The records are upserted in chunks committed in the
+     * configured commit mode, the data version is updated with the last 
+     * commit.
+     *
+     * @param recordSources sources of the records upserted into the database
+     * table, read one after another.
+     * @param progress receives the number of records once they are upserted.
+     * @return result of the upsert (inserted and updated record counts, chunk
+     * count and duration).
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or a record source can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.NumberFormatException if the csv data contains a value
+     * that can not be converted to the proper database field type.
+     * @throws java.lang.IllegalArgumentException if the configured key column
+     * is not a column of the database table or an upserted key is found in
+     * several records of the database table.
+     * @throws web.process.parse.exceptions.FileValidationException if a
+     * record source is not a proper csv-file.
+     * @throws com.opencsv.exceptions.CsvValidationException if a record
+     * source contains invalid values.
+     */
+    public InsertResult upsertRecordStreams(List<CSVRecordSource> recordSources,
+            InsertProgress progress)
+            throws IOException, SQLException, NumberFormatException,
+            FileValidationException, CsvValidationException;
+
     
     /**
      * Selects all records from the database table into the Data Object.
@@ -42,7 +349,160 @@ public interface DBDataHandlerLocal {
     public CSVFileData selectAll() throws IOException, SQLException;
     
     /**
-     * Deletes all records from the database table.
+     * Selects all records from the database table and passes each record to 
+     * the consumer as soon as it is read from the database cursor, so the 
+     * records are never kept in memory as a whole. The number of rows fetched
+     * from the database at a time is set by the "select.fetch.size" 
+     * configuration property.
+     * 
+     * @param consumer consumer receiving the records one by one.
+     * @return number of the selected records.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if the consumer 
+     * could not write a record.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public int selectAll(CSVRecordConsumer consumer) 
+            throws IOException, SQLException;
+    
+    /**
+     * Selects all records from the database table together with the data 
+     * version they belong to (see {@link #selectAll(CSVRecordConsumer)}). 
+     * The version and the records are read in one transaction holding a 
+     * share lock of the table, so the writes to the table wait until all
+     * records are read.
+     * 
+     * @param consumer consumer receiving the records one by one.
+     * @return data version of the selected records.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if the consumer 
+     * could not write a record.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established, the table can not be locked or the SQL query can not be
+     * executed.
+     */
+    public long selectAllAtVersion(CSVRecordConsumer consumer) 
+            throws IOException, SQLException;
+    
+    /**
+     * Selects the records of the database table matching the filter and 
+     * passes each record to the consumer as soon as it is read from the 
+     * database cursor (see {@link #selectAll(CSVRecordConsumer)}). The 
+     * conditions of the filter are parameters of the select query and only 
+     * the exported headers are selected, so the filtering is done by the 
+     * database (range and prefix conditions use the indexes of the table). 
+     * The records contain the exported headers only.
+     * 
+     * @param filter exported headers and conditions of the exported records.
+     * @param consumer consumer receiving the records one by one.
+     * @return number of the selected records.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read, or if the consumer 
+     * could not write a record.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public int select(ExportFilter filter, CSVRecordConsumer consumer) 
+            throws IOException, SQLException;
+    
+    /**
+     * Selects the highest ID of the database table. The IDs are assigned in 
+     * ascending order, so the highest ID read before an export is the 
+     * high-water mark of the export: the next incremental export starts 
+     * after it (see {@link ExportFilter#withIdRange(Integer, Integer)}).
+     * 
+     * @return highest ID, null if the table is empty.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public Integer selectMaxId() throws IOException, SQLException;
+    
+    /**
+     * Selects the data version of the database table. The version is 
+     * incremented in the transaction of each insert (of each chunk committed
+     * on its own), import and delete, so a version identifies the committed
+     * table data of the database (e.g. to reuse an export of the same data).
+     * 
+     * @return data version, 0 if the table was never changed.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public long selectDataVersion() throws IOException, SQLException;
+    
+    /**
+     * Selects the identity of the database, a random UUID given to the 
+     * database when its tables are created. The data versions of a database
+     * created again start at the same number, the identity tells them from 
+     * the versions of the previous database.
+     * 
+     * @return identity of the database.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established, the SQL query can not be executed or the database has 
+     * no identity yet.
+     */
+    public String selectDatabaseId() throws IOException, SQLException;
+    
+    /**
+     * Selects a page of records from the database table ordered by ID. The 
+     * page is found by the ID of the neighbour page record (keyset 
+     * pagination), so the records before the page are not scanned.
+     * 
+     * @param afterId ID the page starts after (next page), null to start from
+     * the first record.
+     * @param beforeId ID the page ends before (previous page), used only if
+     * afterId is null.
+     * @param pageSize maximum number of records on the page.
+     * @return page of records.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public TablePage selectPage(Integer afterId, Integer beforeId, 
+            int pageSize) throws IOException, SQLException;
+    
+    /**
+     * Selects the csv-file registered as uploaded with the given content 
+     * digest (see {@link #registerIngestedFile(String, String, long)}).
+     * 
+     * @param contentDigest hexadecimal SHA-256 digest of the file content.
+     * @return registered file, null if no file with the digest was uploaded.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public IngestedFile selectIngestedFile(String contentDigest) 
+            throws IOException, SQLException;
+    
+    /**
+     * Registers the csv-file whose records were added to the database table,
+     * so that an identical file uploaded later is recognized by its content 
+     * digest. The registration of a file uploaded again is replaced.
+     * 
+     * @param contentDigest hexadecimal SHA-256 digest of the file content.
+     * @param fileName name of the uploaded file.
+     * @param recordCount number of the records added to the database table.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public void registerIngestedFile(String contentDigest, String fileName, 
+            long recordCount) throws IOException, SQLException;
+    
+    /**
+     * Deletes all records from the database table at once (truncates the 
+     * table, the IDs are not restarted). The registered uploaded files are
+     * deleted and the statistics are reset in the same transaction, so the 
+     * files can be uploaded again.
      *  
      * @throws java.io.IOException if the file containing SQL query can not be
      * found in the resource folder or can not be read.
@@ -50,4 +510,35 @@ public interface DBDataHandlerLocal {
      * be established or the SQL query can not be executed.
      */
     public void deleteAll() throws IOException, SQLException;
+    
+    /**
+     * Selects the summary statistics of the database table (record count, 
+     * count, sum, minimum, maximum and average of DOUBLEDATA values) from the
+     * "MYDATA_STATS" table. The statistics are updated in the transaction of
+     * each insert, import, upsert, replace and delete, so they are read in 
+     * constant time whatever the size of the table. The statistics which 
+     * were never computed are computed from the table first (see 
+     * {@link #repairStats()}).
+     * 
+     * @return summary statistics of the committed table data.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public DataStats selectStats() throws IOException, SQLException;
+    
+    /**
+     * Computes the summary statistics of the database table from all its
+     * records again and replaces the kept statistics with them (e.g. after 
+     * the records were changed outside of the application). The writes to 
+     * the table wait until the statistics are computed.
+     * 
+     * @return recomputed summary statistics of the table.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     */
+    public DataStats repairStats() throws IOException, SQLException;
 }
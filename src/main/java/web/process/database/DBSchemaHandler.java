@@ -0,0 +1,133 @@
+package web.process.database;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * This EJB is used to create the database objects of the application at
+ * startup, so an existing database created for an older version of the
+ * application gets the tables added since then (e.g. the data version and 
+ * the summary statistics needed by every write to "MYDATA" table). The 
+ * database gets a random identity once, kept with the data version.
+ *
+ * @author SoundlyGifted
+ */
+@Startup
+@Singleton
+@DependsOn({"DBConnectionHandler", "SQLQueryProvider"})
+public class DBSchemaHandler implements DBSchemaHandlerLocal {
+
+    /* Queries creating the objects, in the order of their dependencies. */
+    private static final String[] CREATE_QUERY_NAMES = {
+        "create.mydata",
+        "create.index.doubledata.mydata",
+        "create.index.textdata.mydata",
+        "create.version.mydata",
+        "alter.version.mydata",
+        "create.ingested.file",
+        "create.stats.mydata"
+    };
+
+    /* SQL state of the error creating an object that already exists. */
+    private static final String OBJECT_EXISTS = "X0Y32";
+
+    /* SQL state of the warning creating a duplicate of an existing index. */
+    private static final String DUPLICATE_INDEX = "01504";
+
+    /* SQL state of the error inserting a duplicate primary key. */
+    private static final String DUPLICATE_KEY = "23505";
+
+    @EJB
+    private DBConnectionHandlerLocal connectionHandler;
+
+    @EJB
+    private SQLQueryProviderLocal sqlQueryProvider;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void createMissingObjects() throws IOException, SQLException {
+        try (Connection connection = connectionHandler.getDBConnection()) {
+            for (String queryName : CREATE_QUERY_NAMES) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate(
+                            sqlQueryProvider.getQuery(queryName));
+                    // An index of the same columns is reported by a warning.
+                    SQLWarning warning = statement.getWarnings();
+                    if (warning != null && DUPLICATE_INDEX.equals(
+                            warning.getSQLState())) {
+                        continue;
+                    }
+                    System.out.println("[DBSchemaHandler]: Created by '" 
+                            + queryName + "' query.");
+                } catch (SQLException sqlex) {
+                    if (!OBJECT_EXISTS.equals(sqlex.getSQLState())) {
+                        throw sqlex;
+                    }
+                }
+            }
+            if (!hasRow(connection, "select.version.mydata")) {
+                sqlQueryProvider.prepareStatement(connection, 
+                        "insert.version.mydata").executeUpdate();
+            }
+            /* The identity tells this database from a database created 
+             * again, whose data versions start at the same number.
+             */
+            PreparedStatement identityStatement 
+                    = sqlQueryProvider.prepareStatement(connection, 
+                            "update.database.id.mydata");
+            identityStatement.setString(1, UUID.randomUUID().toString());
+            identityStatement.executeUpdate();
+            if (!hasRow(connection, "select.stats.mydata")) {
+                try {
+                    sqlQueryProvider.prepareStatement(connection, 
+                            "insert.stats.mydata").executeUpdate();
+                } catch (SQLException sqlex) {
+                    // Inserted by the first write meanwhile.
+                    if (!DUPLICATE_KEY.equals(sqlex.getSQLState())) {
+                        throw sqlex;
+                    }
+                }
+            }
+        } catch (SQLException sqlex) {
+            throw new SQLException("[DBSchemaHandler] Error connecting to the "
+                    + "database or creating the database objects: " 
+                    + sqlex.getMessage());
+        }
+    }
+
+
+    private boolean hasRow(Connection connection, String queryName) 
+            throws IOException, SQLException {
+        try (ResultSet resultSet = sqlQueryProvider.prepareStatement(
+                connection, queryName).executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+
+    /* The application starts even if the database is not available yet, 
+     * the missing objects are reported by the requests.
+     */
+    @PostConstruct
+    public void postConstruct() {
+        try {
+            createMissingObjects();
+        } catch (IOException | SQLException ex) {
+            System.out.println("[DBSchemaHandler]: Database objects could not "
+                    + "be created: " + ex.getMessage());
+        }
+    }
+}
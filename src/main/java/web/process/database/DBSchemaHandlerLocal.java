@@ -0,0 +1,31 @@
+package web.process.database;
+
+import jakarta.ejb.Local;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * This interface contains methods that are used to create the database 
+ * objects the application needs.
+ * 
+ * @author SoundlyGifted
+ */
+@Local
+public interface DBSchemaHandlerLocal {
+    
+    /**
+     * Creates the tables and indexes of the application which do not exist 
+     * yet ("MYDATA" table and its indexes, "MYDATA_VERSION", "INGESTED_FILE" 
+     * and "MYDATA_STATS" tables) and inserts the missing rows of the data 
+     * version and of the summary statistics (computed from the records of 
+     * "MYDATA" table). A database without an identity gets a random one 
+     * (kept in "MYDATA_VERSION" table). The existing objects and rows are 
+     * left unchanged, so the method can be run at every startup.
+     * 
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or an object can not be created.
+     */
+    public void createMissingObjects() throws IOException, SQLException;
+}
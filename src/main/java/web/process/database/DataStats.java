@@ -0,0 +1,66 @@
+package web.process.database;
+
+/**
+ * This class represents the summary statistics of the database table
+ * ("MYDATA_STATS" table record): the number of the records and the count,
+ * sum, minimum, maximum and average of their DOUBLEDATA values. The
+ * statistics are kept up to date by the writes to the database table, so they
+ * are read in constant time whatever the size of the table.
+ *
+ * @author SoundlyGifted
+ */
+public class DataStats {
+
+    private final long recordCount;
+    private final long doubleCount;
+    private final double doubleSum;
+    private final Double doubleMin;
+    private final Double doubleMax;
+
+    /**
+     * This constructor creates a DataStats object.
+     *
+     * @param recordCount number of the records of the database table.
+     * @param doubleCount number of the DOUBLEDATA values (not NULL).
+     * @param doubleSum sum of the DOUBLEDATA values.
+     * @param doubleMin lowest DOUBLEDATA value, null if there is no value.
+     * @param doubleMax highest DOUBLEDATA value, null if there is no value.
+     */
+    public DataStats(long recordCount, long doubleCount, double doubleSum,
+            Double doubleMin, Double doubleMax) {
+        this.recordCount = recordCount;
+        this.doubleCount = doubleCount;
+        this.doubleSum = doubleSum;
+        this.doubleMin = doubleMin;
+        this.doubleMax = doubleMax;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getDoubleCount() {
+        return doubleCount;
+    }
+
+    public double getDoubleSum() {
+        return doubleSum;
+    }
+
+    public Double getDoubleMin() {
+        return doubleMin;
+    }
+
+    public Double getDoubleMax() {
+        return doubleMax;
+    }
+
+    /**
+     * Used to get the average of the DOUBLEDATA values.
+     *
+     * @return average of the DOUBLEDATA values, null if there is no value.
+     */
+    public Double getDoubleAverage() {
+        return doubleCount == 0 ? null : doubleSum / doubleCount;
+    }
+}
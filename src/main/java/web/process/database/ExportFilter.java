@@ -0,0 +1,149 @@
+package web.process.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import web.process.csvdata.CSVFileData;
+
+/**
+ * This class represents the filter of a download: the CSV File headers 
+ * (columns) to export and the conditions the exported records must match. 
+ * The conditions become parameters of the select query, so the records are 
+ * filtered by the database (using the DOUBLEDATA and TEXTDATA indexes).
+ * 
+ * A filter with an ID range is an incremental export: only the records added
+ * after the last exported ID are selected, in the order of their IDs.
+ * 
+ * @author SoundlyGifted
+ */
+public class ExportFilter {
+    
+    private final List<String> csvFileHeaders;
+    private final boolean allHeaders;
+    private final Double doubleFrom;
+    private final Double doubleTo;
+    private final String textPrefix;
+    private final Integer afterId;
+    private final Integer upToId;
+
+    /**
+     * This constructor creates an ExportFilter object.
+     * 
+     * @param csvFileHeaders CSV File headers to export, they are written in 
+     * the order of the allowed headers. Null or empty list for all headers.
+     * @param doubleFrom lowest DOUBLEDATA value exported (inclusive), null for
+     * no lower bound.
+     * @param doubleTo highest DOUBLEDATA value exported (inclusive), null for
+     * no upper bound.
+     * @param textPrefix prefix of the exported TEXTDATA values, null or empty
+     * for any value.
+     * @throws IllegalArgumentException if a header is not an allowed header.
+     */
+    public ExportFilter(List<String> csvFileHeaders, Double doubleFrom, 
+            Double doubleTo, String textPrefix) 
+            throws IllegalArgumentException {
+        List<String> allowedHeaders 
+                = new CSVFileData().getAllowedCSVFileHeaders();
+        List<String> headers = new ArrayList<>();
+        if (csvFileHeaders != null) {
+            for (String csvFileHeader : csvFileHeaders) {
+                if (!allowedHeaders.contains(csvFileHeader)) {
+                    throw new IllegalArgumentException("[ExportFilter] '" 
+                            + csvFileHeader + "' is not an allowed header.");
+                }
+            }
+            for (String allowedHeader : allowedHeaders) {
+                if (csvFileHeaders.contains(allowedHeader)) {
+                    headers.add(allowedHeader);
+                }
+            }
+        }
+        this.allHeaders = headers.isEmpty() 
+                || headers.size() == allowedHeaders.size();
+        this.csvFileHeaders = List.copyOf(headers.isEmpty() 
+                ? allowedHeaders : headers);
+        this.doubleFrom = doubleFrom;
+        this.doubleTo = doubleTo;
+        this.textPrefix = textPrefix == null || textPrefix.isEmpty() 
+                ? null : textPrefix;
+        this.afterId = null;
+        this.upToId = null;
+    }
+    
+    private ExportFilter(ExportFilter filter, Integer afterId, 
+            Integer upToId) {
+        this.csvFileHeaders = filter.csvFileHeaders;
+        this.allHeaders = filter.allHeaders;
+        this.doubleFrom = filter.doubleFrom;
+        this.doubleTo = filter.doubleTo;
+        this.textPrefix = filter.textPrefix;
+        this.afterId = afterId;
+        this.upToId = upToId;
+    }
+    
+    /**
+     * Used to get the filter of the download of all records and all headers.
+     * 
+     * @return filter exporting everything.
+     */
+    public static ExportFilter all() {
+        return new ExportFilter(null, null, null, null);
+    }
+    
+    /**
+     * Used to get the filter of an incremental export: the records of this
+     * filter with an ID within the range, in the order of their IDs.
+     * 
+     * @param afterId ID the exported records follow (the last ID exported 
+     * before), null for no lower bound.
+     * @param upToId highest ID exported (inclusive, the high-water mark read 
+     * before the export), null for no upper bound.
+     * @return filter of the incremental export.
+     */
+    public ExportFilter withIdRange(Integer afterId, Integer upToId) {
+        return new ExportFilter(this, afterId, upToId);
+    }
+    
+    /**
+     * Used to check if the filter exports all records with all headers.
+     * 
+     * @return true if there are no conditions and all headers are exported.
+     */
+    public boolean isUnfiltered() {
+        return allHeaders && doubleFrom == null && doubleTo == null 
+                && textPrefix == null && !isIdRange();
+    }
+    
+    /**
+     * Used to check if the filter is an incremental export (has an ID range,
+     * the records are exported in the order of their IDs).
+     * 
+     * @return true if the filter has an ID range.
+     */
+    public boolean isIdRange() {
+        return afterId != null || upToId != null;
+    }
+
+    public List<String> getCSVFileHeaders() {
+        return csvFileHeaders;
+    }
+
+    public Double getDoubleFrom() {
+        return doubleFrom;
+    }
+
+    public Double getDoubleTo() {
+        return doubleTo;
+    }
+
+    public String getTextPrefix() {
+        return textPrefix;
+    }
+
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    public Integer getUpToId() {
+        return upToId;
+    }
+}
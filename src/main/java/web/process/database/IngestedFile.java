@@ -0,0 +1,49 @@
+package web.process.database;
+
+/**
+ * This class represents a csv-file registered as uploaded into the database
+ * table ("INGESTED_FILE" table record). The file is identified by the SHA-256
+ * digest of its content, so an identical file uploaded again is recognized
+ * whatever its name.
+ *
+ * @author SoundlyGifted
+ */
+public class IngestedFile {
+
+    private final String contentDigest;
+    private final String fileName;
+    private final long recordCount;
+    private final long ingestedMillis;
+
+    /**
+     * This constructor creates an IngestedFile object.
+     *
+     * @param contentDigest hexadecimal SHA-256 digest of the file content.
+     * @param fileName name of the file when it was uploaded.
+     * @param recordCount number of the records added to the database table.
+     * @param ingestedMillis time the upload was registered, in milliseconds.
+     */
+    public IngestedFile(String contentDigest, String fileName,
+            long recordCount, long ingestedMillis) {
+        this.contentDigest = contentDigest;
+        this.fileName = fileName;
+        this.recordCount = recordCount;
+        this.ingestedMillis = ingestedMillis;
+    }
+
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getIngestedMillis() {
+        return ingestedMillis;
+    }
+}
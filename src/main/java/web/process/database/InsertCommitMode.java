@@ -0,0 +1,40 @@
+package web.process.database;
+
+/**
+ * This Enum defines how the records inserted in chunks are committed to the
+ * database.
+ * 
+ * @author SoundlyGifted
+ */
+public enum InsertCommitMode {
+    
+    /**
+     * All chunks are committed by a single commit after the last chunk, any 
+     * error rolls back the whole insert.
+     */
+    ALL_OR_NOTHING,
+    
+    /**
+     * Each chunk is committed right after it is sent to the database, an error
+     * rolls back only the chunk being inserted.
+     */
+    PER_CHUNK;
+    
+    /**
+     * Returns the commit mode with the given name.
+     * 
+     * @param name name of the commit mode (case insensitive).
+     * @param defaultMode mode to be returned if the name is not a valid 
+     * commit mode name.
+     * @return the commit mode with the given name or the default mode.
+     */
+    public static InsertCommitMode fromName(String name, 
+            InsertCommitMode defaultMode) {
+        for (InsertCommitMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return defaultMode;
+    }
+}
@@ -0,0 +1,85 @@
+package web.process.database;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This EJB is used to provide the threads of the parallel inserts, apart 
+ * from the container managed executor that runs the upload jobs. A parallel
+ * insert run by an upload job waits for its connection workers and its 
+ * record sources, if they shared the executor of the jobs, the jobs could 
+ * take all of its threads and wait for the work that never starts.
+ *
+ * The executors are bounded by the maximum size of the connection pool and
+ * thread-safe, so the bean allows concurrent access (READ lock).
+ *
+ * @author SoundlyGifted
+ */
+@Singleton
+@Lock(LockType.READ)
+public class InsertExecutorProvider implements InsertExecutorProviderLocal {
+
+    /* Seconds an idle thread is kept for the next insert. */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    @EJB
+    private DBConnectionHandlerLocal connectionHandler;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private ThreadPoolExecutor workerExecutor;
+    private ThreadPoolExecutor readerExecutor;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExecutorService getWorkerExecutor() {
+        return workerExecutor;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExecutorService getReaderExecutor() {
+        return readerExecutor;
+    }
+
+
+    @PostConstruct
+    public void postConstruct() {
+        int maxThreads = Math.max(1, 
+                connectionHandler.getPoolStats().getMaxSize());
+        /* The workers are queued only until the workers of the finished 
+         * inserts return their connections, which are at most maxThreads.
+         */
+        workerExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, 
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, 
+                new LinkedBlockingQueue<>(), threadFactory);
+        workerExecutor.allowCoreThreadTimeOut(true);
+        readerExecutor = new ThreadPoolExecutor(0, maxThreads, 
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+
+    @PreDestroy
+    public void preDestroy() {
+        workerExecutor.shutdownNow();
+        readerExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,34 @@
+package web.process.database;
+
+import jakarta.ejb.Local;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * This Interface contains method declarations that are used to provide the 
+ * threads of the parallel inserts.
+ * 
+ * @author SoundlyGifted
+ */
+@Local
+public interface InsertExecutorProviderLocal {
+    
+    /**
+     * Used to get the executor of the connection workers of the parallel 
+     * inserts. It has as many threads as the connection pool has connections
+     * at most, each worker holds a connection of the pool, so a worker never
+     * waits for a thread.
+     * 
+     * @return executor of the parallel insert connection workers.
+     */
+    public ExecutorService getWorkerExecutor();
+    
+    /**
+     * Used to get the executor of the record sources read concurrently by 
+     * the parallel inserts. It has as many threads as the connection pool has
+     * connections at most, a source submitted while all of them are busy is 
+     * read by the submitting thread itself.
+     * 
+     * @return executor of the record sources of the parallel inserts.
+     */
+    public ExecutorService getReaderExecutor();
+}
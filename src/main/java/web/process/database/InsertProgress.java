@@ -0,0 +1,19 @@
+package web.process.database;
+
+/**
+ * Receives the progress of an insert: it is notified each time a chunk of 
+ * records is sent to the database. The parallel insert notifies it from 
+ * several threads at once.
+ * 
+ * @author SoundlyGifted
+ */
+@FunctionalInterface
+public interface InsertProgress {
+    
+    /**
+     * Called after a chunk of records was sent to the database.
+     * 
+     * @param recordCount number of records in the chunk.
+     */
+    public void recordsInserted(long recordCount);
+}
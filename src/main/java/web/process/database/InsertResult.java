@@ -0,0 +1,232 @@
+package web.process.database;
+
+/**
+ * This class represents the result of inserting records into the database
+ * table: how many records were inserted, in how many chunks and how long it
+ * took.
+ * 
+ * @author SoundlyGifted
+ */
+public class InsertResult {
+    
+    private final long recordCount;
+    private final int chunkCount;
+    private final long elapsedMillis;
+    private final InsertCommitMode commitMode;
+    private final int connectionCount;
+    /* Duration of the import procedure of a bulk import, otherwise -1. */
+    private final long importMillis;
+    /* Duration of the table swap of a replace, otherwise -1. */
+    private final long swapMillis;
+    /* Number of the records updated by an upsert, otherwise -1. */
+    private final long updatedCount;
+
+    /**
+     * This constructor creates an InsertResult object.
+     * 
+     * @param recordCount number of the inserted records.
+     * @param chunkCount number of chunks the records were sent in.
+     * @param elapsedMillis insert duration in milliseconds.
+     * @param commitMode commit mode used for the insert.
+     */
+    public InsertResult(long recordCount, int chunkCount, long elapsedMillis,
+            InsertCommitMode commitMode) {
+        this(recordCount, chunkCount, elapsedMillis, commitMode, 1);
+    }
+    
+    /**
+     * This constructor creates an InsertResult object of an insert over 
+     * several database connections.
+     * 
+     * @param recordCount number of the inserted records.
+     * @param chunkCount number of chunks the records were sent in.
+     * @param elapsedMillis insert duration in milliseconds.
+     * @param commitMode commit mode used for the insert.
+     * @param connectionCount number of connections used for the insert.
+     */
+    public InsertResult(long recordCount, int chunkCount, long elapsedMillis,
+            InsertCommitMode commitMode, int connectionCount) {
+        this.recordCount = recordCount;
+        this.chunkCount = chunkCount;
+        this.elapsedMillis = elapsedMillis;
+        this.commitMode = commitMode;
+        this.connectionCount = connectionCount;
+        this.importMillis = -1;
+        this.swapMillis = -1;
+        this.updatedCount = -1;
+    }
+    
+    /**
+     * This constructor creates an InsertResult object of an upsert: each 
+     * record either updated the record with the same key or was inserted.
+     * 
+     * @param insertedCount number of the inserted records.
+     * @param updatedCount number of the records that updated a record with 
+     * the same key.
+     * @param chunkCount number of chunks the records were sent in.
+     * @param elapsedMillis upsert duration in milliseconds.
+     * @param commitMode commit mode used for the upsert.
+     */
+    public InsertResult(long insertedCount, long updatedCount, int chunkCount,
+            long elapsedMillis, InsertCommitMode commitMode) {
+        this.recordCount = insertedCount + updatedCount;
+        this.chunkCount = chunkCount;
+        this.elapsedMillis = elapsedMillis;
+        this.commitMode = commitMode;
+        this.connectionCount = 1;
+        this.importMillis = -1;
+        this.swapMillis = -1;
+        this.updatedCount = updatedCount;
+    }
+    
+    /**
+     * This constructor creates an InsertResult object of a bulk import: the 
+     * records were written to a staging file and inserted by the import 
+     * procedure of the database in one transaction.
+     * 
+     * @param recordCount number of the imported records.
+     * @param elapsedMillis duration of the staging and the import in 
+     * milliseconds.
+     * @param importMillis duration of the import procedure in milliseconds.
+     */
+    public InsertResult(long recordCount, long elapsedMillis, 
+            long importMillis) {
+        this.recordCount = recordCount;
+        this.chunkCount = 1;
+        this.elapsedMillis = elapsedMillis;
+        this.commitMode = InsertCommitMode.ALL_OR_NOTHING;
+        this.connectionCount = 1;
+        this.importMillis = importMillis;
+        this.swapMillis = -1;
+        this.updatedCount = -1;
+    }
+    
+    /**
+     * This constructor creates an InsertResult object of a replace: the 
+     * records were loaded into the staging table and the staging table 
+     * replaced the database table.
+     * 
+     * @param loadResult result of loading the records into the staging 
+     * table.
+     * @param elapsedMillis duration of the load and the swap in milliseconds.
+     * @param swapMillis duration of the swap of the tables in milliseconds.
+     */
+    public InsertResult(InsertResult loadResult, long elapsedMillis, 
+            long swapMillis) {
+        this.recordCount = loadResult.recordCount;
+        this.chunkCount = loadResult.chunkCount;
+        this.elapsedMillis = elapsedMillis;
+        this.commitMode = loadResult.commitMode;
+        this.connectionCount = loadResult.connectionCount;
+        this.importMillis = loadResult.importMillis;
+        this.swapMillis = swapMillis;
+        this.updatedCount = -1;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public InsertCommitMode getCommitMode() {
+        return commitMode;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+    
+    /**
+     * Used to get the duration of the import procedure of a bulk import.
+     * 
+     * @return duration in milliseconds or -1 if the records were inserted by
+     * JDBC batches.
+     */
+    public long getImportMillis() {
+        return importMillis;
+    }
+    
+    /**
+     * Used to get the number of the records inserted as new records (all 
+     * records unless upserted).
+     * 
+     * @return number of the inserted records.
+     */
+    public long getInsertedCount() {
+        return updatedCount >= 0 ? recordCount - updatedCount : recordCount;
+    }
+    
+    /**
+     * Used to get the number of the records that updated a record with the
+     * same key by an upsert.
+     * 
+     * @return number of the updated records or -1 if the records were not 
+     * upserted.
+     */
+    public long getUpdatedCount() {
+        return updatedCount;
+    }
+    
+    /**
+     * Used to get the duration of the table swap of a replace.
+     * 
+     * @return duration in milliseconds or -1 if the records were added to
+     * the database table.
+     */
+    public long getSwapMillis() {
+        return swapMillis;
+    }
+    
+    /**
+     * Used to get the insert throughput.
+     * 
+     * @return number of the inserted records per second.
+     */
+    public long getRowsPerSecond() {
+        if (elapsedMillis <= 0) {
+            return recordCount * 1000;
+        }
+        return recordCount * 1000 / elapsedMillis;
+    }
+    
+    /**
+     * Used to get the result description to be displayed to the user.
+     * 
+     * @return result description.
+     */
+    public String getDescription() {
+        if (updatedCount >= 0) {
+            return recordCount + " records were upserted into the database: "
+                    + getInsertedCount() + " inserted, " + updatedCount 
+                    + " updated, in " + chunkCount + " chunk(s), " 
+                    + commitMode + " commit, " + elapsedMillis + " ms (" 
+                    + getRowsPerSecond() + " rows/s)";
+        }
+        if (swapMillis >= 0) {
+            return "The database data were replaced by " + recordCount 
+                    + " records in " + elapsedMillis + " ms (" 
+                    + (importMillis >= 0 ? "bulk import " + importMillis 
+                            + " ms" : chunkCount + " chunk(s)") 
+                    + ", swap " + swapMillis + " ms, " + getRowsPerSecond() 
+                    + " rows/s)";
+        }
+        if (importMillis >= 0) {
+            return recordCount + " records were added to the database by the "
+                    + "bulk import in " + elapsedMillis + " ms (import " 
+                    + importMillis + " ms, " + getRowsPerSecond() + " rows/s)";
+        }
+        return recordCount + " records were added to the database in " 
+                + chunkCount + " chunk(s)" 
+                + (connectionCount > 1 
+                        ? " over " + connectionCount + " connections" : "")
+                + ", " + commitMode + " commit, " + elapsedMillis + " ms (" 
+                + getRowsPerSecond() + " rows/s)";
+    }
+}
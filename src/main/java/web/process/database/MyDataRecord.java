@@ -0,0 +1,31 @@
+package web.process.database;
+
+/**
+ * This class represents a record of the "MYDATA" database table.
+ * 
+ * @author SoundlyGifted
+ */
+public class MyDataRecord {
+    
+    private final int id;
+    private final String textData;
+    private final double doubleData;
+
+    public MyDataRecord(int id, String textData, double doubleData) {
+        this.id = id;
+        this.textData = textData;
+        this.doubleData = doubleData;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTextData() {
+        return textData;
+    }
+
+    public double getDoubleData() {
+        return doubleData;
+    }
+}
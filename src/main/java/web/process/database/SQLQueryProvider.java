@@ -1,44 +1,183 @@
 package web.process.database;
 
-import jakarta.ejb.DependsOn;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
 import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This EJB is used to provide SQL queries red from sql-files.
- * 
+ *
+ * All sql-files are red and validated once at startup and kept in an
+ * immutable map, so the bean does not need the container locking (bean
+ * managed concurrency) and the queries are read concurrently without
+ * classpath I/O.
+ *
  * @author SoundlyGifted
  */
+@Startup
 @Singleton
-@DependsOn("DBConnectionHandler")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class SQLQueryProvider implements SQLQueryProviderLocal {
 
+    private static final String SQL_FOLDER = "/resources/sql/";
+
+    /* Names of the sql-files (without ".sql" extension) loaded at startup. */
+    private static final String[] QUERY_NAMES = {
+        "alter.version.mydata",
+        "create.index.doubledata.mydata",
+        "create.index.doubledata.staging.mydata",
+        "create.index.textdata.mydata",
+        "create.index.textdata.staging.mydata",
+        "create.ingested.file",
+        "create.load.mydata",
+        "create.mydata",
+        "create.staging.mydata",
+        "create.stats.mydata",
+        "create.version.mydata",
+        "delete.all.ingested.file",
+        "delete.stats.mydata",
+        "drop.load.mydata",
+        "drop.mydata",
+        "drop.staging.mydata",
+        "import.load.mydata",
+        "import.staging.mydata",
+        "insert.ingested.file",
+        "insert.load.mydata",
+        "insert.mydata",
+        "insert.staging.mydata",
+        "insert.stats.mydata",
+        "insert.version.mydata",
+        "lock.share.mydata",
+        "rename.index.doubledata.staging.mydata",
+        "rename.index.textdata.staging.mydata",
+        "rename.staging.mydata",
+        "restart.id.staging.mydata",
+        "select.all.mydata",
+        "select.database.id.mydata",
+        "select.filtered.mydata",
+        "select.id.range.mydata",
+        "select.ingested.file",
+        "select.next.id.mydata",
+        "select.page.after.mydata",
+        "select.page.before.mydata",
+        "select.stats.mydata",
+        "select.version.mydata",
+        "truncate.mydata",
+        "update.database.id.mydata",
+        "update.ingested.file",
+        "update.reset.stats.mydata",
+        "update.stats.mydata",
+        "update.upsert.mydata",
+        "update.version.mydata"
+    };
+
+    /* Queries mapped to the query names, replaced as a whole only once. */
+    private volatile Map<String, String> queries = Map.of();
+    /* Loading errors mapped to the names of the queries failed to load. */
+    private volatile Map<String, String> loadingErrors = Map.of();
+
     /**
      * {@inheritDoc}
      */
     @Override
     public String getQuery(String path) throws IOException {
-        path = "/resources/sql/" + path + ".sql";
+        String query = queries.get(path);
+        if (query == null) {
+            String error = loadingErrors.get(path);
+            throw new IOException("[SQLQueryProvider] could not read the '"
+                    + SQL_FOLDER + path + ".sql' query: "
+                    + (error != null ? error : "unknown query"));
+        }
+        return query;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PreparedStatement prepareStatement(Connection connection,
+            String path) throws IOException, SQLException {
+        String query = getQuery(path);
+        if (connection instanceof StatementCachingConnection) {
+            return ((StatementCachingConnection) connection)
+                    .prepareCachedStatement(path, query);
+        }
+        return connection.prepareStatement(query);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PreparedStatement prepareStatement(Connection connection, 
+            String key, String query) throws SQLException {
+        if (connection instanceof StatementCachingConnection) {
+            return ((StatementCachingConnection) connection)
+                    .prepareCachedStatement(key, query);
+        }
+        return connection.prepareStatement(query);
+    }
+
+
+    private String readQuery(String path) throws IOException {
+        path = SQL_FOLDER + path + ".sql";
         StringBuilder builder;
-        ClassLoader classLoader = this.getClass().getClassLoader();
-        try (InputStream stream = classLoader.getResourceAsStream(path)) {
-            try(Reader reader = new InputStreamReader(stream)) {
+        // Absolute resource name, resolved the same way by any class loader.
+        try (InputStream stream = this.getClass().getResourceAsStream(path)) {
+            if (stream == null) {
+                throw new IOException("file not found");
+            }
+            try(Reader reader = new InputStreamReader(stream,
+                    StandardCharsets.UTF_8)) {
                 try(BufferedReader in = new BufferedReader(reader)) {
                     builder = new StringBuilder();
                     String line;
+                    boolean hasStatement = false;
                     while ((line = in.readLine()) != null) {
                         builder.append(line).append(System.lineSeparator());
+                        String trimmed = line.trim();
+                        if (!trimmed.isEmpty() && !trimmed.startsWith("--")) {
+                            hasStatement = true;
+                        }
+                    }
+                    if (!hasStatement) {
+                        throw new IOException("file contains no SQL statement");
                     }
                     return builder.toString();
                 }
             }
-        } catch (IOException ioex) {
-            throw new IOException("[SQLQueryProvider] could not read the '"
-                    + path + "' query: " + ioex.getMessage());
         }
     }
+
+
+    @PostConstruct
+    public void postConstruct() {
+        Map<String, String> loaded = new HashMap<>();
+        Map<String, String> errors = new HashMap<>();
+        for (String name : QUERY_NAMES) {
+            try {
+                loaded.put(name, readQuery(name));
+            } catch (IOException ioex) {
+                errors.put(name, ioex.getMessage());
+                System.out.println("[SQLQueryProvider]: Could not load the '"
+                        + SQL_FOLDER + name + ".sql' query: "
+                        + ioex.getMessage());
+            }
+        }
+        queries = Map.copyOf(loaded);
+        loadingErrors = Map.copyOf(errors);
+    }
 }
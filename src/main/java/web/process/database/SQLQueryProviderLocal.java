@@ -2,9 +2,12 @@ package web.process.database;
 
 import java.io.IOException;
 import jakarta.ejb.Local;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
- * This interface contains method that reads SQL query from an sql-file.
+ * This interface contains methods that provide SQL queries from sql-files.
  * 
  * @author SoundlyGifted
  */
@@ -20,4 +23,37 @@ public interface SQLQueryProviderLocal {
      * found in the resource folder or can not be read.
      */
     public String getQuery(String path) throws IOException;
-}
+    
+    /**
+     * Returns the prepared statement of the SQL query from an sql-file. 
+     * Connections taken from the connection pool keep their prepared 
+     * statements, so a query is prepared only once per physical connection.
+     * The statement is owned by the connection and closed together with it,
+     * the caller must not close it.
+     * 
+     * @param connection database connection to prepare the statement with.
+     * @param path path to the sql-file
+     * @return prepared statement of the SQL query.
+     * @throws java.io.IOException if the file containing SQL query can not be
+     * found in the resource folder or can not be read.
+     * @throws java.sql.SQLException if the statement can not be prepared.
+     */
+    public PreparedStatement prepareStatement(Connection connection, 
+            String path) throws IOException, SQLException;
+    
+    /**
+     * Returns the prepared statement of an SQL query built at runtime from 
+     * the query of an sql-file (e.g. with the select list of the requested
+     * columns). The statement is kept by the pooled connection under the 
+     * given key the same way as the statements of the sql-file queries, so 
+     * the key must identify the query text.
+     * 
+     * @param connection database connection to prepare the statement with.
+     * @param key statement cache key of the query.
+     * @param query SQL query.
+     * @return prepared statement of the SQL query.
+     * @throws java.sql.SQLException if the statement can not be prepared.
+     */
+    public PreparedStatement prepareStatement(Connection connection, 
+            String key, String query) throws SQLException;
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package web.process.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * This interface is implemented by the pooled connections that keep their
+ * prepared statements for reuse by the next borrowers of the same physical
+ * connection.
+ * 
+ * @author SoundlyGifted
+ */
+interface StatementCachingConnection {
+    
+    /**
+     * Returns the prepared statement cached for the given key, prepares and 
+     * caches it if there is no such statement yet. The statement is owned by
+     * the connection and must not be closed by the caller.
+     * 
+     * @param key statement cache key (SQL query name).
+     * @param sql SQL query of the statement.
+     * @return cached prepared statement.
+     * @throws SQLException if the statement can not be prepared.
+     */
+    PreparedStatement prepareCachedStatement(String key, String sql) 
+            throws SQLException;
+}
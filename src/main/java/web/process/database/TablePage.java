@@ -0,0 +1,76 @@
+package web.process.database;
+
+import java.util.List;
+
+/**
+ * This class represents a page of the "MYDATA" database table records ordered
+ * by ID. The neighbour pages are addressed by the first and the last ID of 
+ * the page (keyset pagination).
+ * 
+ * @author SoundlyGifted
+ */
+public class TablePage {
+    
+    private final List<MyDataRecord> records;
+    private final int pageSize;
+    private final boolean previousAvailable;
+    private final boolean nextAvailable;
+    private final long estimatedTotal;
+
+    /**
+     * This constructor creates a TablePage object.
+     * 
+     * @param records records of the page ordered by ID.
+     * @param pageSize maximum number of records on the page.
+     * @param previousAvailable true if there are records before the page.
+     * @param nextAvailable true if there are records after the page.
+     * @param estimatedTotal estimated number of records in the table.
+     */
+    public TablePage(List<MyDataRecord> records, int pageSize, 
+            boolean previousAvailable, boolean nextAvailable, 
+            long estimatedTotal) {
+        this.records = List.copyOf(records);
+        this.pageSize = pageSize;
+        this.previousAvailable = previousAvailable;
+        this.nextAvailable = nextAvailable;
+        this.estimatedTotal = estimatedTotal;
+    }
+
+    public List<MyDataRecord> getRecords() {
+        return records;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isPreviousAvailable() {
+        return previousAvailable;
+    }
+
+    public boolean isNextAvailable() {
+        return nextAvailable;
+    }
+
+    public long getEstimatedTotal() {
+        return estimatedTotal;
+    }
+    
+    /**
+     * Used to get the ID to request the next page after.
+     * 
+     * @return ID of the last record on the page or 0 if the page is empty.
+     */
+    public int getLastId() {
+        return records.isEmpty() ? 0 : records.get(records.size() - 1).getId();
+    }
+    
+    /**
+     * Used to get the ID to request the previous page before.
+     * 
+     * @return ID of the first record on the page or 0 if the page is empty.
+     */
+    public int getFirstId() {
+        return records.isEmpty() ? 0 : records.get(0).getId();
+    }
+}
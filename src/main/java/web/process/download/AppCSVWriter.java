@@ -1,16 +1,22 @@
 package web.process.download;
 
 import com.opencsv.CSVWriter;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.util.ArrayList;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import web.process.csvdata.CSVFileData;
+import web.process.metrics.AppMetricsLocal;
+import web.process.metrics.StageMetrics;
 
 /**
  * This Bean contains implementation of methods that are used to write a 
@@ -21,34 +27,17 @@ import web.process.csvdata.CSVFileData;
 @Stateless
 public class AppCSVWriter implements AppCSVWriterLocal {
     
+    @EJB
+    private AppMetricsLocal metrics;
+    
     /**
      * {@inheritDoc}
      */
     @Override
     public void writeWithCommonsCSV(CSVFileData csvFileData, 
             HttpServletResponse response) throws IOException {
-        ArrayList<String> csvFileHeaders = csvFileData
-                .getAllowedCSVFileHeaders();
-        List<Map<String, String>> recordList = csvFileData
-                .getRecordListWithCSVFileHeaders();
-
-        CSVFormat csvFormat = CSVFormat.EXCEL;
-        CSVFormat.Builder csvFormatBuilder = csvFormat.builder();
-        csvFormatBuilder.setDelimiter(';');
-        csvFormatBuilder.setHeader(csvFileHeaders.get(0),
-                csvFileHeaders.get(1));
-        
-        try (PrintWriter printWriter = response.getWriter();
-                CSVPrinter printer 
-                        = new CSVPrinter(printWriter, csvFormatBuilder.build())) {
-            for (Map<String, String> record : recordList) {
-                printer.printRecord(record.get(csvFileHeaders.get(0)),
-                        record.get(csvFileHeaders.get(1)));
-            }
-            printer.flush();
-        } catch (IOException ioex) {
-            throw new IOException("[AppCSVWriter] Data writing error: "
-                    + ioex.getMessage());
+        try (CSVStreamWriter writer = openCommonsCSVStream(response)) {
+            writeRecords(csvFileData, writer);
         }
     }
     
@@ -58,33 +47,290 @@ public class AppCSVWriter implements AppCSVWriterLocal {
     @Override
     public void writeWithOpenCSV(CSVFileData csvFileData, 
             HttpServletResponse response) throws IOException {
-        try (PrintWriter printWriter = response.getWriter();
-                CSVWriter writer = new CSVWriter(printWriter, ';',
-                CSVWriter.NO_QUOTE_CHARACTER,
-                CSVWriter.DEFAULT_ESCAPE_CHARACTER,
-                CSVWriter.DEFAULT_LINE_END)) {
+        try (CSVStreamWriter writer = openOpenCSVStream(response)) {
+            writeRecords(csvFileData, writer);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openCommonsCSVStream(HttpServletResponse response) 
+            throws IOException {
+        return openCommonsCSVStream(response, ContentCoding.IDENTITY);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openCommonsCSVStream(HttpServletResponse response,
+            ContentCoding coding) throws IOException {
+        return openCommonsCSVStream(response, coding, 
+                new CSVFileData().getAllowedCSVFileHeaders());
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openCommonsCSVStream(HttpServletResponse response,
+            ContentCoding coding, List<String> csvFileHeaders) 
+            throws IOException {
+        WriteTimer timer = new WriteTimer(metrics.stage(
+                AppMetricsLocal.EXPORT_WRITE, "CommonsCSV"));
+        return new CommonsCSVStreamWriter(openWriter(response.getOutputStream(), 
+                response.getCharacterEncoding(), coding, timer), 
+                List.copyOf(csvFileHeaders), timer);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openCommonsCSVStream(OutputStream outputStream,
+            String charset, ContentCoding coding) throws IOException {
+        WriteTimer timer = new WriteTimer(metrics.stage(
+                AppMetricsLocal.EXPORT_WRITE, "CommonsCSV"));
+        return new CommonsCSVStreamWriter(openWriter(outputStream, charset, coding, timer), 
+                new CSVFileData().getAllowedCSVFileHeaders(), timer);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openOpenCSVStream(HttpServletResponse response) 
+            throws IOException {
+        return openOpenCSVStream(response, ContentCoding.IDENTITY);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openOpenCSVStream(HttpServletResponse response,
+            ContentCoding coding) throws IOException {
+        return openOpenCSVStream(response, coding, 
+                new CSVFileData().getAllowedCSVFileHeaders());
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openOpenCSVStream(HttpServletResponse response,
+            ContentCoding coding, List<String> csvFileHeaders) 
+            throws IOException {
+        WriteTimer timer = new WriteTimer(metrics.stage(
+                AppMetricsLocal.EXPORT_WRITE, "OpenCSV"));
+        return new OpenCSVStreamWriter(openWriter(response.getOutputStream(), 
+                response.getCharacterEncoding(), coding, timer), 
+                List.copyOf(csvFileHeaders), timer);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVStreamWriter openOpenCSVStream(OutputStream outputStream,
+            String charset, ContentCoding coding) throws IOException {
+        WriteTimer timer = new WriteTimer(metrics.stage(
+                AppMetricsLocal.EXPORT_WRITE, "OpenCSV"));
+        return new OpenCSVStreamWriter(openWriter(outputStream, charset, coding, timer), 
+                new CSVFileData().getAllowedCSVFileHeaders(), timer);
+    }
+    
+    
+    /* The text of a response is encoded with the response charset, so it is
+     * the same text as the response writer would send. The bytes written to 
+     * the output (after the compression) are counted by the timer.
+     */
+    private PrintWriter openWriter(OutputStream outputStream, String charset,
+            ContentCoding coding, WriteTimer timer) throws IOException {
+        return new PrintWriter(new OutputStreamWriter(
+                coding.wrap(timer.count(outputStream)), charset));
+    }
+    
+    
+    private void writeRecords(CSVFileData csvFileData, CSVStreamWriter writer) 
+            throws IOException {
+        try {
+            for (Map<String, String> record 
+                    : csvFileData.getRecordListWithCSVFileHeaders()) {
+                writer.accept(record);
+            }
+        } catch (SQLException sqlex) {
+            // Not possible, records are only written to the output.
+            throw new IllegalStateException(sqlex);
+        }
+    }
+    
+    
+    /**
+     * Writes records using Apache Commons CSV library.
+     */
+    private static class CommonsCSVStreamWriter implements CSVStreamWriter {
+        
+        private final List<String> csvFileHeaders;
+        private final PrintWriter printWriter;
+        private final CSVPrinter printer;
+        private final WriteTimer timer;
 
-            ArrayList<String> csvFileHeaders = csvFileData
-                    .getAllowedCSVFileHeaders();
-            List<Map<String, String>> recordList = csvFileData
-                    .getRecordListWithCSVFileHeaders();         
+        CommonsCSVStreamWriter(PrintWriter printWriter, 
+                List<String> csvFileHeaders, WriteTimer timer) 
+                throws IOException {
+            this.csvFileHeaders = csvFileHeaders;
+            this.printWriter = printWriter;
+            this.timer = timer;
             
-            // writing headers first.
-            String[] headers = {csvFileHeaders.get(0),
-                csvFileHeaders.get(1)};
-            writer.writeNext(headers);
+            CSVFormat csvFormat = CSVFormat.EXCEL;
+            CSVFormat.Builder csvFormatBuilder = csvFormat.builder();
+            csvFormatBuilder.setDelimiter(';');
+            csvFormatBuilder.setHeader(csvFileHeaders.toArray(new String[0]));
+            try {
+                this.printer = new CSVPrinter(printWriter, 
+                        csvFormatBuilder.build());
+            } catch (IOException ioex) {
+                throw new IOException("[AppCSVWriter] Data writing error: "
+                        + ioex.getMessage());
+            }
+        }
+        
+        @Override
+        public void accept(Map<String, String> record) throws IOException {
+            long start = System.nanoTime();
+            try {
+                for (String csvFileHeader : csvFileHeaders) {
+                    printer.print(record.get(csvFileHeader));
+                }
+                printer.println();
+            } catch (IOException ioex) {
+                throw new IOException("[AppCSVWriter] Data writing error: "
+                        + ioex.getMessage());
+            } finally {
+                timer.recordWritten(start);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            long start = System.nanoTime();
+            try (CSVPrinter csvPrinter = printer) {
+                csvPrinter.flush();
+            } catch (IOException ioex) {
+                throw new IOException("[AppCSVWriter] Data writing error: "
+                        + ioex.getMessage());
+            } finally {
+                // Closed by the library writer as well, closing it again is
+                // harmless.
+                printWriter.close();
+                timer.stop(start);
+            }
+        }
+    }
+    
+    
+    /**
+     * Writes records using OpenCSV library.
+     */
+    private static class OpenCSVStreamWriter implements CSVStreamWriter {
+        
+        private final List<String> csvFileHeaders;
+        private final PrintWriter printWriter;
+        private final CSVWriter writer;
+        private final String[] values;
+        private final WriteTimer timer;
 
+        OpenCSVStreamWriter(PrintWriter printWriter, 
+                List<String> csvFileHeaders, WriteTimer timer) {
+            this.csvFileHeaders = csvFileHeaders;
+            this.printWriter = printWriter;
+            this.timer = timer;
+            this.writer = new CSVWriter(printWriter, ';',
+                    CSVWriter.NO_QUOTE_CHARACTER,
+                    CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                    CSVWriter.DEFAULT_LINE_END);
+            this.values = new String[csvFileHeaders.size()];
+            
+            // writing headers first.
+            writer.writeNext(csvFileHeaders.toArray(new String[0]));
+        }
+        
+        @Override
+        public void accept(Map<String, String> record) throws IOException {
+            long start = System.nanoTime();
             // then writing values of each record one by one.
-            for (Map<String, String> record : recordList) {
-                String[] values = {record.get(csvFileHeaders.get(0)),
-                    record.get(csvFileHeaders.get(1))};
-                writer.writeNext(values);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = record.get(csvFileHeaders.get(i));
+            }
+            writer.writeNext(values);
+            timer.recordWritten(start);
+            if (writer.checkError()) {
+                throw new IOException("[AppCSVWriter] Data writing error.");
             }
-            writer.flush();
+        }
 
-        } catch (IOException ioex) {
-            throw new IOException("[AppCSVWriter] Data writing error: "
-                    + ioex.getMessage());
+        @Override
+        public void close() throws IOException {
+            long start = System.nanoTime();
+            try (CSVWriter csvWriter = writer) {
+                csvWriter.flush();
+            } catch (IOException ioex) {
+                throw new IOException("[AppCSVWriter] Data writing error: "
+                        + ioex.getMessage());
+            } finally {
+                // Closed by the library writer as well, closing it again is
+                // harmless.
+                printWriter.close();
+                timer.stop(start);
+            }
+        }
+    }
+    
+    
+    /**
+     * Measures the time spent writing the records of one download and counts
+     * the bytes sent to the client, the download is recorded as one execution
+     * of the "export_write" stage when the writer is closed.
+     */
+    private static class WriteTimer {
+        
+        private final StageMetrics stage;
+        private long writeNanos = 0;
+        private long recordCount = 0;
+        private long byteCount = 0;
+        
+        WriteTimer(StageMetrics stage) {
+            this.stage = stage;
+        }
+        
+        OutputStream count(OutputStream outputStream) {
+            return new FilterOutputStream(outputStream) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    byteCount++;
+                }
+                
+                @Override
+                public void write(byte[] b, int off, int len) 
+                        throws IOException {
+                    out.write(b, off, len);
+                    byteCount += len;
+                }
+            };
+        }
+        
+        void recordWritten(long start) {
+            writeNanos += System.nanoTime() - start;
+            recordCount++;
+        }
+        
+        void stop(long closeStart) {
+            writeNanos += System.nanoTime() - closeStart;
+            stage.observe(writeNanos, recordCount, byteCount);
         }
     }
 }
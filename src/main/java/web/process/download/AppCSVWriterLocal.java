@@ -3,6 +3,8 @@ package web.process.download;
 import jakarta.ejb.Local;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 import web.process.csvdata.CSVFileData;
 
 /**
@@ -39,4 +41,128 @@ public interface AppCSVWriterLocal {
      */
     public void writeWithOpenCSV(CSVFileData csvFileData, 
             HttpServletResponse response) throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Apache Commons libraries to 
+     * write each received csv-data record into the text-output stream 
+     * associated with the HTTP Servlet response right away, so the csv-data 
+     * is never kept in memory as a whole. The header record is written first.
+     * 
+     * @param response HTTP Servlet response to write the output stream.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openCommonsCSVStream(HttpServletResponse response) 
+            throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Apache Commons libraries to 
+     * write each received csv-data record into the output stream associated 
+     * with the HTTP Servlet response right away, compressing the data with
+     * the given coding as it is written. The caller sets the response headers
+     * describing the compression.
+     * 
+     * @param response HTTP Servlet response to write the output stream.
+     * @param coding compression of the written data.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openCommonsCSVStream(HttpServletResponse response,
+            ContentCoding coding) throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Apache Commons libraries to 
+     * write the given CSV File headers of each received csv-data record (see
+     * {@link #openCommonsCSVStream(HttpServletResponse, ContentCoding)}), e.g. 
+     * of a download of some of the columns.
+     * 
+     * @param response HTTP Servlet response to write the output stream.
+     * @param coding compression of the written data.
+     * @param csvFileHeaders CSV File headers written in the header record and
+     * of each record.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openCommonsCSVStream(HttpServletResponse response,
+            ContentCoding coding, List<String> csvFileHeaders) 
+            throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Apache Commons libraries to 
+     * write each received csv-data record into the given output stream (e.g.
+     * of an export snapshot file), the text is encoded with the charset and 
+     * compressed with the coding the same way as the text written to an HTTP
+     * Servlet response with this charset.
+     * 
+     * @param outputStream output stream to write the csv-data to, closed 
+     * together with the writer.
+     * @param charset name of the charset of the text.
+     * @param coding compression of the written data.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openCommonsCSVStream(OutputStream outputStream,
+            String charset, ContentCoding coding) throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Open CSV library to write 
+     * each received csv-data record into the text-output stream associated 
+     * with the HTTP Servlet response right away, so the csv-data is never kept
+     * in memory as a whole. The header record is written first.
+     * 
+     * @param response HTTP Servlet response to write the output stream.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openOpenCSVStream(HttpServletResponse response) 
+            throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Open CSV library to write 
+     * each received csv-data record into the output stream associated with 
+     * the HTTP Servlet response right away, compressing the data with the 
+     * given coding as it is written. The caller sets the response headers 
+     * describing the compression.
+     * 
+     * @param response HTTP Servlet response to write the output stream.
+     * @param coding compression of the written data.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openOpenCSVStream(HttpServletResponse response,
+            ContentCoding coding) throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Open CSV library to 
+     * write the given CSV File headers of each received csv-data record (see
+     * {@link #openOpenCSVStream(HttpServletResponse, ContentCoding)}), e.g. 
+     * of a download of some of the columns.
+     * 
+     * @param response HTTP Servlet response to write the output stream.
+     * @param coding compression of the written data.
+     * @param csvFileHeaders CSV File headers written in the header record and
+     * of each record.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openOpenCSVStream(HttpServletResponse response,
+            ContentCoding coding, List<String> csvFileHeaders) 
+            throws IOException;
+    
+    /**
+     * This method opens a stream writer that uses Open CSV library to 
+     * write each received csv-data record into the given output stream (e.g.
+     * of an export snapshot file), the text is encoded with the charset and 
+     * compressed with the coding the same way as the text written to an HTTP
+     * Servlet response with this charset.
+     * 
+     * @param outputStream output stream to write the csv-data to, closed 
+     * together with the writer.
+     * @param charset name of the charset of the text.
+     * @param coding compression of the written data.
+     * @return csv-data stream writer, closing it completes the output.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public CSVStreamWriter openOpenCSVStream(OutputStream outputStream,
+            String charset, ContentCoding coding) throws IOException;
 }
@@ -0,0 +1,14 @@
+package web.process.download;
+
+import java.io.Closeable;
+import web.process.csvdata.CSVRecordConsumer;
+
+/**
+ * This interface represents a csv-data writer that writes each received 
+ * record to the output right away. Closing the writer flushes and closes the
+ * output.
+ * 
+ * @author SoundlyGifted
+ */
+public interface CSVStreamWriter extends CSVRecordConsumer, Closeable {
+}
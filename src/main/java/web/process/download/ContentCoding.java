@@ -0,0 +1,110 @@
+package web.process.download;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This Enum defines the compression of the downloaded csv-data (HTTP content
+ * codings). The data is compressed as it is written, nothing is buffered
+ * except the compressor buffer.
+ * 
+ * @author SoundlyGifted
+ */
+public enum ContentCoding {
+    
+    /**
+     * No compression.
+     */
+    IDENTITY("identity"),
+    
+    /**
+     * gzip compression (also the format of ".csv.gz" files).
+     */
+    GZIP("gzip"),
+    
+    /**
+     * zlib (HTTP "deflate") compression.
+     */
+    DEFLATE("deflate");
+    
+    /* Size of the compressor output buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final String name;
+
+    private ContentCoding(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Used to get the name of the coding used in the HTTP headers.
+     * 
+     * @return coding name.
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Wraps the output stream with the compressing stream of the coding, 
+     * closing the returned stream completes the compressed data and closes 
+     * the output stream.
+     * 
+     * @param outputStream stream the compressed data is written to.
+     * @return stream compressing the data written to it.
+     * @throws IOException if the I/O data writing error occured.
+     */
+    public OutputStream wrap(OutputStream outputStream) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            case DEFLATE:
+                return new DeflaterOutputStream(outputStream);
+            default:
+                return outputStream;
+        }
+    }
+    
+    /**
+     * Returns the coding preferred by the client according to the value of the
+     * "Accept-Encoding" request header: gzip if it is accepted, otherwise 
+     * deflate if it is accepted, otherwise identity. Codings with "q=0" are 
+     * not accepted.
+     * 
+     * @param acceptEncoding value of the "Accept-Encoding" request header 
+     * (may be null).
+     * @return the coding of the response.
+     */
+    public static ContentCoding fromAcceptEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return IDENTITY;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String codingName = parameters[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(parameter
+                                .substring(2).trim()) > 0;
+                    } catch (NumberFormatException nfex) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (GZIP.name.equals(codingName) || "x-gzip".equals(codingName)) {
+                gzip = accepted;
+            } else if (DEFLATE.name.equals(codingName)) {
+                deflate = accepted;
+            }
+        }
+        return gzip ? GZIP : deflate ? DEFLATE : IDENTITY;
+    }
+}
@@ -0,0 +1,68 @@
+package web.process.download;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class represents an opened export snapshot file: the csv-data of all
+ * records of one data version of the database table, written once in one 
+ * format (download method, charset and compression) and sent to the clients
+ * directly from the file.
+ * 
+ * The file stays readable through the channel while it is open even if the 
+ * snapshot is replaced by the one of a newer data version.
+ * 
+ * @author SoundlyGifted
+ */
+public class ExportSnapshot implements AutoCloseable {
+    
+    private final FileChannel channel;
+    private final long size;
+    private final long dataVersion;
+    private final String entityTag;
+
+    /**
+     * This constructor creates an ExportSnapshot object.
+     * 
+     * @param channel channel of the opened snapshot file.
+     * @param dataVersion data version of the exported records.
+     * @param name name of the snapshot, unique for the data version and the 
+     * format.
+     * @throws IOException if the size of the file can not be read.
+     */
+    ExportSnapshot(FileChannel channel, long dataVersion, String name) 
+            throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.dataVersion = dataVersion;
+        this.entityTag = "\"" + name + "\"";
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Used to get the strong HTTP entity tag of the snapshot, the same for all
+     * downloads of the same data version of the same database in the same 
+     * format.
+     * 
+     * @return quoted entity tag (ETag header value).
+     */
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,254 @@
+package web.process.download;
+
+import jakarta.ejb.EJB;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import web.process.config.AppConfigProviderLocal;
+import web.process.database.DBDataHandlerLocal;
+
+/**
+ * This EJB is used to provide the export snapshots of the database table 
+ * data, so that repeated downloads of unchanged data are sent from a file 
+ * instead of selecting and writing all records again.
+ *
+ * A snapshot is written to a temporary file and moved to its name once it is
+ * complete, each snapshot is written by one download at a time (the others 
+ * wait for it). A snapshot written while the table was written is discarded,
+ * after several such snapshots the table writes are held until the records
+ * are read. The bean allows concurrent access (READ lock).
+ *
+ * @author SoundlyGifted
+ */
+@Singleton
+@Lock(LockType.READ)
+public class ExportSnapshotProvider implements ExportSnapshotProviderLocal {
+
+    private static final String SNAPSHOT_PREFIX = "content-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    /* Snapshots written without locking the table before it is locked. */
+    private static final int WRITE_ATTEMPTS = 3;
+
+    @EJB
+    private DBDataHandlerLocal databaseHandler;
+
+    @EJB
+    private AppCSVWriterLocal appCSVWriter;
+
+    @EJB
+    private AppConfigProviderLocal configProvider;
+
+    /* Locks of the snapshots being written, mapped to the snapshot names. */
+    private final Map<String, Object> writeLocks = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExportSnapshot openSnapshot(String downloadMethod, String charset,
+            ContentCoding coding) 
+            throws IOException, SQLException, IllegalArgumentException {
+        if (!"CommonsCSV".equals(downloadMethod) 
+                && !"OpenCSV".equals(downloadMethod)) {
+            throw new IllegalArgumentException("[ExportSnapshotProvider] "
+                    + "Provided download method is not supported.");
+        }
+        Path directory = snapshotDirectory();
+        String databaseId = databaseHandler.selectDatabaseId();
+        int attempts = 0;
+        while (true) {
+            long dataVersion = databaseHandler.selectDataVersion();
+            String name = snapshotName(databaseId, dataVersion, 
+                    downloadMethod, charset, coding);
+            Path file = directory.resolve(name + SNAPSHOT_SUFFIX);
+            if (!Files.exists(file)) {
+                if (attempts++ < WRITE_ATTEMPTS) {
+                    if (!writeSnapshot(file, name, databaseId, dataVersion,
+                            downloadMethod, charset, coding)) {
+                        // The data changed while the snapshot was written.
+                        continue;
+                    }
+                } else {
+                    dataVersion = writeLockedSnapshot(directory, databaseId,
+                            downloadMethod, charset, coding);
+                    name = snapshotName(databaseId, dataVersion, 
+                            downloadMethod, charset, coding);
+                    file = directory.resolve(name + SNAPSHOT_SUFFIX);
+                }
+            }
+            try {
+                return new ExportSnapshot(FileChannel.open(file, 
+                        StandardOpenOption.READ), dataVersion, name);
+            } catch (NoSuchFileException nsfex) {
+                /* Deleted by a snapshot of a newer data version written in
+                 * the meantime, the snapshot of the new version is opened.
+                 */
+            }
+        }
+    }
+
+
+    /* Writes the snapshot of the data version without locking the table. The
+     * records are selected while the table can be written, so the snapshot 
+     * is kept only if the data version is still the same after all records
+     * are written (each write to the table commits a new data version). 
+     * Returns false if the snapshot was discarded.
+     */
+    private boolean writeSnapshot(Path file, String name, String databaseId,
+            long dataVersion, String downloadMethod, String charset, 
+            ContentCoding coding) 
+            throws IOException, SQLException {
+        Object lock = writeLocks.computeIfAbsent(name, key -> new Object());
+        try {
+            synchronized (lock) {
+                if (Files.exists(file)) {
+                    // Written by the download that held the lock.
+                    return true;
+                }
+                Path tempFile = Files.createTempFile(file.getParent(), name, 
+                        ".tmp");
+                try {
+                    try (OutputStream out = Files.newOutputStream(tempFile);
+                            CSVStreamWriter writer = openWriter(out, 
+                                    downloadMethod, charset, coding)) {
+                        databaseHandler.selectAll(writer);
+                    }
+                    if (databaseHandler.selectDataVersion() != dataVersion) {
+                        return false;
+                    }
+                    Files.move(tempFile, file, 
+                            StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+        } finally {
+            writeLocks.remove(name, lock);
+        }
+        deleteOlderSnapshots(file.getParent(), databaseId, dataVersion);
+        return true;
+    }
+
+
+    /* Writes the snapshot reading the records and their data version in one
+     * transaction that holds the writes to the table until all records are
+     * read. Used once the table was written during each of the 
+     * WRITE_ATTEMPTS snapshots. Returns the data version of the snapshot.
+     */
+    private long writeLockedSnapshot(Path directory, String databaseId, 
+            String downloadMethod, String charset, ContentCoding coding) 
+            throws IOException, SQLException {
+        Path tempFile = Files.createTempFile(directory, SNAPSHOT_PREFIX, 
+                ".tmp");
+        long dataVersion;
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile);
+                    CSVStreamWriter writer = openWriter(out, downloadMethod, 
+                            charset, coding)) {
+                dataVersion = databaseHandler.selectAllAtVersion(writer);
+            }
+            // A snapshot of the same version has the same content.
+            Files.move(tempFile, directory.resolve(snapshotName(databaseId, 
+                    dataVersion, downloadMethod, charset, coding) 
+                    + SNAPSHOT_SUFFIX), 
+                    StandardCopyOption.ATOMIC_MOVE, 
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        deleteOlderSnapshots(directory, databaseId, dataVersion);
+        return dataVersion;
+    }
+
+
+    private CSVStreamWriter openWriter(OutputStream out, String downloadMethod,
+            String charset, ContentCoding coding) throws IOException {
+        return "OpenCSV".equals(downloadMethod) 
+                ? appCSVWriter.openOpenCSVStream(out, charset, coding)
+                : appCSVWriter.openCommonsCSVStream(out, charset, coding);
+    }
+
+
+    /* The name (and the entity tag) of a snapshot contains the identity of 
+     * the database, the data versions of a database created again start at
+     * the same number.
+     */
+    private String snapshotName(String databaseId, long dataVersion, 
+            String downloadMethod, String charset, ContentCoding coding) {
+        return SNAPSHOT_PREFIX + databaseId + "-" + dataVersion + "-" 
+                + downloadMethod + "-" 
+                + charset.replaceAll("[^A-Za-z0-9._-]", "_") + "-" 
+                + coding.getName();
+    }
+
+
+    /* Deletes the snapshots of the data versions of the database older than
+     * dataVersion and the snapshots of the other databases (e.g. of the 
+     * database created again). A snapshot being sent is still read through 
+     * its open channel (on the platforms that do not allow deleting open 
+     * files it is deleted later).
+     */
+    private void deleteOlderSnapshots(Path directory, String databaseId, 
+            long dataVersion) {
+        String databasePrefix = SNAPSHOT_PREFIX + databaseId + "-";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                try {
+                    if (!fileName.startsWith(databasePrefix)) {
+                        Files.deleteIfExists(file);
+                        continue;
+                    }
+                    int versionEnd = fileName.indexOf('-', 
+                            databasePrefix.length());
+                    if (versionEnd > 0 && Long.parseLong(fileName.substring(
+                            databasePrefix.length(), versionEnd)) 
+                            < dataVersion) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NumberFormatException | IOException ex) {
+                    System.out.println("[ExportSnapshotProvider]: Snapshot '"
+                            + file + "' could not be deleted: " 
+                            + ex.getMessage());
+                }
+            }
+        } catch (IOException ioex) {
+            System.out.println("[ExportSnapshotProvider]: Snapshot directory '"
+                    + directory + "' could not be read: " + ioex.getMessage());
+        }
+    }
+
+
+    /* "export.snapshot.dir" directory, by default a directory in the 
+     * temporary-file directory of the server.
+     */
+    private Path snapshotDirectory() throws IOException {
+        String snapshotDir 
+                = configProvider.getProperty("export.snapshot.dir", "");
+        Path directory = snapshotDir.trim().isEmpty() 
+                ? Paths.get(System.getProperty("java.io.tmpdir"), 
+                        "dbcsvio-export-snapshots")
+                : Paths.get(snapshotDir);
+        try {
+            return Files.createDirectories(directory);
+        } catch (IOException ioex) {
+            throw new IOException("[ExportSnapshotProvider] Could not create "
+                    + "the snapshot directory '" + directory + "'. " 
+                    + ioex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package web.process.download;
+
+import jakarta.ejb.Local;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * This Interface contains method declarations that are used to provide the 
+ * export snapshots of the database table data.
+ * 
+ * @author SoundlyGifted
+ */
+@Local
+public interface ExportSnapshotProviderLocal {
+    
+    /**
+     * Opens the export snapshot of the current data version of the database
+     * table in the given format. The snapshot file is written by the first 
+     * download of the data version in the format (the records are selected 
+     * and written by the download method once), the following downloads read
+     * the file. Snapshot files are kept in the "export.snapshot.dir" 
+     * directory, the files of the older data versions (and of the other 
+     * databases) are deleted once a snapshot of a newer version is written.
+     * 
+     * @param downloadMethod csv-data writing method ("CommonsCSV" or 
+     * "OpenCSV").
+     * @param charset name of the charset of the csv-data text.
+     * @param coding compression of the csv-data.
+     * @return opened export snapshot, must be closed by the caller.
+     * @throws java.io.IOException if the snapshot file can not be written or
+     * read, or if the file containing SQL query can not be found in the 
+     * resource folder or can not be read.
+     * @throws java.sql.SQLException if the connection to the database can not
+     * be established or the SQL query can not be executed.
+     * @throws java.lang.IllegalArgumentException if the download method is 
+     * not supported.
+     */
+    public ExportSnapshot openSnapshot(String downloadMethod, String charset,
+            ContentCoding coding) 
+            throws IOException, SQLException, IllegalArgumentException;
+}
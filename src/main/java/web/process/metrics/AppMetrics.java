@@ -0,0 +1,128 @@
+package web.process.metrics;
+
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This EJB keeps the metrics of the stages of the request processing for the
+ * whole application.
+ *
+ * The stage metrics are kept in a concurrent map and updated without locking,
+ * so the bean does not need the container locking (bean managed concurrency).
+ *
+ * @author SoundlyGifted
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class AppMetrics implements AppMetricsLocal {
+
+    private static final String PREFIX = "dbcsvio_stage_";
+
+    private final Map<String, StageMetrics> stages = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StageMetrics stage(String stage) {
+        return stage(stage, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StageMetrics stage(String stage, String method) {
+        String key = method == null ? stage : stage + "/" + method;
+        return stages.computeIfAbsent(key, 
+                name -> new StageMetrics(stage, method));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toPrometheusText() {
+        List<StageMetrics> sorted = new ArrayList<>(stages.values());
+        sorted.sort(Comparator.comparing(StageMetrics::getStage)
+                .thenComparing(metrics -> String.valueOf(metrics.getMethod())));
+        StringBuilder text = new StringBuilder();
+
+        family(text, "duration_seconds", "histogram", 
+                "Time spent in a stage of the request processing.");
+        for (StageMetrics metrics : sorted) {
+            long[] buckets = metrics.getCumulativeBuckets();
+            for (int i = 0; i < buckets.length; i++) {
+                String bound = i < StageMetrics.BUCKET_BOUNDS.length
+                        ? Double.toString(StageMetrics.BUCKET_BOUNDS[i]) 
+                        : "+Inf";
+                sample(text, "duration_seconds_bucket", metrics, 
+                        ",le=\"" + bound + "\"", Long.toString(buckets[i]));
+            }
+            sample(text, "duration_seconds_sum", metrics, "", 
+                    Double.toString(metrics.getTotalSeconds()));
+            sample(text, "duration_seconds_count", metrics, "", 
+                    Long.toString(metrics.getCount()));
+        }
+
+        family(text, "rows_total", "counter", 
+                "Records processed by a stage.");
+        for (StageMetrics metrics : sorted) {
+            sample(text, "rows_total", metrics, "", 
+                    Long.toString(metrics.getRows()));
+        }
+        family(text, "bytes_total", "counter", 
+                "Bytes processed by a stage.");
+        for (StageMetrics metrics : sorted) {
+            sample(text, "bytes_total", metrics, "", 
+                    Long.toString(metrics.getBytes()));
+        }
+
+        // Throughput of the time spent in the stage (not of the wall time).
+        family(text, "rows_per_second", "gauge", 
+                "Records processed per second spent in a stage.");
+        for (StageMetrics metrics : sorted) {
+            sample(text, "rows_per_second", metrics, "", 
+                    perSecond(metrics.getRows(), metrics));
+        }
+        family(text, "bytes_per_second", "gauge", 
+                "Bytes processed per second spent in a stage.");
+        for (StageMetrics metrics : sorted) {
+            sample(text, "bytes_per_second", metrics, "", 
+                    perSecond(metrics.getBytes(), metrics));
+        }
+        return text.toString();
+    }
+
+
+    private void family(StringBuilder text, String name, String type, 
+            String help) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ')
+                .append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ')
+                .append(type).append('\n');
+    }
+
+
+    private void sample(StringBuilder text, String name, StageMetrics metrics,
+            String extraLabels, String value) {
+        text.append(PREFIX).append(name).append("{stage=\"")
+                .append(metrics.getStage()).append('"');
+        if (metrics.getMethod() != null) {
+            text.append(",method=\"").append(metrics.getMethod()).append('"');
+        }
+        text.append(extraLabels).append("} ").append(value).append('\n');
+    }
+
+
+    private String perSecond(long amount, StageMetrics metrics) {
+        double seconds = metrics.getTotalSeconds();
+        return Double.toString(seconds > 0 ? amount / seconds : 0);
+    }
+}
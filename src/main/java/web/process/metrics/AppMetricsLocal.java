@@ -0,0 +1,56 @@
+package web.process.metrics;
+
+import jakarta.ejb.Local;
+
+/**
+ * This interface contains methods to record the duration and the volume of
+ * the stages of the upload, download and clear requests and to expose them
+ * to a monitoring system.
+ *
+ * @author SoundlyGifted
+ */
+@Local
+public interface AppMetricsLocal {
+
+    /**
+     * Stage names used by the application.
+     */
+    public static final String VALIDATE = "validate";
+    public static final String DIGEST = "digest";
+    public static final String PARSE = "parse";
+    public static final String CONVERT = "convert";
+    public static final String EXECUTE_BATCH = "execute_batch";
+    public static final String EXPORT_WRITE = "export_write";
+    public static final String CONNECTION_ACQUIRE = "connection_acquire";
+    public static final String STAGE_FILE = "stage_file";
+    public static final String BULK_IMPORT = "bulk_import";
+    public static final String REQUEST = "request";
+
+    /**
+     * Returns the metrics of a stage, creates them on the first use.
+     *
+     * @param stage name of the stage.
+     * @return metrics of the stage.
+     */
+    public StageMetrics stage(String stage);
+
+    /**
+     * Returns the metrics of a stage executed by a parsing or download
+     * method, creates them on the first use.
+     *
+     * @param stage name of the stage.
+     * @param method name of the method (e.g. "FastCSV").
+     * @return metrics of the stage executed by the method.
+     */
+    public StageMetrics stage(String stage, String method);
+
+    /**
+     * Returns all recorded metrics in the Prometheus text exposition format:
+     * a latency histogram, record and byte counters of each stage and the
+     * records and bytes per second derived from them (the counters divided by
+     * the total time spent in the stage).
+     *
+     * @return metrics in the Prometheus text format (version 0.0.4).
+     */
+    public String toPrometheusText();
+}
@@ -0,0 +1,124 @@
+package web.process.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histogram of one stage of the request processing (e.g.
+ * parsing of the csv-file by one parsing method). Each observation is one
+ * execution of the stage with its duration and the number of records and
+ * bytes it processed. The counters are updated concurrently without locking.
+ *
+ * @author SoundlyGifted
+ */
+public final class StageMetrics {
+
+    /* Upper bounds of the histogram buckets in seconds (+Inf not included). */
+    static final double[] BUCKET_BOUNDS = {0.0001, 0.0005, 0.001, 0.005, 0.01,
+        0.05, 0.1, 0.5, 1, 5, 10, 30, 60};
+
+    private static final long[] BUCKET_BOUND_NANOS = new long[BUCKET_BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            BUCKET_BOUND_NANOS[i] = (long) (BUCKET_BOUNDS[i] * 1e9);
+        }
+    }
+
+    private final String stage;
+    private final String method;
+
+    /* Observations of each bucket, the last one is the +Inf bucket. */
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    StageMetrics(String stage, String method) {
+        this.stage = stage;
+        this.method = method;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one execution of the stage.
+     *
+     * @param nanos duration of the execution in nanoseconds.
+     * @param rowCount number of records processed by the execution.
+     * @param byteCount number of bytes processed by the execution.
+     */
+    public void observe(long nanos, long rowCount, long byteCount) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUND_NANOS.length
+                && nanos > BUCKET_BOUND_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (byteCount > 0) {
+            bytes.add(byteCount);
+        }
+    }
+
+    /**
+     * Records one execution of the stage started at the given time.
+     *
+     * @param startNanos System.nanoTime() at the start of the execution.
+     * @param rowCount number of records processed by the execution.
+     * @param byteCount number of bytes processed by the execution.
+     */
+    public void observeSince(long startNanos, long rowCount, long byteCount) {
+        observe(System.nanoTime() - startNanos, rowCount, byteCount);
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * Used to get the parsing or download method the stage was executed by.
+     *
+     * @return name of the method or null if the stage has no methods.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalSeconds() {
+        return totalNanos.sum() / 1e9;
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Used to get the number of the executions not longer than each bucket
+     * bound (cumulative, as reported by Prometheus histograms).
+     *
+     * @return cumulative counts of BUCKET_BOUNDS followed by the +Inf count.
+     */
+    long[] getCumulativeBuckets() {
+        long[] cumulative = new long[buckets.length];
+        long sum = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            sum += buckets[i].sum();
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+}
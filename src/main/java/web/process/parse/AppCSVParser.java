@@ -4,18 +4,36 @@ import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReaderHeaderAware;
 import com.opencsv.CSVReaderHeaderAwareBuilder;
 import com.opencsv.exceptions.CsvValidationException;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
 import jakarta.servlet.http.Part;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.input.BOMInputStream;
+import web.process.config.AppConfigProviderLocal;
 import web.process.csvdata.CSVFileData;
+import web.process.csvdata.CSVRecordConsumer;
+import web.process.metrics.AppMetricsLocal;
+import web.process.metrics.StageMetrics;
 import web.process.parse.exceptions.FileValidationException;
 
 /**
@@ -27,26 +45,80 @@ import web.process.parse.exceptions.FileValidationException;
 @Stateless
 public class AppCSVParser implements AppCSVParserLocal {
     
+    /* Size of the byte buffer the file is read with by FastCSV method. */
+    private static final int FAST_CSV_BUFFER_SIZE = 64 * 1024;
+    
+    /* Content types of the gzip-compressed csv-files (".csv.gz"). */
+    private static final List<String> GZIP_CONTENT_TYPES = List.of(
+            "application/gzip", "application/x-gzip", 
+            "application/x-gzip-compressed");
+    
+    /* Files bigger than this size are spooled to disk and parsed by FastCSV
+     * method from memory-mapped regions.
+     */
+    private static final long DEFAULT_SPOOL_THRESHOLD = 4 * 1024 * 1024;
+    
+    /* Approximate size of the chunks parsed concurrently by ParallelFastCSV
+     * method. Files not bigger than one chunk are parsed by FastCSV method.
+     */
+    private static final long DEFAULT_PARSE_CHUNK_SIZE = 8 * 1024 * 1024;
+    
+    @EJB
+    private AppConfigProviderLocal configProvider;
+    
+    @EJB
+    private AppMetricsLocal metrics;
+    
     /**
      * {@inheritDoc}
      */
     @Override
     public CSVFileData parseWithCommonsCSV(Part filePart) 
             throws FileValidationException, IOException {
-        validateFile(filePart);
         /* Collection to keep records from csv-file.
          * Each record is a Map with a csv table values mapped to 
          * the csv table headers (Map<String, String>).
          */
         CSVFileData csvFileData = new CSVFileData();
+        try {
+            parseWithCommonsCSV(filePart, csvFileData::addRecord);
+        } catch (SQLException sqlex) {
+            // Not possible, records are only collected in memory.
+            throw new IllegalStateException(sqlex);
+        }
+        return csvFileData;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int parseWithCommonsCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws FileValidationException, IOException, SQLException {
+        ParsingTimer timer = new ParsingTimer(consumer);
+        try {
+            return readWithCommonsCSV(filePart, timer);
+        } finally {
+            timer.stop(metrics.stage(AppMetricsLocal.PARSE, "CommonsCSV"), 
+                    filePart);
+        }
+    }
+    
+    
+    private int readWithCommonsCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws FileValidationException, IOException, SQLException {
+        validateFile(filePart);
+        int recordCount = 0;
+        List<String> allowedHeaders 
+                = new CSVFileData().getAllowedCSVFileHeaders();
 
         String charSet = "UTF-8";
         /* Using BOMInputStream class from Apache Commons IO library to deal 
          * with Byte Order Marks (BOM).
          * BOMInputStream is a wrapper class for InputStream. 
          */
-        try (BOMInputStream inputStream = new BOMInputStream(filePart
-                .getInputStream())) {
+        try (BOMInputStream inputStream = new BOMInputStream(
+                openFileStream(filePart))) {
             if (inputStream != null) {
                 try (InputStreamReader inputStreamReader
                         = new InputStreamReader(inputStream, charSet)) {
@@ -67,8 +139,6 @@ public class AppCSVParser implements AppCSVParserLocal {
                          * 1) csv-file is not empty.
                          * 2) actual csv-file headers are the allowed headers.
                          */
-                        List<String> allowedHeaders 
-                                = csvFileData.getAllowedCSVFileHeaders();
                         List<String> actualHeaders 
                                 = new ArrayList<>(csvParser.getHeaderNames());
                         if (actualHeaders.isEmpty() 
@@ -81,11 +151,12 @@ public class AppCSVParser implements AppCSVParserLocal {
                                     + "Selected file has invalid "
                                     + "headers.");
                         }
-                        // Writing CSV data into the CSVFileData object.
+                        // Passing CSV data to the consumer record by record.
                         for (CSVRecord record : csvParser) {
                             rec = record.toMap();
                             if (!rec.isEmpty()) {
-                                csvFileData.addRecord(rec);
+                                consumer.accept(rec);
+                                recordCount++;
                             }
                         }
                     }
@@ -99,7 +170,7 @@ public class AppCSVParser implements AppCSVParserLocal {
             throw new IOException("[AppCSVParser] Selected file can not be "
                     + "read. " + ioex.getMessage());            
         }
-        return csvFileData;
+        return recordCount;
     }
     
     /**
@@ -108,16 +179,48 @@ public class AppCSVParser implements AppCSVParserLocal {
     @Override
     public CSVFileData parseWithOpenCSV(Part filePart) 
             throws FileValidationException, IOException, CsvValidationException {
-        validateFile(filePart);
         /* Collection to keep records from csv-file.
          * Each record is a Map with a csv table values mapped to 
          * the csv table headers (Map<String, String>).
          */
         CSVFileData csvFileData = new CSVFileData();
+        try {
+            parseWithOpenCSV(filePart, csvFileData::addRecord);
+        } catch (SQLException sqlex) {
+            // Not possible, records are only collected in memory.
+            throw new IllegalStateException(sqlex);
+        }
+        return csvFileData;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int parseWithOpenCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws FileValidationException, IOException, CsvValidationException,
+            SQLException {
+        ParsingTimer timer = new ParsingTimer(consumer);
+        try {
+            return readWithOpenCSV(filePart, timer);
+        } finally {
+            timer.stop(metrics.stage(AppMetricsLocal.PARSE, "OpenCSV"), 
+                    filePart);
+        }
+    }
+    
+    
+    private int readWithOpenCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws FileValidationException, IOException, CsvValidationException,
+            SQLException {
+        validateFile(filePart);
+        int recordCount = 0;
+        ArrayList<String> allowedHeaders 
+                = new CSVFileData().getAllowedCSVFileHeaders();
 
         String charSet = "UTF-8";
         try (InputStreamReader inputStreamReader
-                = new InputStreamReader(filePart.getInputStream(), charSet)) {
+                = new InputStreamReader(openFileStream(filePart), charSet)) {
 
             com.opencsv.ICSVParser parser
                     = new CSVParserBuilder().withSeparator(';').build();
@@ -136,8 +239,6 @@ public class AppCSVParser implements AppCSVParserLocal {
                         /* Checking that actual csv-file headers are the 
                          * allowed headers.
                          */
-                        ArrayList<String> allowedHeaders
-                                = csvFileData.getAllowedCSVFileHeaders();
                         List<String> actualHeaders = new LinkedList<>();
                         for (String actualHeader : rec.keySet()) {
                             actualHeaders.add(actualHeader);
@@ -150,10 +251,11 @@ public class AppCSVParser implements AppCSVParserLocal {
                         }
                     }
                     if (!rec.isEmpty()) {
-                        csvFileData.addRecord(rec);
+                        consumer.accept(rec);
+                        recordCount++;
                     }
                 }
-                if (csvFileData.getRecordListWithCSVFileHeaders().isEmpty()) {
+                if (recordCount == 0) {
                     throw new FileValidationException("[AppCSVParser] Provided "
                             + "csv-file is empty or has no data except headers.");
                 }
@@ -167,19 +269,359 @@ public class AppCSVParser implements AppCSVParserLocal {
                     + "or the charset '" + charSet + "' is not supported. " 
                     + ioex.getMessage());
         }
+        return recordCount;
+    }
+    
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVFileData parseWithFastCSV(Part filePart) 
+            throws FileValidationException, IOException {
+        CSVFileData csvFileData = new CSVFileData();
+        try {
+            parseWithFastCSV(filePart, csvFileData::addRecord);
+        } catch (SQLException sqlex) {
+            // Not possible, records are only collected in memory.
+            throw new IllegalStateException(sqlex);
+        }
         return csvFileData;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int parseWithFastCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws FileValidationException, IOException, SQLException {
+        ParsingTimer timer = new ParsingTimer(consumer);
+        try {
+            return readWithFastCSV(filePart, timer);
+        } finally {
+            timer.stop(metrics.stage(AppMetricsLocal.PARSE, "FastCSV"), 
+                    filePart);
+        }
+    }
+    
+    
+    private int readWithFastCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws FileValidationException, IOException, SQLException {
+        validateFile(filePart);
+        FastCSVParser parser = new FastCSVParser(
+                new CSVFileData().getAllowedCSVFileHeaders(), consumer);
+        
+        long spoolThreshold = configProvider.getLongProperty(
+                "upload.spool.threshold.bytes", DEFAULT_SPOOL_THRESHOLD);
+        if (filePart.getSize() > spoolThreshold && !isCompressed(filePart)) {
+            Path spoolFile = getSpoolFile(filePart);
+            try {
+                feedMapped(spoolFile, parser);
+            } finally {
+                releaseSpoolFile(filePart, spoolFile);
+            }
+            return parser.finish();
+        }
+        
+        // The bytes of the file are passed to the parser without decoding.
+        byte[] bytes = new byte[FAST_CSV_BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try (InputStream inputStream = openFileStream(filePart)) {
+            int count;
+            while ((count = inputStream.read(bytes)) != -1) {
+                buffer.position(0).limit(count);
+                parser.feed(buffer);
+            }
+        } catch (IOException ioex) {
+            throw new IOException("[AppCSVParser] Selected file can not be "
+                    + "read. " + ioex.getMessage());
+        }
+        return parser.finish();
+    }
+    
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CSVFileData parseWithParallelFastCSV(Part filePart) 
+            throws IOException, FileValidationException {
+        CSVFileData csvFileData = new CSVFileData();
+        try {
+            parseWithParallelFastCSV(filePart, csvFileData::addRecord);
+        } catch (SQLException sqlex) {
+            // Not possible, records are only collected in memory.
+            throw new IllegalStateException(sqlex);
+        }
+        return csvFileData;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int parseWithParallelFastCSV(Part filePart, 
+            CSVRecordConsumer consumer) 
+            throws IOException, FileValidationException, SQLException {
+        ParsingTimer timer = new ParsingTimer(consumer);
+        try {
+            return readWithParallelFastCSV(filePart, timer);
+        } finally {
+            timer.stop(metrics.stage(AppMetricsLocal.PARSE, 
+                    "ParallelFastCSV"), filePart);
+        }
+    }
+    
+    
+    private int readWithParallelFastCSV(Part filePart, 
+            CSVRecordConsumer consumer) 
+            throws IOException, FileValidationException, SQLException {
+        validateFile(filePart);
+        
+        int parallelism = configProvider.getIntProperty(
+                "upload.parse.parallelism", 0);
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        long chunkSize = Math.min(FastCSVParser.MAPPED_REGION_SIZE, 
+                Math.max(1, configProvider.getLongProperty(
+                        "upload.parse.chunk.bytes", DEFAULT_PARSE_CHUNK_SIZE)));
+        // A compressed file can not be split, it is decompressed as a stream.
+        if (parallelism == 1 || filePart.getSize() <= chunkSize
+                || isCompressed(filePart)) {
+            return readWithFastCSV(filePart, consumer);
+        }
+        
+        Path spoolFile = getSpoolFile(filePart);
+        try (FileChannel channel = FileChannel.open(spoolFile, 
+                StandardOpenOption.READ)) {
+            return new ParallelFastCSVParser(channel, 
+                    new CSVFileData().getAllowedCSVFileHeaders(), parallelism,
+                    chunkSize).parse(consumer);
+        } finally {
+            releaseSpoolFile(filePart, spoolFile);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpooledFilePart spoolFilePart(Part filePart) 
+            throws IOException, FileValidationException {
+        validateFile(filePart);
+        Path spoolFile = spool(filePart);
+        try {
+            return new SpooledFilePart(spoolFile, filePart, 
+                    digest(spoolFile));
+        } catch (IOException | RuntimeException e) {
+            deleteSpoolFile(spoolFile);
+            throw e;
+        }
+    }
+    
+    
+    /* Computes the SHA-256 digest of the spooled file in one sequential pass
+     * over its memory-mapped regions, the file was just written, so it is 
+     * read from the page cache.
+     */
+    private String digest(Path spoolFile) throws IOException {
+        long digestStart = System.nanoTime();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsaex) {
+            // Every Java platform implements SHA-256.
+            throw new IllegalStateException(nsaex);
+        }
+        long size;
+        try (FileChannel channel = FileChannel.open(spoolFile, 
+                StandardOpenOption.READ)) {
+            size = channel.size();
+            for (long position = 0; position < size; 
+                    position += FastCSVParser.MAPPED_REGION_SIZE) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 
+                        position, Math.min(FastCSVParser.MAPPED_REGION_SIZE, 
+                                size - position)));
+            }
+        } catch (IOException ioex) {
+            throw new IOException("[AppCSVParser] Selected file can not be "
+                    + "read. " + ioex.getMessage());
+        }
+        metrics.stage(AppMetricsLocal.DIGEST).observeSince(digestStart, 0, 
+                size);
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+    
+    
+    /* Returns the spool file of an already spooled part, other parts are
+     * spooled to a new file.
+     */
+    private Path getSpoolFile(Part filePart) throws IOException {
+        if (filePart instanceof SpooledFilePart) {
+            return ((SpooledFilePart) filePart).getFile();
+        }
+        return spool(filePart);
+    }
+    
+    
+    /* Deletes the spool file created for parsing, the file of a spooled part
+     * is deleted by its owner.
+     */
+    private void releaseSpoolFile(Part filePart, Path spoolFile) {
+        if (!(filePart instanceof SpooledFilePart)) {
+            deleteSpoolFile(spoolFile);
+        }
+    }
+    
+    
+    /* Stores the uploaded file in the spool directory. Part.write() lets the
+     * container move the file it has already stored on disk instead of 
+     * copying it through the input stream.
+     */
+    private Path spool(Part filePart) throws IOException {
+        Path spoolDir = Paths.get(configProvider.getProperty(
+                "upload.spool.dir", System.getProperty("java.io.tmpdir")));
+        Path spoolFile = spoolDir.toAbsolutePath()
+                .resolve("upload-" + UUID.randomUUID() + ".csv");
+        try {
+            Files.createDirectories(spoolDir);
+            filePart.write(spoolFile.toString());
+        } catch (IOException ioex) {
+            deleteSpoolFile(spoolFile);
+            throw new IOException("[AppCSVParser] Selected file can not be "
+                    + "stored in the spool directory '" + spoolDir + "'. " 
+                    + ioex.getMessage());
+        }
+        return spoolFile;
+    }
+    
+    
+    /* Passes the file to the parser as memory-mapped regions, so the file
+     * bytes are read by the parser straight from the page cache.
+     */
+    private void feedMapped(Path file, FastCSVParser parser) 
+            throws IOException, SQLException, FileValidationException {
+        try (FileChannel channel = FileChannel.open(file, 
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; 
+                    position += FastCSVParser.MAPPED_REGION_SIZE) {
+                MappedByteBuffer region = channel.map(
+                        FileChannel.MapMode.READ_ONLY, position, 
+                        Math.min(FastCSVParser.MAPPED_REGION_SIZE, 
+                                size - position));
+                parser.feed(region);
+            }
+        } catch (IOException ioex) {
+            throw new IOException("[AppCSVParser] Selected file can not be "
+                    + "read. " + ioex.getMessage());
+        }
+    }
+    
+    
+    private void deleteSpoolFile(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException ioex) {
+            System.out.println("[AppCSVParser]: Spool file '" + spoolFile 
+                    + "' could not be deleted: " + ioex.getMessage());
+        }
+    }
+    
+    
+    /* Opens the file content, gzip-compressed files are decompressed as 
+     * they are read.
+     */
+    private InputStream openFileStream(Part filePart) throws IOException {
+        InputStream inputStream = filePart.getInputStream();
+        if (!isCompressed(filePart)) {
+            return inputStream;
+        }
+        try {
+            return new GZIPInputStream(inputStream, FAST_CSV_BUFFER_SIZE);
+        } catch (IOException ioex) {
+            inputStream.close();
+            throw new IOException("[AppCSVParser] Selected file is not a "
+                    + "gzip-compressed csv-file.");
+        }
+    }
+    
+    
+    /* Browsers send ".gz" files with various content types, so the file 
+     * name is checked as well.
+     */
+    private boolean isCompressed(Part filePart) {
+        String contentType = filePart.getContentType();
+        String fileName = filePart.getSubmittedFileName();
+        return GZIP_CONTENT_TYPES.contains(contentType) 
+                || (fileName != null 
+                        && fileName.toLowerCase().endsWith(".csv.gz"));
+    }
+    
     
     private void validateFile(Part filePart) throws FileValidationException {
+        long start = System.nanoTime();
+        try {
+            checkFile(filePart);
+        } finally {
+            metrics.stage(AppMetricsLocal.VALIDATE).observeSince(start, 0, 
+                    filePart != null ? filePart.getSize() : 0);
+        }
+    }
+    
+    
+    private void checkFile(Part filePart) throws FileValidationException {
         String filePartContentType = null;
         if (filePart != null) {
             filePartContentType = filePart.getContentType();
         }
         if (filePart == null || filePartContentType == null 
-                || !filePart.getContentType().equals("text/csv")) {
+                || !(filePart.getContentType().equals("text/csv") 
+                        || isCompressed(filePart))) {
             throw new FileValidationException("[AppCSVParser] No proper csv-file "
                     + "selected");
         }
     }
+    
+    
+    /**
+     * Passes the parsed records to the consumer and measures the time spent
+     * by the consumer, so that the parsing time does not include the
+     * processing of the records (e.g. the insert of a streaming upload).
+     */
+    private static class ParsingTimer implements CSVRecordConsumer {
+        
+        private final CSVRecordConsumer consumer;
+        private final long startTime = System.nanoTime();
+        private long consumerNanos = 0;
+        private long recordCount = 0;
+
+        ParsingTimer(CSVRecordConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(Map<String, String> record) 
+                throws IOException, SQLException {
+            long start = System.nanoTime();
+            try {
+                consumer.accept(record);
+            } finally {
+                consumerNanos += System.nanoTime() - start;
+                recordCount++;
+            }
+        }
+        
+        /* Records the parsing, also of a file that failed to parse. */
+        void stop(StageMetrics stage, Part filePart) {
+            stage.observe(System.nanoTime() - startTime - consumerNanos, 
+                    recordCount, filePart != null ? filePart.getSize() : 0);
+        }
+    }
 }
@@ -4,12 +4,17 @@ import com.opencsv.exceptions.CsvValidationException;
 import jakarta.ejb.Local;
 import jakarta.servlet.http.Part;
 import java.io.IOException;
+import java.sql.SQLException;
 import web.process.csvdata.CSVFileData;
+import web.process.csvdata.CSVRecordConsumer;
 import web.process.parse.exceptions.FileValidationException;
 
 /**
  * This Interface contains method declarations that are used to parse a csv-file.
  * 
+ * A gzip-compressed csv-file (".csv.gz" file or "application/gzip" content 
+ * type) is decompressed while it is parsed.
+ * 
  * @author SoundlyGifted
  */
 @Local
@@ -29,6 +34,25 @@ public interface AppCSVParserLocal {
     public CSVFileData parseWithCommonsCSV(Part filePart) 
             throws IOException, FileValidationException;
     
+    /**
+     * This method parses csv-file using Apache Commons libraries and passes 
+     * each parsed record to the consumer as soon as it is read, so that the 
+     * csv-file data is never kept in memory as a whole.
+     * 
+     * @param filePart file part received within a multipart/form-data POST 
+     * request.
+     * @param consumer consumer receiving the parsed records one by one.
+     * @return number of records passed to the consumer.
+     * @throws IOException if the selected file can not be read or used charset
+     * is not supported.
+     * @throws web.process.parse.exceptions.FileValidationException if no proper
+     * csv-file was provided.
+     * @throws java.sql.SQLException if the consumer could not pass a record 
+     * to the database.
+     */
+    public int parseWithCommonsCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws IOException, FileValidationException, SQLException;
+    
     /**
      * This method parses csv-file using OpenCSV library.
      * 
@@ -44,4 +68,117 @@ public interface AppCSVParserLocal {
      */
     public CSVFileData parseWithOpenCSV(Part filePart)
             throws FileValidationException, IOException, CsvValidationException;
+    
+    /**
+     * This method parses csv-file using OpenCSV library and passes each parsed
+     * record to the consumer as soon as it is read, so that the csv-file data 
+     * is never kept in memory as a whole.
+     * 
+     * @param filePart file part received within a multipart/form-data POST 
+     * request.
+     * @param consumer consumer receiving the parsed records one by one.
+     * @return number of records passed to the consumer.
+     * @throws web.process.parse.exceptions.FileValidationException if no proper
+     * csv-file was provided.
+     * @throws IOException if the selected file can not be read or used charset
+     * is not supported.
+     * @throws com.opencsv.exceptions.CsvValidationException if the file 
+     * contains invalid values.
+     * @throws java.sql.SQLException if the consumer could not pass a record 
+     * to the database.
+     */
+    public int parseWithOpenCSV(Part filePart, CSVRecordConsumer consumer)
+            throws FileValidationException, IOException, CsvValidationException,
+            SQLException;
+    
+    /**
+     * This method parses csv-file using the built-in byte-level parser 
+     * (FastCSV) that reads the file bytes without character decoding and 
+     * creates Strings only for the parsed values.
+     * 
+     * @param filePart file part received within a multipart/form-data POST 
+     * request.
+     * @return CSVFileData object that contains parsed csv-file data.
+     * @throws IOException if the selected file can not be read.
+     * @throws web.process.parse.exceptions.FileValidationException if no proper
+     * csv-file was provided.
+     */
+    public CSVFileData parseWithFastCSV(Part filePart) 
+            throws IOException, FileValidationException;
+    
+    /**
+     * This method parses csv-file using the built-in byte-level parser 
+     * (FastCSV) and passes each parsed record to the consumer as soon as it is
+     * read, so that the csv-file data is never kept in memory as a whole. 
+     * Files bigger than "upload.spool.threshold.bytes" are stored in 
+     * "upload.spool.dir" first and parsed from the memory-mapped file.
+     * 
+     * @param filePart file part received within a multipart/form-data POST 
+     * request.
+     * @param consumer consumer receiving the parsed records one by one.
+     * @return number of records passed to the consumer.
+     * @throws IOException if the selected file can not be read.
+     * @throws web.process.parse.exceptions.FileValidationException if no proper
+     * csv-file was provided.
+     * @throws java.sql.SQLException if the consumer could not pass a record 
+     * to the database.
+     */
+    public int parseWithFastCSV(Part filePart, CSVRecordConsumer consumer) 
+            throws IOException, FileValidationException, SQLException;
+    
+    /**
+     * This method parses csv-file using several FastCSV parsers concurrently.
+     * The file is stored in "upload.spool.dir", split into chunks of about 
+     * "upload.parse.chunk.bytes" at the record boundaries and the chunks are 
+     * parsed by "upload.parse.parallelism" threads (the number of available 
+     * processors by default). Files not bigger than one chunk are parsed by 
+     * FastCSV method.
+     * 
+     * @param filePart file part received within a multipart/form-data POST 
+     * request.
+     * @return CSVFileData object that contains parsed csv-file data.
+     * @throws IOException if the selected file can not be read.
+     * @throws web.process.parse.exceptions.FileValidationException if no proper
+     * csv-file was provided.
+     */
+    public CSVFileData parseWithParallelFastCSV(Part filePart) 
+            throws IOException, FileValidationException;
+    
+    /**
+     * This method parses csv-file using several FastCSV parsers concurrently
+     * (see {@link #parseWithParallelFastCSV(Part)}) and passes the parsed 
+     * records to the consumer in the order of the file. Validation errors
+     * report the line numbers of the file.
+     * 
+     * @param filePart file part received within a multipart/form-data POST 
+     * request.
+     * @param consumer consumer receiving the parsed records one by one.
+     * @return number of records passed to the consumer.
+     * @throws IOException if the selected file can not be read.
+     * @throws web.process.parse.exceptions.FileValidationException if no proper
+     * csv-file was provided.
+     * @throws java.sql.SQLException if the consumer could not pass a record 
+     * to the database.
+     */
+    public int parseWithParallelFastCSV(Part filePart, 
+            CSVRecordConsumer consumer) 
+            throws IOException, FileValidationException, SQLException;
+    
+    /**
+     * This method stores the csv-file in "upload.spool.dir", so that it can 
+     * be parsed after the request is completed. The returned part is parsed 
+     * by all parsing methods and is not removed by them, the owner of the 
+     * part removes the spool file by calling Part.delete(). The SHA-256 
+     * digest of the stored file is computed once, it is provided by the 
+     * returned part.
+     * 
+     * @param filePart file part received within a multipart/form-data POST 
+     * request.
+     * @return file part stored in the spool directory.
+     * @throws IOException if the selected file can not be stored.
+     * @throws web.process.parse.exceptions.FileValidationException if no proper
+     * csv-file was provided.
+     */
+    public SpooledFilePart spoolFilePart(Part filePart) 
+            throws IOException, FileValidationException;
 }
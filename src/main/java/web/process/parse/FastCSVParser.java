@@ -0,0 +1,298 @@
+package web.process.parse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import web.process.csvdata.CSVRecordConsumer;
+import web.process.parse.exceptions.FileValidationException;
+
+/**
+ * Byte-level csv-file parser ("FastCSV" parsing method). The parser scans the
+ * UTF-8 bytes of the file directly for the ';' delimiter, '"' quotes and line
+ * ends, the bytes of a record are kept in a reusable buffer and are decoded
+ * into Strings only when the record is passed to the consumer.
+ *
+ * The bytes are fed to the parser in buffers of any size (a record may span
+ * several buffers), finish() must be called after the last buffer. The csv
+ * format is the one of the other parsing methods (Excel format with ';'
+ * delimiter and a header record): a leading UTF-8 BOM is skipped, a field
+ * starting with a quote is a quoted field where "" is a quote, lines end with
+ * LF, CRLF or CR, blank lines are skipped.
+ *
+ * @author SoundlyGifted
+ */
+final class FastCSVParser {
+
+    /* Maximum size of a memory-mapped region of a file fed to the parser. */
+    static final long MAPPED_REGION_SIZE = 1024 * 1024 * 1024;
+
+    private static final byte DELIMITER = ';';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final List<String> allowedHeaders;
+    private final CSVRecordConsumer consumer;
+
+    private List<String> headers;
+    private int state = FIELD_START;
+    private boolean skipLF = false;
+    private boolean previousCR = false;
+    private int bomPosition = 0;
+
+    /* Bytes of the current record fields and the end of each field. */
+    private byte[] recordBytes = new byte[1024];
+    private int recordLength = 0;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+
+    /* Line numbers for the error messages (1-based). */
+    private long line = 1;
+    private long recordStartLine = 1;
+    private int recordCount = 0;
+
+    /**
+     * Creates a parser of a csv-file with the given allowed headers.
+     *
+     * @param allowedHeaders headers the csv-file must have.
+     * @param consumer consumer receiving the parsed records one by one.
+     */
+    FastCSVParser(List<String> allowedHeaders, CSVRecordConsumer consumer) {
+        this.allowedHeaders = allowedHeaders;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Creates a parser of a part of a csv-file that starts at a record
+     * boundary after the header record, so the part contains records only.
+     * The line numbers of the error messages start at the given line.
+     *
+     * @param headers headers of the csv-file.
+     * @param firstLine number of the first line of the part in the csv-file.
+     * @param consumer consumer receiving the parsed records one by one.
+     * @return parser of the records.
+     */
+    static FastCSVParser forRecordsOnly(List<String> headers, long firstLine,
+            CSVRecordConsumer consumer) {
+        FastCSVParser parser = new FastCSVParser(headers, consumer);
+        parser.headers = List.copyOf(headers);
+        parser.bomPosition = BOM.length;
+        parser.line = firstLine;
+        parser.recordStartLine = firstLine;
+        return parser;
+    }
+
+    /**
+     * Parses the bytes between the position and the limit of the buffer,
+     * passes each completed record to the consumer. The buffer position is
+     * moved to its limit.
+     *
+     * @param buffer bytes of the csv-file following the previously fed bytes.
+     * @throws IOException if the consumer could not write a record.
+     * @throws SQLException if the consumer could not pass a record to the
+     * database.
+     * @throws FileValidationException if the csv-file has invalid headers or
+     * an invalid quoted field.
+     */
+    void feed(ByteBuffer buffer)
+            throws IOException, SQLException, FileValidationException {
+        int i = buffer.position();
+        int end = buffer.limit();
+
+        // Skipping UTF-8 Byte Order Mark at the beginning of the file.
+        while (bomPosition < BOM.length && i < end) {
+            if (buffer.get(i) == BOM[bomPosition]) {
+                bomPosition++;
+                i++;
+            } else {
+                if (bomPosition > 0) {
+                    // Not a BOM, the bytes already skipped are data.
+                    for (int j = 0; j < bomPosition; j++) {
+                        parseByte(BOM[j]);
+                    }
+                }
+                bomPosition = BOM.length;
+            }
+        }
+
+        for (; i < end; i++) {
+            parseByte(buffer.get(i));
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * Completes parsing after the last fed bytes.
+     *
+     * @return number of records passed to the consumer.
+     * @throws IOException if the consumer could not write a record.
+     * @throws SQLException if the consumer could not pass a record to the
+     * database.
+     * @throws FileValidationException if the csv-file is empty, has invalid
+     * headers or ends within a quoted field.
+     */
+    int finish() throws IOException, SQLException, FileValidationException {
+        if (state == QUOTED) {
+            throw new FileValidationException("[AppCSVParser] Line "
+                    + recordStartLine + ": quoted value is not closed "
+                    + "before the end of the file.");
+        }
+        if (state != FIELD_START || fieldCount > 0) {
+            endRecord();
+        }
+        if (headers == null) {
+            throw new FileValidationException("[AppCSVParser] "
+                    + "Provided csv-file is empty.");
+        }
+        return recordCount;
+    }
+
+
+    private void parseByte(byte b)
+            throws IOException, SQLException, FileValidationException {
+        if (skipLF) {
+            skipLF = false;
+            if (b == LF) {
+                return;
+            }
+        }
+        switch (state) {
+            case FIELD_START:
+                if (b == QUOTE) {
+                    state = QUOTED;
+                } else if (b == DELIMITER) {
+                    endField();
+                } else if (b == LF || b == CR) {
+                    endLine(b);
+                } else {
+                    append(b);
+                    state = UNQUOTED;
+                }
+                break;
+            case UNQUOTED:
+                if (b == DELIMITER) {
+                    endField();
+                    state = FIELD_START;
+                } else if (b == LF || b == CR) {
+                    endLine(b);
+                } else {
+                    append(b);
+                }
+                break;
+            case QUOTED:
+                if (b == QUOTE) {
+                    previousCR = false;
+                    state = QUOTE_IN_QUOTED;
+                } else {
+                    // Counting line ends within the quoted value (CRLF once).
+                    if (b == CR || (b == LF && !previousCR)) {
+                        line++;
+                    }
+                    previousCR = b == CR;
+                    append(b);
+                }
+                break;
+            case QUOTE_IN_QUOTED:
+                if (b == QUOTE) {
+                    // Escaped quote within a quoted field.
+                    append(b);
+                    state = QUOTED;
+                } else if (b == DELIMITER) {
+                    endField();
+                    state = FIELD_START;
+                } else if (b == LF || b == CR) {
+                    endLine(b);
+                } else {
+                    throw new FileValidationException("[AppCSVParser] Line "
+                            + line + ": invalid character after the closing "
+                            + "quote of a quoted value.");
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown parser state "
+                        + state);
+        }
+    }
+
+    private void append(byte b) {
+        if (recordLength == recordBytes.length) {
+            recordBytes = Arrays.copyOf(recordBytes, recordBytes.length * 2);
+        }
+        recordBytes[recordLength++] = b;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        }
+        fieldEnds[fieldCount++] = recordLength;
+    }
+
+    private void endLine(byte b)
+            throws IOException, SQLException, FileValidationException {
+        skipLF = b == CR;
+        boolean blankLine = state == FIELD_START && fieldCount == 0;
+        if (!blankLine) {
+            endRecord();
+        }
+        line++;
+        recordStartLine = line;
+    }
+
+    private void endRecord()
+            throws IOException, SQLException, FileValidationException {
+        endField();
+        if (headers == null) {
+            readHeaders();
+        } else {
+            int valueCount = Math.min(fieldCount, headers.size());
+            Map<String, String> record = new LinkedHashMap<>(headers.size() * 2);
+            int fieldStart = 0;
+            for (int i = 0; i < valueCount; i++) {
+                record.put(headers.get(i), new String(recordBytes, fieldStart,
+                        fieldEnds[i] - fieldStart, StandardCharsets.UTF_8));
+                fieldStart = fieldEnds[i];
+            }
+            consumer.accept(record);
+            recordCount++;
+        }
+        recordLength = 0;
+        fieldCount = 0;
+        state = FIELD_START;
+    }
+
+    private void readHeaders() throws FileValidationException {
+        List<String> actualHeaders = new ArrayList<>(fieldCount);
+        int fieldStart = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            actualHeaders.add(new String(recordBytes, fieldStart,
+                    fieldEnds[i] - fieldStart, StandardCharsets.UTF_8));
+            fieldStart = fieldEnds[i];
+        }
+        /* Checking that:
+         * 1) csv-file is not empty.
+         * 2) actual csv-file headers are the allowed headers.
+         */
+        if (actualHeaders.stream().allMatch(x -> x.isEmpty())) {
+            throw new FileValidationException("[AppCSVParser] "
+                    + "Provided csv-file is empty.");
+        }
+        if (!actualHeaders.equals(allowedHeaders)) {
+            throw new FileValidationException("[AppCSVParser] "
+                    + "Selected file has invalid headers.");
+        }
+        headers = List.copyOf(actualHeaders);
+    }
+}
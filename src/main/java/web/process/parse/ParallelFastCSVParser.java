@@ -0,0 +1,312 @@
+package web.process.parse;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import web.process.csvdata.CSVRecordConsumer;
+import web.process.parse.exceptions.FileValidationException;
+
+/**
+ * Parallel FastCSV parser of a csv-file stored on disk ("ParallelFastCSV"
+ * parsing method).
+ *
+ * The file is first scanned once for the record boundaries (taking the quoted
+ * values with line ends into account) and split into chunks of about the
+ * configured size, each chunk starting at a record and knowing the number of
+ * its first line. The chunks are then parsed concurrently by FastCSVParser
+ * instances on a fork-join pool from memory-mapped regions of the file. The
+ * records of the chunks are passed to the consumer on the calling thread in
+ * the original order of the file, at most two chunks per thread are kept in
+ * memory at a time.
+ *
+ * @author SoundlyGifted
+ */
+final class ParallelFastCSVParser {
+
+    private static final byte DELIMITER = ';';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final FileChannel channel;
+    private final List<String> allowedHeaders;
+    private final int parallelism;
+    private final long chunkBytes;
+
+    /**
+     * Creates a parser of the csv-file read from the channel.
+     *
+     * @param channel channel of the csv-file.
+     * @param allowedHeaders headers the csv-file must have.
+     * @param parallelism number of chunks parsed concurrently.
+     * @param chunkBytes approximate size of a chunk in bytes.
+     */
+    ParallelFastCSVParser(FileChannel channel, List<String> allowedHeaders,
+            int parallelism, long chunkBytes) {
+        this.channel = channel;
+        this.allowedHeaders = allowedHeaders;
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Parses the csv-file and passes the records to the consumer in the order
+     * of the file. If the file is not valid, the error of the first invalid
+     * line of the file is thrown.
+     *
+     * @param consumer consumer receiving the parsed records one by one.
+     * @return number of records passed to the consumer.
+     * @throws IOException if the file can not be read or the consumer could
+     * not write a record.
+     * @throws SQLException if the consumer could not pass a record to the
+     * database.
+     * @throws FileValidationException if the csv-file is empty, has invalid
+     * headers or an invalid quoted value.
+     */
+    int parse(CSVRecordConsumer consumer)
+            throws IOException, SQLException, FileValidationException {
+        List<Chunk> chunks = split();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Deque<ForkJoinTask<ParsedChunk>> parsing = new ArrayDeque<>();
+            int nextChunk = 0;
+            int recordCount = 0;
+            while (nextChunk < chunks.size() || !parsing.isEmpty()) {
+                while (nextChunk < chunks.size()
+                        && parsing.size() < parallelism * 2) {
+                    parsing.add(pool.submit(parseTask(chunks.get(nextChunk++))));
+                }
+                ParsedChunk parsed = join(parsing.poll());
+                for (Map<String, String> record : parsed.records) {
+                    consumer.accept(record);
+                    recordCount++;
+                }
+                // The records before the invalid line are passed as well.
+                if (parsed.error != null) {
+                    throw parsed.error;
+                }
+            }
+            return recordCount;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    private Callable<ParsedChunk> parseTask(Chunk chunk) {
+        return () -> {
+            ParsedChunk parsed = new ParsedChunk();
+            FastCSVParser parser = chunk.index == 0
+                    ? new FastCSVParser(allowedHeaders, parsed.records::add)
+                    : FastCSVParser.forRecordsOnly(allowedHeaders,
+                            chunk.firstLine, parsed.records::add);
+            try {
+                for (long position = chunk.start; position < chunk.end;
+                        position += FastCSVParser.MAPPED_REGION_SIZE) {
+                    parser.feed(channel.map(FileChannel.MapMode.READ_ONLY,
+                            position, Math.min(
+                                    FastCSVParser.MAPPED_REGION_SIZE,
+                                    chunk.end - position)));
+                }
+                parser.finish();
+            } catch (FileValidationException fvex) {
+                parsed.error = fvex;
+            }
+            return parsed;
+        };
+    }
+
+
+    private ParsedChunk join(ForkJoinTask<ParsedChunk> task)
+            throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("[AppCSVParser] Parsing of the file was "
+                    + "interrupted.");
+        } catch (ExecutionException eex) {
+            Throwable cause = eex.getCause();
+            /* Fork-join tasks wrap the checked exceptions of the callables
+             * (and once more when rethrown in another thread).
+             */
+            while (cause.getClass() == RuntimeException.class
+                    && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw new IOException("[AppCSVParser] Selected file can not "
+                        + "be read. " + cause.getMessage());
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+
+    /* Scans the file with the state machine of FastCSVParser (without
+     * keeping any values) and cuts it into chunks at the line ends outside
+     * quoted values, once the chunk has reached chunkBytes. The first chunk
+     * always contains the header record.
+     */
+    private List<Chunk> split() throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        long chunkStart = 0;
+        long chunkFirstLine = 1;
+        long line = 1;
+        int state = FIELD_START;
+        byte previous = 0;
+        boolean lineHasContent = false;
+        boolean headerScanned = false;
+        boolean cutAfterCR = false;
+
+        long position = startAfterBOM();
+        while (position < size) {
+            long regionStart = position;
+            MappedByteBuffer region = channel.map(
+                    FileChannel.MapMode.READ_ONLY, regionStart,
+                    Math.min(FastCSVParser.MAPPED_REGION_SIZE,
+                            size - regionStart));
+            int regionSize = region.limit();
+            for (int i = 0; i < regionSize; i++) {
+                byte b = region.get(i);
+                if (cutAfterCR) {
+                    // The chunk ends after the CRLF or CR line end.
+                    cutAfterCR = false;
+                    long end = b == LF ? regionStart + i + 1
+                            : regionStart + i;
+                    chunks.add(new Chunk(chunks.size(), chunkStart, end,
+                            chunkFirstLine));
+                    chunkStart = end;
+                    chunkFirstLine = line;
+                    if (b == LF) {
+                        previous = b;
+                        continue;
+                    }
+                }
+                // Counting the lines the same way as FastCSVParser (CRLF once).
+                if (b == CR || (b == LF && previous != CR)) {
+                    line++;
+                }
+                previous = b;
+
+                boolean lineEnd = false;
+                switch (state) {
+                    case FIELD_START:
+                    case UNQUOTED:
+                        if (b == QUOTE && state == FIELD_START) {
+                            state = QUOTED;
+                        } else if (b == DELIMITER) {
+                            state = FIELD_START;
+                        } else if (b == LF || b == CR) {
+                            lineEnd = true;
+                        } else {
+                            state = UNQUOTED;
+                        }
+                        break;
+                    case QUOTED:
+                        if (b == QUOTE) {
+                            state = QUOTE_IN_QUOTED;
+                        }
+                        break;
+                    default:
+                        if (b == QUOTE) {
+                            state = QUOTED;
+                        } else if (b == DELIMITER) {
+                            state = FIELD_START;
+                        } else if (b == LF || b == CR) {
+                            lineEnd = true;
+                        } else {
+                            // Invalid value, reported by the chunk parser.
+                            state = UNQUOTED;
+                        }
+                }
+                if (!lineEnd) {
+                    lineHasContent = true;
+                    continue;
+                }
+
+                state = FIELD_START;
+                headerScanned |= lineHasContent;
+                lineHasContent = false;
+                long end = regionStart + i + 1;
+                if (headerScanned && end - chunkStart >= chunkBytes) {
+                    if (b == CR) {
+                        cutAfterCR = true;
+                    } else {
+                        chunks.add(new Chunk(chunks.size(), chunkStart, end,
+                                chunkFirstLine));
+                        chunkStart = end;
+                        chunkFirstLine = line;
+                    }
+                }
+            }
+            position += regionSize;
+        }
+        if (chunkStart < size || chunks.isEmpty()) {
+            chunks.add(new Chunk(chunks.size(), chunkStart, size,
+                    chunkFirstLine));
+        }
+        return chunks;
+    }
+
+
+    private long startAfterBOM() throws IOException {
+        if (channel.size() < BOM.length) {
+            return 0;
+        }
+        MappedByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY,
+                0, BOM.length);
+        for (int i = 0; i < BOM.length; i++) {
+            if (start.get(i) != BOM[i]) {
+                return 0;
+            }
+        }
+        return BOM.length;
+    }
+
+
+    /* Records of a chunk and the validation error that stopped parsing. */
+    private static final class ParsedChunk {
+
+        private final List<Map<String, String>> records = new ArrayList<>();
+        private FileValidationException error;
+    }
+
+
+    /* Part of the file from start (inclusive) to end (exclusive). */
+    private static final class Chunk {
+
+        private final int index;
+        private final long start;
+        private final long end;
+        private final long firstLine;
+
+        private Chunk(int index, long start, long end, long firstLine) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package web.process.parse;
+
+import jakarta.servlet.http.Part;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File part of a multipart/form-data request stored in the spool directory, so
+ * that it can be parsed after the request is completed (e.g. by a background
+ * upload job). The part is parsed from the spool file directly, the file is
+ * removed by delete(). The SHA-256 digest of the file content identifies the
+ * file whatever its name (e.g. to recognize a file uploaded again).
+ *
+ * @author SoundlyGifted
+ */
+public class SpooledFilePart implements Part {
+
+    private final Path file;
+    private final String name;
+    private final String submittedFileName;
+    private final String contentType;
+    private final String contentDigest;
+    private final Map<String, List<String>> headers = new HashMap<>();
+
+    /**
+     * This constructor creates a SpooledFilePart object for the file the
+     * original part was written to.
+     *
+     * @param file spool file containing the part content.
+     * @param original file part received within the request.
+     * @param contentDigest hexadecimal SHA-256 digest of the file content.
+     */
+    SpooledFilePart(Path file, Part original, String contentDigest) {
+        this.file = file;
+        this.contentDigest = contentDigest;
+        this.name = original.getName();
+        this.submittedFileName = original.getSubmittedFileName();
+        this.contentType = original.getContentType();
+        for (String headerName : original.getHeaderNames()) {
+            headers.put(headerName.toLowerCase(),
+                    new ArrayList<>(original.getHeaders(headerName)));
+        }
+    }
+
+    /**
+     * Used to get the spool file containing the part content.
+     *
+     * @return path of the spool file.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Used to get the SHA-256 digest of the part content (of the bytes as
+     * uploaded, a compressed file is not decompressed).
+     *
+     * @return hexadecimal SHA-256 digest of the spool file.
+     */
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getSubmittedFileName() {
+        return submittedFileName;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(file);
+        } catch (IOException ioex) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void write(String fileName) throws IOException {
+        Files.copy(file, Paths.get(fileName),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name.toLowerCase());
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name.toLowerCase());
+        return values == null ? new ArrayList<>() : new ArrayList<>(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return new ArrayList<>(headers.keySet());
+    }
+}
@@ -0,0 +1,216 @@
+package web.process.upload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents a background upload job: the uploaded file, the state
+ * of the job and its progress. The job is updated by the thread running it 
+ * and read by the request threads polling its status.
+ * 
+ * The job of a multi-file upload has a file job for each uploaded file, the
+ * progress of the file jobs is added to the progress of the upload job.
+ * 
+ * @author SoundlyGifted
+ */
+public class UploadJob {
+    
+    private final String id;
+    private final String fileName;
+    private final String parsingMethod;
+    private final String uploadMode;
+    private final long submittedMillis = System.currentTimeMillis();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final UploadJob parent;
+    private final List<UploadJob> files = new ArrayList<>();
+    private final AtomicInteger finishedFiles = new AtomicInteger();
+    private volatile UploadJobState state = UploadJobState.QUEUED;
+    private volatile long startedMillis;
+    private volatile long finishedMillis;
+    private volatile String result;
+    private volatile String error;
+
+    /**
+     * This constructor creates an UploadJob object in QUEUED state.
+     * 
+     * @param id job ID.
+     * @param fileName name of the uploaded file.
+     * @param parsingMethod method used to parse the file.
+     * @param uploadMode mode used to insert the records.
+     */
+    public UploadJob(String id, String fileName, String parsingMethod, 
+            String uploadMode) {
+        this(id, fileName, parsingMethod, uploadMode, null);
+    }
+    
+    /**
+     * This constructor creates an UploadJob object in QUEUED state for a file
+     * of a multi-file upload, the job is added to the files of the upload.
+     * 
+     * @param id job ID.
+     * @param fileName name of the uploaded file.
+     * @param parsingMethod method used to parse the file.
+     * @param uploadMode mode used to insert the records.
+     * @param parent job of the multi-file upload.
+     */
+    public UploadJob(String id, String fileName, String parsingMethod, 
+            String uploadMode, UploadJob parent) {
+        this.id = id;
+        this.fileName = fileName;
+        this.parsingMethod = parsingMethod;
+        this.uploadMode = uploadMode;
+        this.parent = parent;
+        if (parent != null) {
+            parent.files.add(this);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getParsingMethod() {
+        return parsingMethod;
+    }
+
+    public String getUploadMode() {
+        return uploadMode;
+    }
+
+    public UploadJobState getState() {
+        return state;
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted.get();
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getFinishedMillis() {
+        return finishedMillis;
+    }
+    
+    public boolean isFinished() {
+        return state.isFinished();
+    }
+    
+    /**
+     * Used to get the jobs of the files of a multi-file upload.
+     * 
+     * @return file jobs, empty for a single file upload.
+     */
+    public List<UploadJob> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+    
+    /**
+     * Used to get the time the job has been running for.
+     * 
+     * @return elapsed time in milliseconds, 0 if the job is not started yet.
+     */
+    public long getElapsedMillis() {
+        long started = startedMillis;
+        if (started == 0) {
+            return 0;
+        }
+        long finished = finishedMillis;
+        return (finished != 0 ? finished : System.currentTimeMillis()) 
+                - started;
+    }
+    
+    /**
+     * Used to get the time the job has been waiting to start for.
+     * 
+     * @return waiting time in milliseconds.
+     */
+    public long getQueuedMillis() {
+        long started = startedMillis;
+        return (started != 0 ? started : System.currentTimeMillis()) 
+                - submittedMillis;
+    }
+    
+    /**
+     * Used to get the job status description to be displayed to the user.
+     * 
+     * @return status description.
+     */
+    public String getDescription() {
+        switch (state) {
+            case QUEUED:
+                return "Upload of '" + fileName + "' is waiting to start.";
+            case RUNNING:
+                return "Upload of '" + fileName + "' is running: " 
+                        + getRowsParsed() + " records parsed, " 
+                        + getRowsInserted() + " records inserted, " 
+                        + getElapsedMillis() / 1000 + " s.";
+            case SUCCEEDED:
+                return result;
+            default:
+                return "Operation was unsuccessful: " + error;
+        }
+    }
+    
+    
+    void recordParsed() {
+        rowsParsed.incrementAndGet();
+        if (parent != null) {
+            parent.recordParsed();
+        }
+    }
+    
+    void recordsInserted(long recordCount) {
+        rowsInserted.addAndGet(recordCount);
+        if (parent != null) {
+            parent.recordsInserted(recordCount);
+        }
+    }
+    
+    /* Starts the job, the job of a multi-file upload is started by its 
+     * first file job.
+     */
+    synchronized void start() {
+        if (state == UploadJobState.QUEUED) {
+            startedMillis = System.currentTimeMillis();
+            state = UploadJobState.RUNNING;
+        }
+        if (parent != null) {
+            parent.start();
+        }
+    }
+    
+    synchronized void succeed(String result) {
+        this.result = result;
+        finishedMillis = System.currentTimeMillis();
+        state = UploadJobState.SUCCEEDED;
+    }
+    
+    synchronized void fail(String error) {
+        this.error = error;
+        finishedMillis = System.currentTimeMillis();
+        state = UploadJobState.FAILED;
+    }
+    
+    /* Counts the finished file job, returns true for the last one. */
+    boolean fileFinished() {
+        return finishedFiles.incrementAndGet() == files.size();
+    }
+}
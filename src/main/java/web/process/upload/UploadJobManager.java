@@ -0,0 +1,487 @@
+package web.process.upload;
+
+import com.opencsv.exceptions.CsvValidationException;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.servlet.http.Part;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import web.process.config.AppConfigProviderLocal;
+import web.process.csvdata.CSVRecordSource;
+import web.process.database.DBDataHandlerLocal;
+import web.process.database.IngestedFile;
+import web.process.database.InsertResult;
+import web.process.parse.SpooledFilePart;
+import web.process.parse.exceptions.FileValidationException;
+
+/**
+ * This EJB is used to run csv-file uploads as background jobs on the container
+ * managed executor, so that the request thread is released as soon as the
+ * file is stored in the spool directory.
+ *
+ * The files of a multi-file upload are processed concurrently, at most
+ * "upload.files.concurrency" files at a time. They are either inserted each
+ * in its own transaction (a failed file does not affect the others) or in one
+ * coordinated parallel insert committed only if all files succeeded. The 
+ * files of a "Replace" upload replace all records of the database table 
+ * together.
+ *
+ * The uploaded files are registered in the database by the digest of their
+ * content once their records are committed. A file identical to a registered
+ * file, or to a file being uploaded by another job, is acknowledged without
+ * parsing and inserting it, unless the upload is forced.
+ *
+ * The jobs are kept in a concurrent map, so the bean allows concurrent access
+ * (READ lock).
+ *
+ * @author SoundlyGifted
+ */
+@Singleton
+@Lock(LockType.READ)
+public class UploadJobManager implements UploadJobManagerLocal {
+
+    /* Default time the finished jobs are kept for, in seconds. */
+    private static final long DEFAULT_RETENTION_SECONDS = 3600;
+
+    /* Default number of files of an upload processed at once. */
+    private static final int DEFAULT_FILES_CONCURRENCY = 4;
+
+    /* Parsing method of the uploads imported by the database procedure. */
+    private static final String BULK_IMPORT_METHOD = "DerbyBulk";
+    
+    /* Upload mode replacing all records of the database table. */
+    private static final String REPLACE_MODE = "Replace";
+    
+    /* Upload mode updating the records of the same key, inserting the rest. */
+    private static final String UPSERT_MODE = "Upsert";
+
+    @EJB
+    private DBDataHandlerLocal databaseHandler;
+
+    @EJB
+    private AppConfigProviderLocal configProvider;
+
+    @Resource
+    private ManagedExecutorService executorService;
+
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    
+    /* Content digests of the files being uploaded mapped to the IDs of their
+     * jobs.
+     */
+    private final Map<String, String> uploadingDigests 
+            = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UploadJob submit(Part spooledFilePart, CSVRecordSource recordSource,
+            String parsingMethod, String uploadMode, boolean force) {
+        removeExpiredJobs();
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(),
+                spooledFilePart.getSubmittedFileName(), parsingMethod,
+                uploadMode);
+        jobs.put(job.getId(), job);
+        try {
+            executorService.submit(() -> runFile(job, spooledFilePart,
+                    recordSource, force));
+        } catch (RejectedExecutionException reex) {
+            jobs.remove(job.getId());
+            throw reex;
+        }
+        return job;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UploadJob submit(List<Part> spooledFileParts,
+            List<CSVRecordSource> recordSources, String parsingMethod,
+            String uploadMode, boolean sharedTransaction, boolean force) {
+        if (spooledFileParts.size() == 1) {
+            return submit(spooledFileParts.get(0), recordSources.get(0),
+                    parsingMethod, uploadMode, force);
+        }
+        removeExpiredJobs();
+        /* The files of a replace upload replace the records together, the 
+         * files of an upsert upload are upserted one after another (the 
+         * later file wins for a key in several files).
+         */
+        boolean replace = REPLACE_MODE.equals(uploadMode);
+        boolean upsert = UPSERT_MODE.equals(uploadMode);
+        String jobId = UUID.randomUUID().toString();
+        UploadJob job = new UploadJob(jobId, spooledFileParts.size()
+                + " files", parsingMethod, replace || upsert ? uploadMode 
+                        : sharedTransaction ? "Shared" : uploadMode);
+        for (int i = 0; i < spooledFileParts.size(); i++) {
+            new UploadJob(jobId + "-" + (i + 1),
+                    spooledFileParts.get(i).getSubmittedFileName(),
+                    parsingMethod, job.getUploadMode(), job);
+        }
+        int concurrency = Math.max(1, configProvider.getIntProperty(
+                "upload.files.concurrency", DEFAULT_FILES_CONCURRENCY));
+
+        jobs.put(job.getId(), job);
+        try {
+            if (sharedTransaction || replace || upsert) {
+                executorService.submit(() -> runShared(job, spooledFileParts,
+                        recordSources, concurrency, force));
+            } else {
+                new IndependentFiles(job, spooledFileParts, recordSources, 
+                        force).start(concurrency);
+            }
+        } catch (RejectedExecutionException reex) {
+            jobs.remove(job.getId());
+            throw reex;
+        }
+        return job;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UploadJob getJob(String jobId) {
+        removeExpiredJobs();
+        return jobId == null ? null : jobs.get(jobId);
+    }
+
+
+    /* Uploads one file in its own transaction. */
+    private void runFile(UploadJob job, Part spooledFilePart,
+            CSVRecordSource recordSource, boolean force) {
+        job.start();
+        String contentDigest = contentDigest(spooledFilePart);
+        try {
+            // The replaced records of an identical file are replaced anyway.
+            String acknowledgement = claimFile(job, contentDigest, 
+                    force || REPLACE_MODE.equals(job.getUploadMode()));
+            if (acknowledgement != null) {
+                job.succeed(acknowledgement);
+                return;
+            }
+            InsertResult insertResult;
+            if (UPSERT_MODE.equals(job.getUploadMode())) {
+                // Upserted in batches whatever the parsing method.
+                insertResult = databaseHandler.upsertRecordStreams(
+                        List.of(countingSource(job, recordSource)),
+                        job::recordsInserted);
+            } else if (REPLACE_MODE.equals(job.getUploadMode())) {
+                insertResult = databaseHandler.replaceWithRecordStreams(
+                        List.of(countingSource(job, recordSource)),
+                        BULK_IMPORT_METHOD.equals(job.getParsingMethod()),
+                        job::recordsInserted);
+            } else if (BULK_IMPORT_METHOD.equals(job.getParsingMethod())) {
+                insertResult = databaseHandler.importRecordStream(
+                        countingSource(job, recordSource),
+                        job::recordsInserted);
+            } else if ("Parallel".equals(job.getUploadMode())) {
+                insertResult = databaseHandler.insertRecordStreamParallel(
+                        countingSource(job, recordSource),
+                        job::recordsInserted);
+            } else {
+                insertResult = databaseHandler.insertRecordStream(
+                        countingSource(job, recordSource),
+                        job::recordsInserted);
+            }
+            registerFile(job, contentDigest, insertResult.getRecordCount());
+            job.succeed(insertResult.getDescription());
+        } catch (Exception e) {
+            job.fail(getErrorMessage(e));
+        } finally {
+            releaseFile(job, contentDigest);
+            deleteSpooledFile(job, spooledFilePart);
+        }
+    }
+
+
+    /* Uploads all files in one coordinated parallel insert, the files are
+     * read concurrently by the database handler (or one after another into
+     * the staging table of a replace or by an upsert). The files identical 
+     * to the already uploaded files are acknowledged and left out of the 
+     * insert.
+     */
+    private void runShared(UploadJob job, List<Part> spooledFileParts,
+            List<CSVRecordSource> recordSources, int concurrency, 
+            boolean force) {
+        job.start();
+        boolean replace = REPLACE_MODE.equals(job.getUploadMode());
+        boolean upsert = UPSERT_MODE.equals(job.getUploadMode());
+        List<String> contentDigests = new ArrayList<>();
+        List<UploadJob> insertedFileJobs = new ArrayList<>();
+        List<String> insertedDigests = new ArrayList<>();
+        List<CSVRecordSource> fileSources = new ArrayList<>();
+        try {
+            for (int i = 0; i < recordSources.size(); i++) {
+                UploadJob fileJob = job.getFiles().get(i);
+                String contentDigest = contentDigest(spooledFileParts.get(i));
+                contentDigests.add(contentDigest);
+                String acknowledgement = claimFile(fileJob, contentDigest, 
+                        force || replace);
+                if (acknowledgement != null) {
+                    fileJob.start();
+                    fileJob.succeed(acknowledgement);
+                    continue;
+                }
+                CSVRecordSource countingSource
+                        = countingSource(fileJob, recordSources.get(i));
+                insertedFileJobs.add(fileJob);
+                insertedDigests.add(contentDigest);
+                fileSources.add(consumer -> {
+                    fileJob.start();
+                    try {
+                        countingSource.forEachRecord(consumer);
+                    } catch (IOException | SQLException 
+                            | FileValidationException
+                            | CsvValidationException | RuntimeException e) {
+                        fileJob.fail(getErrorMessage(e));
+                        throw e;
+                    }
+                });
+            }
+            int acknowledgedFiles = recordSources.size() - fileSources.size();
+            if (fileSources.isEmpty()) {
+                job.succeed(acknowledgedFiles + " identical files were "
+                        + "already uploaded, they were not uploaded again.");
+                return;
+            }
+            
+            InsertResult insertResult;
+            if (upsert) {
+                insertResult = databaseHandler.upsertRecordStreams(
+                        fileSources, job::recordsInserted);
+            } else if (replace) {
+                insertResult = databaseHandler.replaceWithRecordStreams(
+                        fileSources, BULK_IMPORT_METHOD.equals(
+                                job.getParsingMethod()), job::recordsInserted);
+            } else if (BULK_IMPORT_METHOD.equals(job.getParsingMethod())) {
+                // All files are staged into one file imported at once.
+                insertResult = databaseHandler.importRecordStreams(
+                        fileSources, job::recordsInserted);
+            } else {
+                insertResult = databaseHandler.insertRecordStreamsParallel(
+                        fileSources, concurrency, job::recordsInserted);
+            }
+            for (int i = 0; i < insertedFileJobs.size(); i++) {
+                UploadJob fileJob = insertedFileJobs.get(i);
+                registerFile(fileJob, insertedDigests.get(i), 
+                        fileJob.getRowsParsed());
+                fileJob.succeed(fileJob.getRowsParsed() + " records were "
+                        + (upsert ? "upserted into" : "added to") 
+                        + " the database.");
+            }
+            job.succeed(insertResult.getDescription() 
+                    + (acknowledgedFiles > 0 ? " " + acknowledgedFiles 
+                            + " identical files were not uploaded again." 
+                            : ""));
+        } catch (Exception e) {
+            for (UploadJob fileJob : job.getFiles()) {
+                if (!fileJob.isFinished()) {
+                    fileJob.fail("Records of the file were rolled back, "
+                            + "another file of the upload failed.");
+                }
+            }
+            job.fail(getErrorMessage(e));
+        } finally {
+            for (int i = 0; i < spooledFileParts.size(); i++) {
+                if (i < contentDigests.size()) {
+                    releaseFile(job.getFiles().get(i), contentDigests.get(i));
+                }
+                deleteSpooledFile(job.getFiles().get(i),
+                        spooledFileParts.get(i));
+            }
+        }
+    }
+    
+    
+    /* Claims the upload of the file for the job. Returns the acknowledgement
+     * of a file identical to an uploaded file or to a file being uploaded by
+     * another job, null if the job uploads the file.
+     */
+    private String claimFile(UploadJob job, String contentDigest, 
+            boolean force) throws IOException, SQLException {
+        if (contentDigest == null || force) {
+            return null;
+        }
+        String uploadingJobId 
+                = uploadingDigests.putIfAbsent(contentDigest, job.getId());
+        if (uploadingJobId != null) {
+            return "Identical file is being uploaded by job " 
+                    + uploadingJobId + ", '" + job.getFileName() 
+                    + "' was not uploaded again.";
+        }
+        IngestedFile ingestedFile;
+        try {
+            ingestedFile = databaseHandler.selectIngestedFile(contentDigest);
+        } catch (IOException | SQLException | RuntimeException e) {
+            releaseFile(job, contentDigest);
+            throw e;
+        }
+        if (ingestedFile == null) {
+            return null;
+        }
+        releaseFile(job, contentDigest);
+        return "Identical file '" + ingestedFile.getFileName() + "' was "
+                + "already uploaded at " 
+                + Instant.ofEpochMilli(ingestedFile.getIngestedMillis()) 
+                + " (" + ingestedFile.getRecordCount() + " records), '" 
+                + job.getFileName() + "' was not uploaded again.";
+    }
+    
+    
+    /* Registers the file whose records were committed. The records are 
+     * already in the database, so a failed registration does not fail the 
+     * upload (the file is just not recognized when uploaded again).
+     */
+    private void registerFile(UploadJob job, String contentDigest, 
+            long recordCount) {
+        if (contentDigest == null) {
+            return;
+        }
+        try {
+            databaseHandler.registerIngestedFile(contentDigest, 
+                    job.getFileName(), recordCount);
+        } catch (IOException | SQLException e) {
+            System.out.println("[UploadJobManager]: File of job " 
+                    + job.getId() + " could not be registered as uploaded: "
+                    + e.getMessage());
+        }
+    }
+    
+    
+    private void releaseFile(UploadJob job, String contentDigest) {
+        if (contentDigest != null) {
+            uploadingDigests.remove(contentDigest, job.getId());
+        }
+    }
+    
+    
+    private String contentDigest(Part spooledFilePart) {
+        return spooledFilePart instanceof SpooledFilePart 
+                ? ((SpooledFilePart) spooledFilePart).getContentDigest() 
+                : null;
+    }
+
+
+    /* Counts the records as the source passes them to the insert. */
+    private CSVRecordSource countingSource(UploadJob job,
+            CSVRecordSource recordSource) {
+        return consumer -> recordSource.forEachRecord(record -> {
+            job.recordParsed();
+            consumer.accept(record);
+        });
+    }
+
+
+    private void deleteSpooledFile(UploadJob job, Part spooledFilePart) {
+        try {
+            spooledFilePart.delete();
+        } catch (IOException ioex) {
+            System.out.println("[UploadJobManager]: Spooled file of job "
+                    + job.getId() + " could not be deleted: "
+                    + ioex.getMessage());
+        }
+    }
+
+
+    private String getErrorMessage(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+
+    private void removeExpiredJobs() {
+        long expiredBefore = System.currentTimeMillis() - 1000
+                * configProvider.getLongProperty("upload.job.retention.seconds",
+                        DEFAULT_RETENTION_SECONDS);
+        jobs.values().removeIf(job -> job.isFinished()
+                && job.getFinishedMillis() < expiredBefore);
+    }
+
+
+    /**
+     * Runs the files of a multi-file upload as separate file jobs, each in
+     * its own transaction. At most "concurrency" file jobs are submitted to
+     * the executor at a time, each finished file job submits the next one,
+     * so no executor thread is blocked waiting for the others. The upload job
+     * is finished with the last file job.
+     */
+    private class IndependentFiles {
+
+        private final UploadJob job;
+        private final List<Part> spooledFileParts;
+        private final List<CSVRecordSource> recordSources;
+        private final boolean force;
+        private final AtomicInteger nextFile = new AtomicInteger();
+        private final long startTime = System.currentTimeMillis();
+
+        IndependentFiles(UploadJob job, List<Part> spooledFileParts,
+                List<CSVRecordSource> recordSources, boolean force) {
+            this.job = job;
+            this.spooledFileParts = spooledFileParts;
+            this.recordSources = recordSources;
+            this.force = force;
+        }
+
+        void start(int concurrency) {
+            for (int i = 0; i < concurrency; i++) {
+                submitNextFile();
+            }
+        }
+
+        private void submitNextFile() {
+            int file = nextFile.getAndIncrement();
+            if (file >= spooledFileParts.size()) {
+                return;
+            }
+            UploadJob fileJob = job.getFiles().get(file);
+            try {
+                executorService.submit(() -> {
+                    try {
+                        runFile(fileJob, spooledFileParts.get(file),
+                                recordSources.get(file), force);
+                    } finally {
+                        fileFinished();
+                        submitNextFile();
+                    }
+                });
+            } catch (RejectedExecutionException reex) {
+                fileJob.fail(getErrorMessage(reex));
+                deleteSpooledFile(fileJob, spooledFileParts.get(file));
+                fileFinished();
+                submitNextFile();
+            }
+        }
+
+        private void fileFinished() {
+            if (!job.fileFinished()) {
+                return;
+            }
+            long failedFiles = job.getFiles().stream()
+                    .filter(fileJob -> fileJob.getState()
+                            == UploadJobState.FAILED).count();
+            if (failedFiles == 0) {
+                job.succeed(job.getFiles().size() + " files were uploaded: "
+                        + job.getRowsInserted() + " records were added to "
+                        + "the database in " + (System.currentTimeMillis()
+                                - startTime) + " ms");
+            } else {
+                job.fail(failedFiles + " of " + job.getFiles().size()
+                        + " files were not uploaded, see the file results.");
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package web.process.upload;
+
+import jakarta.ejb.Local;
+import jakarta.servlet.http.Part;
+import java.util.List;
+import web.process.csvdata.CSVRecordSource;
+
+/**
+ * Local interface for the EJB running csv-file uploads as background jobs.
+ * 
+ * @author SoundlyGifted
+ */
+@Local
+public interface UploadJobManagerLocal {
+    
+    /**
+     * Submits the upload of the spooled csv-file to the container managed 
+     * executor and returns right away. The job parses the file with the 
+     * record source and inserts the records into the database, the spooled
+     * file is deleted when the job is finished. Finished jobs are kept for
+     * "upload.job.retention.seconds".
+     * 
+     * A file identical to an already uploaded file (by the content digest of
+     * the spooled file) or to a file being uploaded is acknowledged by the 
+     * job without parsing and inserting it, unless the upload is forced.
+     * 
+     * @param spooledFilePart csv-file stored in the spool directory.
+     * @param recordSource source of the records parsed from the file.
+     * @param parsingMethod method used to parse the file.
+     * @param uploadMode "Parallel" to insert the records over several 
+     * database connections, "Replace" to replace all records of the database
+     * table with the records of the file, "Upsert" to update the records of
+     * the same key and insert the others, otherwise the records are inserted
+     * over a single connection.
+     * @param force true to upload the file even if an identical file was
+     * already uploaded.
+     * @return the submitted job.
+     */
+    public UploadJob submit(Part spooledFilePart, CSVRecordSource recordSource,
+            String parsingMethod, String uploadMode, boolean force);
+    
+    /**
+     * Submits the upload of several spooled csv-files and returns right away.
+     * The files are processed concurrently, at most "upload.files.concurrency"
+     * files at a time, each file has its own file job in the returned job. 
+     * With a shared transaction all files are inserted by one coordinated 
+     * parallel insert that is committed only if all files succeeded, 
+     * otherwise each file is inserted in its own transaction using the 
+     * upload mode. The files of a "Replace" upload replace all records of 
+     * the database table together, the files of an "Upsert" upload are 
+     * upserted one after another in one job. A single file is submitted as
+     * a single file upload. The files identical to already uploaded files 
+     * are acknowledged by their file jobs, the other files are uploaded.
+     * 
+     * @param spooledFileParts csv-files stored in the spool directory.
+     * @param recordSources sources of the records parsed from the files (in
+     * the order of the files).
+     * @param parsingMethod method used to parse the files.
+     * @param uploadMode "Parallel" to insert the records of each file over 
+     * several database connections, "Replace" or "Upsert" (see above), 
+     * otherwise over a single connection.
+     * @param sharedTransaction true to insert all files in one coordinated
+     * insert.
+     * @param force true to upload the files even if identical files were 
+     * already uploaded.
+     * @return the submitted job.
+     */
+    public UploadJob submit(List<Part> spooledFileParts, 
+            List<CSVRecordSource> recordSources, String parsingMethod, 
+            String uploadMode, boolean sharedTransaction, boolean force);
+    
+    /**
+     * Used to get the upload job with the given ID.
+     * 
+     * @param jobId job ID.
+     * @return the job or null if there is no such job (or it was removed
+     * after the retention time).
+     */
+    public UploadJob getJob(String jobId);
+}
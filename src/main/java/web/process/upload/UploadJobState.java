@@ -0,0 +1,38 @@
+package web.process.upload;
+
+/**
+ * This Enum defines the states of a background upload job.
+ * 
+ * @author SoundlyGifted
+ */
+public enum UploadJobState {
+    
+    /**
+     * The job is waiting for a free thread of the executor.
+     */
+    QUEUED,
+    
+    /**
+     * The file is being parsed and inserted into the database.
+     */
+    RUNNING,
+    
+    /**
+     * All records of the file were inserted into the database.
+     */
+    SUCCEEDED,
+    
+    /**
+     * The upload failed, see the job error.
+     */
+    FAILED;
+    
+    /**
+     * Used to check whether the job is completed.
+     * 
+     * @return true if the job succeeded or failed.
+     */
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -1,5 +1,6 @@
 package web.servlets;
 
+import jakarta.ejb.EJB;
 import jakarta.servlet.http.HttpServlet;
 import java.io.IOException;
 import jakarta.servlet.ServletException;
@@ -7,12 +8,22 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import web.process.config.AppConfigProviderLocal;
+import web.process.database.DBDataHandlerLocal;
+import web.process.upload.UploadJob;
+import web.process.upload.UploadJobManagerLocal;
 
 /**
  * Sevlet to display the page with the result using doGet() method after the 
  * operation was performed by another servlet. E.g. after uploading data to the 
  * database from a file or downloading data from database to a file.
  * 
+ * It also prepares the requested page of the database table records to be
+ * displayed (keyset pagination by ID).
+ * 
  * This Servlet is the part of PRG (post-redirect-get) approach implementation.
  * It avoids duplicate data submission when user refreshes the page after
  * performing an operation that involves change to the database.
@@ -21,6 +32,20 @@ import jakarta.servlet.http.HttpSession;
  */
 @WebServlet(name = "DisplayServlet", urlPatterns = {"/display.do"})
 public class DisplayServlet extends HttpServlet {
+    
+    private static final String DEFAULT_PAGE_SIZES = "10,25,50,100";
+    
+    /* Default refresh interval of the page while an upload job is running. */
+    private static final int DEFAULT_REFRESH_SECONDS = 2;
+    
+    @EJB
+    private DBDataHandlerLocal databaseHandler;
+    
+    @EJB
+    private AppConfigProviderLocal configProvider;
+    
+    @EJB
+    private UploadJobManagerLocal uploadJobManager;
 
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>POST</code>
@@ -31,11 +56,12 @@ public class DisplayServlet extends HttpServlet {
      * @throws ServletException if a servlet-specific error occurs
      * @throws IOException if an I/O error occurs
      */
-    protected void processRequest(HttpServletRequest request, HttpServletResponse response)
+    protected void processRequest(HttpServletRequest request, 
+            HttpServletResponse response)
             throws ServletException, IOException {
     }
 
-    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods.">
     /**
      * Handles the HTTP <code>GET</code> method.
      *
@@ -45,36 +71,118 @@ public class DisplayServlet extends HttpServlet {
      * @throws IOException if forward to the JSP page failed.
      */
     @Override
-    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+    protected void doGet(HttpServletRequest request, 
+            HttpServletResponse response)
             throws ServletException, IOException {
         
         HttpSession session = request.getSession();
         
-        Integer anyMethodSelected = Integer.valueOf(request.getParameter("sa"));
-        Integer uploadSuccessful = Integer.valueOf(request.getParameter("su"));
+        String anyMethodSelected = request.getParameter("sa");
+        String uploadJobId = request.getParameter("job");
         
         Object exception = session.getAttribute("GeneralApplicationException");
         
-        if (anyMethodSelected == 0) {
-            request.setAttribute("operationResultDesc", 
-                    "No method was selected.");
-        } else {
-            if (uploadSuccessful > 0) {
-                request.setAttribute("operationResultDesc",
-                        "Records were added to the database");
-            }
-            if (exception != null) {
+        // Operation result is displayed only after redirect from an operation.
+        if (anyMethodSelected != null) {
+            if ("0".equals(anyMethodSelected)) {
                 request.setAttribute("operationResultDesc", 
-                        "Operation was unsuccessful: " + exception);
+                        "No method was selected.");
+            } else {
+                if (uploadJobId != null) {
+                    prepareUploadJobStatus(request, uploadJobId);
+                }
+                if (exception != null) {
+                    request.setAttribute("operationResultDesc", 
+                            "Operation was unsuccessful: " + exception);
+                }
             }
+            
+            // Removing exception attribute for the next request.
+            session.removeAttribute("GeneralApplicationException");
         }
         
-        // Removing exception attribute for the next request.
-        session.removeAttribute("GeneralApplicationException");
+        prepareTablePage(request);
         
         getServletContext().getRequestDispatcher("/index.jsp")
                 .forward(request, response);
     }
+    
+    
+    /* Puts the status of the upload job into the request attributes, the
+     * page is refreshed until the job is finished.
+     */
+    private void prepareUploadJobStatus(HttpServletRequest request, 
+            String uploadJobId) {
+        UploadJob uploadJob = uploadJobManager.getJob(uploadJobId);
+        if (uploadJob == null) {
+            request.setAttribute("operationResultDesc", 
+                    "Upload job was not found.");
+            return;
+        }
+        request.setAttribute("uploadJob", uploadJob);
+        request.setAttribute("operationResultDesc", 
+                uploadJob.getDescription());
+        if (!uploadJob.isFinished()) {
+            request.setAttribute("refreshSeconds", configProvider
+                    .getIntProperty("upload.job.refresh.seconds", 
+                            DEFAULT_REFRESH_SECONDS));
+        }
+    }
+    
+    
+    /* Puts the requested page of the database table records into the request
+     * attributes for the JSP page.
+     */
+    private void prepareTablePage(HttpServletRequest request) {
+        List<Integer> pageSizes = getPageSizes();
+        int pageSize = configProvider.getIntProperty("view.page.size.default", 
+                pageSizes.get(0));
+        Integer requestedPageSize = parseId(request.getParameter("ps"));
+        if (requestedPageSize != null 
+                && pageSizes.contains(requestedPageSize)) {
+            pageSize = requestedPageSize;
+        }
+        
+        Integer afterId = parseId(request.getParameter("after"));
+        Integer beforeId = parseId(request.getParameter("before"));
+        try {
+            request.setAttribute("tablePage", 
+                    databaseHandler.selectPage(afterId, beforeId, pageSize));
+        } catch (IOException | SQLException e) {
+            request.setAttribute("tableLoadingError", e.getMessage());
+        }
+        request.setAttribute("pageSizes", pageSizes);
+        request.setAttribute("pageSize", pageSize);
+        request.setAttribute("tableViewPrepared", true);
+    }
+    
+    
+    private List<Integer> getPageSizes() {
+        List<Integer> pageSizes = new ArrayList<>();
+        for (String pageSize : configProvider.getProperty("view.page.sizes", 
+                DEFAULT_PAGE_SIZES).split(",")) {
+            Integer size = parseId(pageSize.trim());
+            if (size != null && size > 0) {
+                pageSizes.add(size);
+            }
+        }
+        if (pageSizes.isEmpty()) {
+            pageSizes.add(Integer.valueOf(DEFAULT_PAGE_SIZES.split(",")[0]));
+        }
+        return pageSizes;
+    }
+    
+    
+    private Integer parseId(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException nfex) {
+            return null;
+        }
+    }
 
     /**
      * Handles the HTTP <code>POST</code> method.
@@ -85,7 +193,8 @@ public class DisplayServlet extends HttpServlet {
      * @throws IOException if an I/O error occurs
      */
     @Override
-    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+    protected void doPost(HttpServletRequest request, 
+            HttpServletResponse response)
             throws ServletException, IOException {
         processRequest(request, response);
     }
@@ -0,0 +1,224 @@
+package web.servlets;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import web.process.download.ContentCoding;
+import web.process.download.ExportSnapshot;
+
+/**
+ * Sets up the csv-file download responses of the servlets and sends export 
+ * snapshots as download responses: the entity tag of the snapshot is sent 
+ * with every response, a conditional request with a matching "If-None-Match"
+ * header is answered with 304 (Not Modified) and a single byte range ("Range"
+ * header) is answered with 206 (Partial Content), so an interrupted download
+ * can be resumed. The content is transferred from
+ * the snapshot file channel to the response output.
+ *
+ * @author SoundlyGifted
+ */
+final class DownloadResponses {
+
+    private DownloadResponses() {
+    }
+
+    /**
+     * Returns the compression of the download: the file is compressed on an
+     * explicit request of a ".csv.gz" file ("download_gzip" parameter), 
+     * otherwise the response is compressed if the client accepts a 
+     * compressed content coding.
+     *
+     * @param request servlet request.
+     * @return content coding of the download.
+     */
+    static ContentCoding contentCoding(HttpServletRequest request) {
+        return isGzipFileRequested(request) ? ContentCoding.GZIP 
+                : ContentCoding.fromAcceptEncoding(
+                        request.getHeader("Accept-Encoding"));
+    }
+
+    /**
+     * Sets the headers of the downloaded file: the content type, the file 
+     * name and (if the response is compressed on the fly) the content coding.
+     *
+     * @param request servlet request.
+     * @param response servlet response.
+     * @param coding content coding of the download.
+     */
+    static void setDownloadHeaders(HttpServletRequest request, 
+            HttpServletResponse response, ContentCoding coding) {
+        boolean gzipFileRequested = isGzipFileRequested(request);
+        String downloadFileName = gzipFileRequested 
+                ? "content.csv.gz" : "content.csv";
+        // Force the server to download a csv-file.
+        /* Setting proper response header to inform the client that 
+         * the content is not meant to be displayed.
+         * The "Content-Disposition" header is used for this purpose,
+         * it can be interpreted by HTTP clients like web browsers.
+         */
+        response.setContentType(gzipFileRequested 
+                ? "application/gzip" : "application/octet-stream");
+        if (!gzipFileRequested) {
+            response.setHeader("Vary", "Accept-Encoding");
+            if (coding != ContentCoding.IDENTITY) {
+                response.setHeader("Content-Encoding", coding.getName());
+            }
+        }
+        String headerName = "Content-Disposition";
+        /* Specifying the disposition type.
+         * 1) inline -  The body part is intended to be displayed 
+         * automatically when the message content is displayed.
+         * 2) attachment -  The body part is separate from the main 
+         * content of the message and should not be displayed 
+         * automatically except when prompted by the user.
+         */
+        String headerValue = String.format("attachment; filename=\"%s\"", 
+                downloadFileName);
+        response.setHeader(headerName, headerValue);
+    }
+
+    /**
+     * Sends the snapshot (or the requested range of it) to the client. The 
+     * content headers (type, disposition, content coding) are set by the 
+     * caller.
+     *
+     * @param request servlet request.
+     * @param response servlet response.
+     * @param snapshot opened export snapshot.
+     * @param conditional true to answer the conditional and range requests 
+     * (GET and HEAD requests), false to always send the whole snapshot.
+     * @return number of the content bytes sent.
+     * @throws IOException if the snapshot can not be read or sent.
+     */
+    static long sendSnapshot(HttpServletRequest request, 
+            HttpServletResponse response, ExportSnapshot snapshot, 
+            boolean conditional) throws IOException {
+        String entityTag = snapshot.getEntityTag();
+        long size = snapshot.getSize();
+        response.setHeader("ETag", entityTag);
+        // The client revalidates the snapshot by its entity tag every time.
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Accept-Ranges", "bytes");
+        
+        if (conditional && matches(request.getHeader("If-None-Match"), 
+                entityTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return 0;
+        }
+        
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        if (conditional && range != null 
+                && (ifRange == null || ifRange.trim().equals(entityTag))) {
+            long[] bounds = parseByteRange(range, size);
+            if (bounds != null) {
+                if (bounds[0] >= size) {
+                    response.setHeader("Content-Range", "bytes */" + size);
+                    response.setStatus(HttpServletResponse
+                            .SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return 0;
+                }
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" 
+                        + end + "/" + size);
+            }
+        }
+        
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return 0;
+        }
+        /* The response output stream is not a channel, so the file content 
+         * is transferred through the channel adapter of the stream.
+         */
+        FileChannel channel = snapshot.getChannel();
+        WritableByteChannel out 
+                = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        while (position <= end) {
+            long transferred = channel.transferTo(position, 
+                    end - position + 1, out);
+            if (transferred <= 0) {
+                throw new IOException("[DownloadResponses] Snapshot file "
+                        + "ended before its size.");
+            }
+            position += transferred;
+        }
+        return length;
+    }
+
+
+    private static boolean isGzipFileRequested(HttpServletRequest request) {
+        return request.getParameter("download_gzip") != null;
+    }
+
+
+    /* Checks the "If-None-Match" header value ("*" or a list of entity tags,
+     * compared weakly as required for "If-None-Match").
+     */
+    private static boolean matches(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || entityTag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /* Returns the first and the last byte of a single "bytes=first-last", 
+     * "bytes=first-" or "bytes=-suffix" range (the first byte is at least the
+     * size if the range is not satisfiable), null if the header is not such 
+     * a range and is ignored.
+     */
+    private static long[] parseByteRange(String range, long size) {
+        range = range.trim();
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength < 0) {
+                    return null;
+                }
+                return suffixLength == 0 ? new long[] {size, size} 
+                        : new long[] {Math.max(0, size - suffixLength), 
+                            size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            return new long[] {start, Math.min(end, size - 1)};
+        } catch (NumberFormatException nfex) {
+            return null;
+        }
+    }
+}
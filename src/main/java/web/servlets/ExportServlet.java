@@ -0,0 +1,130 @@
+package web.servlets;
+
+import jakarta.ejb.EJB;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.SQLException;
+import web.process.download.ContentCoding;
+import web.process.download.ExportSnapshot;
+import web.process.download.ExportSnapshotProviderLocal;
+import web.process.metrics.AppMetricsLocal;
+
+/**
+ * Sevlet to download all records of the database table as a csv-file (e.g. by
+ * dashboards polling the data): GET export.do?selected_method=OpenCSV, 
+ * optionally with "download_gzip" for a ".csv.gz" file. The csv-file is the 
+ * export snapshot of the current data version, a repeated download of 
+ * unchanged data is answered with 304 (Not Modified) by its entity tag and an
+ * interrupted download can be resumed with a byte range.
+ *
+ * @author SoundlyGifted
+ */
+@WebServlet(name = "ExportServlet", urlPatterns = {"/export.do"})
+public class ExportServlet extends HttpServlet {
+
+    @EJB
+    private ExportSnapshotProviderLocal exportSnapshotProvider;
+
+    @EJB
+    private AppMetricsLocal metrics;
+
+    /**
+     * Processes requests for HTTP <code>GET</code>, <code>HEAD</code> and 
+     * <code>POST</code> methods.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request,
+            HttpServletResponse response)
+            throws ServletException, IOException {
+        long requestStart = System.nanoTime();
+        long sentBytes = 0;
+        String selectedMethod = request.getParameter("selected_method");
+        if (selectedMethod == null || selectedMethod.isEmpty()) {
+            selectedMethod = "CommonsCSV";
+        }
+        ContentCoding coding = DownloadResponses.contentCoding(request);
+        try (ExportSnapshot snapshot = exportSnapshotProvider.openSnapshot(
+                selectedMethod, response.getCharacterEncoding(), coding)) {
+            DownloadResponses.setDownloadHeaders(request, response, coding);
+            // Conditional and range requests are answered for GET and HEAD.
+            sentBytes = DownloadResponses.sendSnapshot(request, response, 
+                    snapshot, !"POST".equals(request.getMethod()));
+        } catch (IllegalArgumentException iaex) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, 
+                    iaex.getMessage());
+        } catch (IOException | SQLException e) {
+            if (response.isCommitted()) {
+                throw new IOException("Download was interrupted: " 
+                        + e.getMessage(), e);
+            }
+            response.reset();
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, 
+                    e.getMessage());
+        } finally {
+            metrics.stage(AppMetricsLocal.REQUEST, "export")
+                    .observeSince(requestStart, 0, sentBytes);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>HEAD</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Sevlet to download the export snapshot of the database data.";
+    }// </editor-fold>
+
+}
@@ -0,0 +1,95 @@
+package web.servlets;
+
+import jakarta.ejb.EJB;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import web.process.database.ConnectionPoolStats;
+import web.process.database.DBConnectionHandlerLocal;
+
+/**
+ * Sevlet to display the current state of the database connection pool as
+ * plain text.
+ *
+ * @author SoundlyGifted
+ */
+@WebServlet(name = "PoolStatusServlet", urlPatterns = {"/pool.do"})
+public class PoolStatusServlet extends HttpServlet {
+
+    @EJB
+    private DBConnectionHandlerLocal connectionHandler;
+
+    /**
+     * Processes requests for both HTTP <code>GET</code> and <code>POST</code>
+     * methods.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request,
+            HttpServletResponse response)
+            throws ServletException, IOException {
+        ConnectionPoolStats stats = connectionHandler.getPoolStats();
+
+        response.setContentType("text/plain;charset=UTF-8");
+        try (PrintWriter out = response.getWriter()) {
+            out.println("active " + stats.getActiveConnections());
+            out.println("idle " + stats.getIdleConnections());
+            out.println("waiters " + stats.getWaiters());
+            out.println("min.size " + stats.getMinSize());
+            out.println("max.size " + stats.getMaxSize());
+            out.println("borrow.count " + stats.getBorrowCount());
+            out.println("wait.total.millis " + stats.getTotalWaitMillis());
+            out.println("wait.max.millis " + stats.getMaxWaitMillis());
+            out.println("wait.average.millis " + stats.getAverageWaitMillis());
+            out.println("created " + stats.getCreatedConnections());
+            out.println("destroyed " + stats.getDestroyedConnections());
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Sevlet to display the database connection pool state.";
+    }// </editor-fold>
+
+}
@@ -1,6 +1,5 @@
 package web.servlets;
 
-import com.opencsv.exceptions.CsvValidationException;
 import jakarta.ejb.EJB;
 import java.io.IOException;
 import jakarta.servlet.ServletException;
@@ -12,20 +11,38 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import jakarta.servlet.http.Part;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import javax.naming.OperationNotSupportedException;
 import web.process.parse.exceptions.FileValidationException;
-import web.process.csvdata.CSVFileData;
+import web.process.csvdata.CSVRecordSource;
+import web.process.csvdata.DecimalParser;
 import web.process.download.AppCSVWriterLocal;
+import web.process.download.CSVStreamWriter;
+import web.process.download.ContentCoding;
+import web.process.download.ExportSnapshot;
+import web.process.download.ExportSnapshotProviderLocal;
 import web.process.parse.AppCSVParserLocal;
 import web.process.database.DBDataHandlerLocal;
+import web.process.database.ExportFilter;
+import web.process.metrics.AppMetricsLocal;
+import web.process.parse.SpooledFilePart;
+import web.process.upload.UploadJob;
+import web.process.upload.UploadJobManagerLocal;
 
 /**
  * Sevlet to process the submitted input data from the JSP page.
  * 
+ * The multipart limits of the uploaded files are configured by the 
+ * "multipart-config" of the servlet in web.xml (which overrides the 
+ * annotation), the files bigger than the threshold are written to disk by 
+ * the container.
+ * 
  * @author SoundlyGifted
  */
 @WebServlet(name = "ProcessServlet", urlPatterns = {"/process.do"})
-@MultipartConfig(maxFileSize = 16177215)
+@MultipartConfig(maxFileSize = 4294967296L, fileSizeThreshold = 1048576)
 public class ProcessServlet extends HttpServlet {
 
     @EJB
@@ -36,6 +53,15 @@ public class ProcessServlet extends HttpServlet {
     
     @EJB
     private AppCSVWriterLocal appCSVWriter;
+    
+    @EJB
+    private UploadJobManagerLocal uploadJobManager;
+    
+    @EJB
+    private ExportSnapshotProviderLocal exportSnapshotProvider;
+    
+    @EJB
+    private AppMetricsLocal metrics;
         
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>POST</code>
@@ -52,15 +78,20 @@ public class ProcessServlet extends HttpServlet {
             HttpServletResponse response)
             throws ServletException, IOException {
         request.setCharacterEncoding("UTF-8");
+        long requestStart = System.nanoTime();
         
         String clickedUpload = request.getParameter("clicked_Upload");
         String clickedDownload = request.getParameter("clicked_Download");
         String selectedMethod = request.getParameter("selected_method");
+        String uploadMode = request.getParameter("upload_mode");
+        boolean sharedTransaction 
+                = "Shared".equals(request.getParameter("files_transaction"));
+        // Files identical to the already uploaded ones are uploaded again.
+        boolean forceUpload = request.getParameter("upload_force") != null;
         
         String clickedClear = request.getParameter("clicked_Clear");
 
         int anyMethodSelected = 0;
-        int uploadSuccessful = 0;
 
         if (!(selectedMethod == null || selectedMethod.isEmpty())) {
             anyMethodSelected = 1;
@@ -71,69 +102,99 @@ public class ProcessServlet extends HttpServlet {
         HttpSession session;
         
         if (clickedUpload != null) {
-            /* csv-file received from request as a part of "multipart/form-data" 
-             * POST request. 
+            /* All csv-files received from request as parts of 
+             * "multipart/form-data" POST request.
              */
-            Part filePart = request.getPart("file");
+            List<Part> fileParts = new ArrayList<>();
+            long uploadedBytes = 0;
+            for (Part part : request.getParts()) {
+                if ("file".equals(part.getName())) {
+                    fileParts.add(part);
+                    uploadedBytes += part.getSize();
+                }
+            }
+            UploadJob uploadJob = null;
             try {
                 if (anyMethodSelected > 0) {
-                    // Parsing csv-file using the selected method.
-                    CSVFileData csvFileData
-                            = parseCSVFile(filePart, selectedMethod);
-                    // Uploading the parsed data into the database.
-                    uploadCSVDataToDB(csvFileData);
-                    uploadSuccessful = 1;                 
+                    /* Storing csv-files in the spool directory and 
+                     * submitting a background job that parses them using the
+                     * selected method and uploads each parsed record into 
+                     * the database. The request returns right away with the 
+                     * job ID, the job progress is displayed by display 
+                     * servlet.
+                     */
+                    uploadJob = submitUploadJob(fileParts, selectedMethod, 
+                            uploadMode, sharedTransaction, forceUpload);
                 }
             } catch (OperationNotSupportedException
                     | FileValidationException
-                    | SQLException
-                    | IOException
-                    | NumberFormatException
-                    | CsvValidationException e) {
+                    | IOException e) {
                 session = request.getSession();
                 session.setAttribute("GeneralApplicationException",
                         e.getMessage());
             }
-            postRedirectGet(response, anyMethodSelected, uploadSuccessful);
+            if (uploadJob != null) {
+                postRedirectGet(response, anyMethodSelected, uploadJob);
+            } else {
+                postRedirectGet(response, anyMethodSelected);
+            }
+            // Spooling and submission only, the job is measured by stages.
+            metrics.stage(AppMetricsLocal.REQUEST, "upload")
+                    .observeSince(requestStart, 0, uploadedBytes);
         }
         
         if (clickedDownload != null) {
             try {
                 if (anyMethodSelected > 0) {
-                    // Getting the records from the database.
-                    CSVFileData csvFileData = databaseHandler.selectAll();
-
-                    String downloadFileName = "content.csv";
-                    // Force the server to download a csv-file.
-                    /* Setting proper response header to inform the client that 
-                     * the content is not meant to be displayed.
-                     * The "Content-Disposition" header is used for this purpose,
-                     * it can be interpreted by HTTP clients like web browsers.
+                    // Columns and conditions of the exported records.
+                    ExportFilter filter = readExportFilter(request);
+                    /* Incremental export: only the records added after the 
+                     * ID the client exported last, up to the highest ID read
+                     * now. The highest ID is sent to the client, the next 
+                     * export starts after it.
                      */
-                    response.setContentType("application/octet-stream");
-                    String headerName = "Content-Disposition";
-                    /* Specifying the disposition type.
-                     * 1) inline -  The body part is intended to be displayed 
-                     * automatically when the message content is displayed.
-                     * 2) attachment -  The body part is separate from the main 
-                     * content of the message and should not be displayed 
-                     * automatically except when prompted by the user.
-                     */
-                    String headerValue 
-                            = String.format("attachment; filename=\"%s\"", 
-                                    downloadFileName);
-                    response.setHeader(headerName, headerValue);
+                    Integer afterId 
+                            = readIntParameter(request, "export_after_id");
+                    if (afterId != null) {
+                        Integer maxId = databaseHandler.selectMaxId();
+                        int highWaterMark = maxId != null && maxId > afterId 
+                                ? maxId : afterId;
+                        filter = filter.withIdRange(afterId, highWaterMark);
+                        response.setHeader("X-Export-High-Water-Mark", 
+                                String.valueOf(highWaterMark));
+                    }
+                    ContentCoding coding 
+                            = DownloadResponses.contentCoding(request);
+                    DownloadResponses.setDownloadHeaders(request, response, 
+                            coding);
                     /* Downloading the data into the csv-file using the selected 
-                     * download method.
+                     * download method. The download of all records is sent 
+                     * from the export snapshot of the current data version,
+                     * otherwise each record is written to the response as 
+                     * soon as it is read from the database.
                      */
-                    downloadFileFromDB(csvFileData, response, selectedMethod);
+                    downloadFileFromDB(request, response, selectedMethod, 
+                            coding, filter);
                 } else {
-                    postRedirectGet(response, anyMethodSelected, uploadSuccessful);
+                    postRedirectGet(response, anyMethodSelected);
+                }
+            } catch (OperationNotSupportedException|IOException|SQLException
+                    |IllegalArgumentException e) {
+                if (response.isCommitted()) {
+                    /* Part of the file is already sent to the client, the 
+                     * download can only be aborted.
+                     */
+                    throw new IOException("Download was interrupted: " 
+                            + e.getMessage(), e);
                 }
-            } catch (OperationNotSupportedException|IOException|SQLException e) {
+                // Dropping the download headers (e.g. content coding).
+                response.reset();
                 session = request.getSession();
                 session.setAttribute("GeneralApplicationException", e.getMessage());
-                postRedirectGet(response, anyMethodSelected, uploadSuccessful);
+                postRedirectGet(response, anyMethodSelected);
+            } finally {
+                metrics.stage(AppMetricsLocal.REQUEST, "download")
+                        .observeSince(requestStart, 0, 0);
             }
         }
         
@@ -144,23 +205,39 @@ public class ProcessServlet extends HttpServlet {
                 session = request.getSession();
                 session.setAttribute("GeneralApplicationException", e.getMessage());
             }
-            postRedirectGet(response, anyMethodSelected, uploadSuccessful);
+            postRedirectGet(response, anyMethodSelected);
+            metrics.stage(AppMetricsLocal.REQUEST, "clear")
+                    .observeSince(requestStart, 0, 0);
         }
     }
 
     
-    private CSVFileData parseCSVFile (Part filePart, String parsingMethodSelected) 
-            throws IOException, CsvValidationException, FileValidationException,
-            OperationNotSupportedException {
-        /* CSVFileData is a Collection to keep records from csv-file.
-         * Each record is a Map with a csv table values mapped to 
+    private CSVRecordSource parseCSVFile (Part filePart, 
+            String parsingMethodSelected) 
+            throws OperationNotSupportedException {
+        /* CSVRecordSource pushes records from csv-file to the consumer one by
+         * one. Each record is a Map with a csv table values mapped to 
          * the csv table headers (Map<String, String>).
          */
         switch (parsingMethodSelected) {
             case "CommonsCSV":
-                return appCSVParser.parseWithCommonsCSV(filePart);
+                return consumer -> appCSVParser
+                        .parseWithCommonsCSV(filePart, consumer);
             case "OpenCSV":
-                return appCSVParser.parseWithOpenCSV(filePart);
+                return consumer -> appCSVParser
+                        .parseWithOpenCSV(filePart, consumer);
+            case "FastCSV":
+                return consumer -> appCSVParser
+                        .parseWithFastCSV(filePart, consumer);
+            case "ParallelFastCSV":
+                return consumer -> appCSVParser
+                        .parseWithParallelFastCSV(filePart, consumer);
+            case "DerbyBulk":
+                /* The file is validated and parsed by FastCSV method, the
+                 * records are imported by the database import procedure.
+                 */
+                return consumer -> appCSVParser
+                        .parseWithFastCSV(filePart, consumer);
             default:
                 throw new OperationNotSupportedException("Provided parsing "
                         + "method is not supported.");
@@ -168,38 +245,128 @@ public class ProcessServlet extends HttpServlet {
     }
     
     
-    private void uploadCSVDataToDB(CSVFileData csvFileData) 
-            throws IOException, SQLException, NumberFormatException {      
-        databaseHandler.insertMultRecs(csvFileData);
+    private UploadJob submitUploadJob(List<Part> fileParts, 
+            String selectedMethod, String uploadMode, 
+            boolean sharedTransaction, boolean forceUpload) 
+            throws IOException, FileValidationException, 
+            OperationNotSupportedException {
+        if (fileParts.isEmpty()) {
+            throw new FileValidationException("[ProcessServlet] No csv-file "
+                    + "selected");
+        }
+        List<Part> spooledFileParts = new ArrayList<>();
+        List<CSVRecordSource> recordSources = new ArrayList<>();
+        try {
+            for (Part filePart : fileParts) {
+                SpooledFilePart spooledFilePart 
+                        = appCSVParser.spoolFilePart(filePart);
+                spooledFileParts.add(spooledFilePart);
+                recordSources.add(parseCSVFile(spooledFilePart, 
+                        selectedMethod));
+            }
+            return uploadJobManager.submit(spooledFileParts, recordSources, 
+                    selectedMethod, uploadMode, sharedTransaction, 
+                    forceUpload);
+        } catch (IOException | FileValidationException 
+                | OperationNotSupportedException | RuntimeException e) {
+            for (Part spooledFilePart : spooledFileParts) {
+                spooledFilePart.delete();
+            }
+            throw e;
+        }
     }
     
     
-    private void downloadFileFromDB(CSVFileData csvFileData, 
-            HttpServletResponse response, String downloadMethodSelected) 
-            throws IOException, OperationNotSupportedException {
-        switch (downloadMethodSelected) {
-            case "CommonsCSV":
-                appCSVWriter.writeWithCommonsCSV(csvFileData, response);
-                break;
-            case "OpenCSV":
-                appCSVWriter.writeWithOpenCSV(csvFileData, response);
-                break;
-            default:
-                throw new OperationNotSupportedException("Provided download "
-                        + "method is not supported.");
+    private void downloadFileFromDB(HttpServletRequest request, 
+            HttpServletResponse response, String downloadMethodSelected, 
+            ContentCoding coding, ExportFilter filter) 
+            throws IOException, SQLException, OperationNotSupportedException {
+        if (!"CommonsCSV".equals(downloadMethodSelected) 
+                && !"OpenCSV".equals(downloadMethodSelected)) {
+            throw new OperationNotSupportedException("Provided download "
+                    + "method is not supported.");
+        }
+        if (filter.isUnfiltered()) {
+            try (ExportSnapshot snapshot = exportSnapshotProvider.openSnapshot(
+                    downloadMethodSelected, response.getCharacterEncoding(), 
+                    coding)) {
+                DownloadResponses.sendSnapshot(request, response, snapshot, 
+                        false);
+            }
+            return;
+        }
+        CSVStreamWriter writer = "OpenCSV".equals(downloadMethodSelected)
+                ? appCSVWriter.openOpenCSVStream(response, coding, 
+                        filter.getCSVFileHeaders())
+                : appCSVWriter.openCommonsCSVStream(response, coding, 
+                        filter.getCSVFileHeaders());
+        try (writer) {
+            databaseHandler.select(filter, writer);
+        }
+    }
+    
+    
+    /* Reads the download filter of the form: the checked columns (all of 
+     * them if none is checked), the DOUBLEDATA range and the TEXTDATA prefix
+     * (an empty field is no condition).
+     */
+    private ExportFilter readExportFilter(HttpServletRequest request) 
+            throws IllegalArgumentException {
+        String[] columns = request.getParameterValues("export_columns");
+        return new ExportFilter(columns != null 
+                ? Arrays.asList(columns) : null, 
+                readDoubleParameter(request, "export_double_from"), 
+                readDoubleParameter(request, "export_double_to"), 
+                request.getParameter("export_text_prefix"));
+    }
+    
+    
+    private Double readDoubleParameter(HttpServletRequest request, 
+            String name) throws NumberFormatException {
+        String value = request.getParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return DecimalParser.parseDouble(value);
+        } catch (NumberFormatException nfex) {
+            throw new NumberFormatException("[ProcessServlet] Download "
+                    + "filter value '" + value + "' is not a number.");
         }
     }
     
-    private void postRedirectGet(HttpServletResponse response, int ... params) 
-            throws IOException {
+    
+    private Integer readIntParameter(HttpServletRequest request, 
+            String name) throws NumberFormatException {
+        String value = request.getParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException nfex) {
+            throw new NumberFormatException("[ProcessServlet] Download "
+                    + "filter value '" + value + "' is not an ID.");
+        }
+    }
+    
+    private void postRedirectGet(HttpServletResponse response, 
+            int anyMethodSelected) throws IOException {
         /* Using PRG (Post-Redirect-Get) pattern.
          * Instead of forwarding from doPost() method redirecting to the doGet()
          * method of another servlet (display servlet).
          * This is needed to avoid duplicate data submission when user
          * refreshes the page.
          */
-        response.sendRedirect("display.do?sa=" + params[0]
-                + "&su=" + params[1]);
+        response.sendRedirect("display.do?sa=" + anyMethodSelected);
+    }
+    
+    
+    private void postRedirectGet(HttpServletResponse response, 
+            int anyMethodSelected, UploadJob uploadJob) throws IOException {
+        // Display servlet polls the progress of the submitted upload job.
+        response.sendRedirect("display.do?sa=" + anyMethodSelected 
+                + "&job=" + uploadJob.getId());
     }
     
     
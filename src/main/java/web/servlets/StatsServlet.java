@@ -0,0 +1,120 @@
+package web.servlets;
+
+import jakarta.ejb.EJB;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import web.process.database.DBDataHandlerLocal;
+import web.process.database.DataStats;
+import web.process.metrics.AppMetricsLocal;
+
+/**
+ * Sevlet to display the summary statistics of the database table (record
+ * count, count, sum, minimum, maximum and average of DOUBLEDATA values) as
+ * plain text, read from the statistics kept by the writes to the table
+ * whatever the size of the table. POST stats.do with "stats_repair" computes
+ * the statistics from all records of the table again first.
+ *
+ * @author SoundlyGifted
+ */
+@WebServlet(name = "StatsServlet", urlPatterns = {"/stats.do"})
+public class StatsServlet extends HttpServlet {
+
+    @EJB
+    private DBDataHandlerLocal databaseHandler;
+
+    @EJB
+    private AppMetricsLocal metrics;
+
+    /**
+     * Processes requests for both HTTP <code>GET</code> and <code>POST</code>
+     * methods.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request,
+            HttpServletResponse response)
+            throws ServletException, IOException {
+        long requestStart = System.nanoTime();
+        // The repair scans the whole table, it is not run by a GET.
+        boolean repair = "POST".equals(request.getMethod())
+                && request.getParameter("stats_repair") != null;
+        DataStats stats;
+        try {
+            stats = repair ? databaseHandler.repairStats()
+                    : databaseHandler.selectStats();
+        } catch (IOException | SQLException e) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                    e.getMessage());
+            return;
+        } finally {
+            metrics.stage(AppMetricsLocal.REQUEST, repair ? "stats.repair"
+                    : "stats").observeSince(requestStart, 0, 0);
+        }
+
+        response.setContentType("text/plain;charset=UTF-8");
+        try (PrintWriter out = response.getWriter()) {
+            out.println("record.count " + stats.getRecordCount());
+            out.println("doubledata.count " + stats.getDoubleCount());
+            out.println("doubledata.sum " + stats.getDoubleSum());
+            out.println("doubledata.min " + valueOf(stats.getDoubleMin()));
+            out.println("doubledata.max " + valueOf(stats.getDoubleMax()));
+            out.println("doubledata.average "
+                    + valueOf(stats.getDoubleAverage()));
+        }
+    }
+
+
+    /* The statistics of no values are displayed as "NaN". */
+    private String valueOf(Double value) {
+        return value == null ? "NaN" : value.toString();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Sevlet to display the summary statistics of the data.";
+    }// </editor-fold>
+
+}
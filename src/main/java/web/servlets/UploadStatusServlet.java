@@ -0,0 +1,157 @@
+package web.servlets;
+
+import jakarta.ejb.EJB;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import web.process.upload.UploadJob;
+import web.process.upload.UploadJobManagerLocal;
+
+/**
+ * Sevlet to report the status of a background upload job as JSON (state, rows
+ * parsed, rows inserted, elapsed time, result and error, and the status of
+ * each file of a multi-file upload).
+ *
+ * @author SoundlyGifted
+ */
+@WebServlet(name = "UploadStatusServlet", urlPatterns = {"/upload-status.do"})
+public class UploadStatusServlet extends HttpServlet {
+
+    @EJB
+    private UploadJobManagerLocal uploadJobManager;
+
+    /**
+     * Processes requests for both HTTP <code>GET</code> and <code>POST</code>
+     * methods.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request,
+            HttpServletResponse response)
+            throws ServletException, IOException {
+        String jobId = request.getParameter("job");
+        UploadJob job = uploadJobManager.getJob(jobId);
+
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        if (job == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+        try (PrintWriter out = response.getWriter()) {
+            if (job == null) {
+                out.print("{\"job\":" + toJson(jobId)
+                        + ",\"error\":\"Upload job not found.\"}");
+                return;
+            }
+            out.print(toJson(job));
+        }
+    }
+
+
+    private String toJson(UploadJob job) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"job\":").append(toJson(job.getId()))
+                .append(",\"file\":").append(toJson(job.getFileName()))
+                .append(",\"method\":").append(toJson(job.getParsingMethod()))
+                .append(",\"mode\":").append(toJson(job.getUploadMode()))
+                .append(",\"state\":").append(toJson(job.getState().name()))
+                .append(",\"rowsParsed\":").append(job.getRowsParsed())
+                .append(",\"rowsInserted\":").append(job.getRowsInserted())
+                .append(",\"queuedMillis\":").append(job.getQueuedMillis())
+                .append(",\"elapsedMillis\":").append(job.getElapsedMillis())
+                .append(",\"result\":").append(toJson(job.getResult()))
+                .append(",\"error\":").append(toJson(job.getError()));
+        if (!job.getFiles().isEmpty()) {
+            json.append(",\"files\":[");
+            for (int i = 0; i < job.getFiles().size(); i++) {
+                json.append(i > 0 ? "," : "")
+                        .append(toJson(job.getFiles().get(i)));
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+
+    private String toJson(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder(value.length() + 2);
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Sevlet to report the status of an upload job.";
+    }// </editor-fold>
+
+}
@@ -0,0 +1,2 @@
+-- adds the identity of the database to "MYDATA_VERSION" table created without it --
+alter table MYDATA_VERSION add column DATABASE_ID char(36)
\ No newline at end of file
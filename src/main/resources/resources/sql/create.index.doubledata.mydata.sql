@@ -0,0 +1,2 @@
+-- creates the index of "MYDATA" table used by the DOUBLEDATA range exports --
+create index MYDATA_DOUBLEDATA on MYDATA (DOUBLEDATA)
\ No newline at end of file
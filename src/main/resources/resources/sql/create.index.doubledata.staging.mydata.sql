@@ -0,0 +1,2 @@
+-- creates the DOUBLEDATA index of "MYDATA_STAGING" table, renamed with the table --
+create index MYDATA_STAGING_DOUBLEDATA on MYDATA_STAGING (DOUBLEDATA)
\ No newline at end of file
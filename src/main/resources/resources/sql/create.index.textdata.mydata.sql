@@ -0,0 +1,2 @@
+-- creates the index of "MYDATA" table used by the TEXTDATA prefix exports --
+create index MYDATA_TEXTDATA on MYDATA (TEXTDATA)
\ No newline at end of file
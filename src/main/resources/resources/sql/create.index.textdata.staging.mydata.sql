@@ -0,0 +1,2 @@
+-- creates the TEXTDATA index of "MYDATA_STAGING" table, renamed with the table --
+create index MYDATA_STAGING_TEXTDATA on MYDATA_STAGING (TEXTDATA)
\ No newline at end of file
@@ -0,0 +1,6 @@
+-- creates "INGESTED_FILE" table, the registry of the uploaded csv-files by the SHA-256 digest of their content --
+create table INGESTED_FILE
+(CONTENT_SHA256 char(64) not null primary key,
+FILE_NAME varchar(255),
+RECORD_COUNT bigint not null,
+INGESTED_AT timestamp not null)
\ No newline at end of file
@@ -0,0 +1,5 @@
+-- creates "MYDATA_LOAD" table, the records of a bulk import are loaded into before they are inserted into "MYDATA" table --
+create table MYDATA_LOAD
+(ID int not null primary key generated always as identity (start with 1, increment by 1),
+TEXTDATA varchar(255),
+DOUBLEDATA double)
\ No newline at end of file
@@ -0,0 +1,5 @@
+-- creates "MYDATA_STAGING" table, the replacement of "MYDATA" table loaded by a replace upload --
+create table MYDATA_STAGING
+(ID int not null primary key generated always as identity (start with 1, increment by 1),
+TEXTDATA varchar(255),
+DOUBLEDATA double)
\ No newline at end of file
@@ -0,0 +1,8 @@
+-- creates "MYDATA_STATS" table keeping the summary statistics of "MYDATA" table in its only row --
+create table MYDATA_STATS
+(ID smallint not null primary key,
+RECORD_COUNT bigint not null,
+DOUBLE_COUNT bigint not null,
+DOUBLE_SUM double not null,
+DOUBLE_MIN double,
+DOUBLE_MAX double)
\ No newline at end of file
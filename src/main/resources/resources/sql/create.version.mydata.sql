@@ -0,0 +1,4 @@
+-- creates "MYDATA_VERSION" table keeping the data version of "MYDATA" table and the identity of the database --
+create table MYDATA_VERSION
+(VERSION bigint not null,
+DATABASE_ID char(36))
\ No newline at end of file
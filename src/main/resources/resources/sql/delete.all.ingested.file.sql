@@ -0,0 +1,2 @@
+-- deletes all records from "INGESTED_FILE" table --
+delete from INGESTED_FILE
\ No newline at end of file
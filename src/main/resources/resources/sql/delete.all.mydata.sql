@@ -1,3 +0,0 @@
--- deletes all records from "MYDATA" table --
-delete from MYDATA
-
@@ -0,0 +1,2 @@
+-- deletes the summary statistics of "MYDATA" table --
+delete from MYDATA_STATS
\ No newline at end of file
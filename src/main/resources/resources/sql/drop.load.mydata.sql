@@ -0,0 +1,2 @@
+-- drops "MYDATA_LOAD" table --
+drop table MYDATA_LOAD
\ No newline at end of file
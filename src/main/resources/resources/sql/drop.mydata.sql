@@ -0,0 +1,2 @@
+-- drops "MYDATA" table replaced by "MYDATA_STAGING" table --
+drop table MYDATA
\ No newline at end of file
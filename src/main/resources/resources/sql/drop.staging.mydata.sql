@@ -0,0 +1,2 @@
+-- drops "MYDATA_STAGING" table --
+drop table MYDATA_STAGING
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- imports the records of a staging file into "MYDATA_STAGING" table --
+CALL SYSCS_UTIL.SYSCS_IMPORT_DATA (NULL, 'MYDATA_STAGING', 'TEXTDATA,DOUBLEDATA', NULL, ?, ';', '"', 'UTF-8', 0)
\ No newline at end of file
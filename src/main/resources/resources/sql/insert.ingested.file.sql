@@ -0,0 +1,2 @@
+-- inserts the uploaded csv-file into "INGESTED_FILE" table --
+insert into INGESTED_FILE (CONTENT_SHA256, FILE_NAME, RECORD_COUNT, INGESTED_AT) values (?, ?, ?, CURRENT_TIMESTAMP)
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- inserts the records of "MYDATA_LOAD" table into "MYDATA" table in the order they were imported --
+insert into MYDATA (TEXTDATA, DOUBLEDATA) select TEXTDATA, DOUBLEDATA from MYDATA_LOAD order by ID
\ No newline at end of file
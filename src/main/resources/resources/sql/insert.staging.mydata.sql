@@ -0,0 +1,2 @@
+-- inserts a record into "MYDATA_STAGING" table --
+insert into MYDATA_STAGING (TEXTDATA, DOUBLEDATA) values (?, ?)
\ No newline at end of file
@@ -0,0 +1,3 @@
+-- computes the summary statistics of "MYDATA" table from all its records --
+insert into MYDATA_STATS (ID, RECORD_COUNT, DOUBLE_COUNT, DOUBLE_SUM, DOUBLE_MIN, DOUBLE_MAX)
+select 1, count(*), count(DOUBLEDATA), coalesce(sum(DOUBLEDATA), 0), min(DOUBLEDATA), max(DOUBLEDATA) from MYDATA
\ No newline at end of file
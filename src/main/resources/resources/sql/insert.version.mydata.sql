@@ -0,0 +1,2 @@
+-- inserts the first data version of "MYDATA" table --
+insert into MYDATA_VERSION (VERSION) values (1)
\ No newline at end of file
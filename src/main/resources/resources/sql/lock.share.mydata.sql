@@ -0,0 +1,2 @@
+-- locks "MYDATA" table against the writes until the end of the transaction --
+lock table MYDATA in share mode
\ No newline at end of file
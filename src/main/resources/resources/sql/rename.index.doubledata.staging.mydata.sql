@@ -0,0 +1,2 @@
+-- renames the DOUBLEDATA index of the renamed "MYDATA_STAGING" table --
+rename index MYDATA_STAGING_DOUBLEDATA to MYDATA_DOUBLEDATA
\ No newline at end of file
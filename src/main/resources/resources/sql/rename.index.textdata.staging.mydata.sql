@@ -0,0 +1,2 @@
+-- renames the TEXTDATA index of the renamed "MYDATA_STAGING" table --
+rename index MYDATA_STAGING_TEXTDATA to MYDATA_TEXTDATA
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- renames "MYDATA_STAGING" table to "MYDATA" --
+rename table MYDATA_STAGING to MYDATA
\ No newline at end of file
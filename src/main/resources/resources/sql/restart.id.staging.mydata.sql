@@ -0,0 +1,2 @@
+-- restarts the IDs of "MYDATA_STAGING" table at the given ID --
+alter table MYDATA_STAGING alter column ID restart with {id}
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- selects the identity of the database --
+select DATABASE_ID from MYDATA_VERSION
\ No newline at end of file
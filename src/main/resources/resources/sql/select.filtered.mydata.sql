@@ -0,0 +1,2 @@
+-- selects the requested columns of "MYDATA" table records matching the export filter, the columns, the conditions and the order are set by DBDataHandler --
+select {columns} from MYDATA{conditions}{order}
\ No newline at end of file
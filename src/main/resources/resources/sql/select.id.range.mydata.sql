@@ -0,0 +1,2 @@
+-- selects the lowest and the highest ID of "MYDATA" table --
+select min(ID), max(ID) from MYDATA
\ No newline at end of file
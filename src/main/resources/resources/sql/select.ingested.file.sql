@@ -0,0 +1,2 @@
+-- selects the uploaded csv-file by its content digest from "INGESTED_FILE" table --
+select FILE_NAME, RECORD_COUNT, INGESTED_AT from INGESTED_FILE where CONTENT_SHA256 = ?
\ No newline at end of file
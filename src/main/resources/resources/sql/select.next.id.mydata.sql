@@ -0,0 +1,2 @@
+-- selects the next ID generated by "MYDATA" table --
+values SYSCS_UTIL.SYSCS_PEEK_AT_IDENTITY(CURRENT SCHEMA, 'MYDATA')
\ No newline at end of file
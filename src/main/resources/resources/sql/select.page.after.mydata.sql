@@ -0,0 +1,2 @@
+-- selects a page of records from "MYDATA" table following the given ID --
+select ID, TEXTDATA, DOUBLEDATA from MYDATA where ID > ? order by ID fetch first ? rows only
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- selects a page of records from "MYDATA" table preceding the given ID --
+select ID, TEXTDATA, DOUBLEDATA from MYDATA where ID < ? order by ID desc fetch first ? rows only
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- selects the summary statistics of "MYDATA" table --
+select RECORD_COUNT, DOUBLE_COUNT, DOUBLE_SUM, DOUBLE_MIN, DOUBLE_MAX from MYDATA_STATS where ID = 1
\ No newline at end of file
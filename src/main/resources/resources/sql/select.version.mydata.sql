@@ -0,0 +1,2 @@
+-- selects the data version of "MYDATA" table --
+select VERSION from MYDATA_VERSION
\ No newline at end of file
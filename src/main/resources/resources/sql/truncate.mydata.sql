@@ -0,0 +1,2 @@
+-- deletes all records from "MYDATA" table at once (without deleting them one by one) --
+truncate table MYDATA
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- sets the identity of the database unless it is set --
+update MYDATA_VERSION set DATABASE_ID = ? where DATABASE_ID is null
\ No newline at end of file
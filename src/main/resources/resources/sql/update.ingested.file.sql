@@ -0,0 +1,2 @@
+-- updates the csv-file uploaded again in "INGESTED_FILE" table --
+update INGESTED_FILE set FILE_NAME = ?, RECORD_COUNT = ?, INGESTED_AT = CURRENT_TIMESTAMP where CONTENT_SHA256 = ?
\ No newline at end of file
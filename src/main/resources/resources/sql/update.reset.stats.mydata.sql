@@ -0,0 +1,2 @@
+-- resets the summary statistics of the emptied "MYDATA" table --
+update MYDATA_STATS set RECORD_COUNT = 0, DOUBLE_COUNT = 0, DOUBLE_SUM = 0, DOUBLE_MIN = null, DOUBLE_MAX = null where ID = 1
\ No newline at end of file
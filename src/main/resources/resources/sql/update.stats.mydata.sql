@@ -0,0 +1,5 @@
+-- adds the statistics of the inserted records to the summary statistics of "MYDATA" table --
+update MYDATA_STATS set RECORD_COUNT = RECORD_COUNT + ?, DOUBLE_COUNT = DOUBLE_COUNT + ?, DOUBLE_SUM = DOUBLE_SUM + ?,
+DOUBLE_MIN = case when DOUBLE_MIN is null or DOUBLE_MIN > ? then cast(? as double) else DOUBLE_MIN end,
+DOUBLE_MAX = case when DOUBLE_MAX is null or DOUBLE_MAX < ? then cast(? as double) else DOUBLE_MAX end
+where ID = 1
\ No newline at end of file
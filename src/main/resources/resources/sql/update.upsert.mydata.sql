@@ -0,0 +1,2 @@
+-- updates the record of "MYDATA" table with the given key value (the key column and the updated columns are set by the upsert) --
+update MYDATA set {columns} where {key} = ?
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- increments the data version of "MYDATA" table --
+update MYDATA_VERSION set VERSION = VERSION + 1
\ No newline at end of file
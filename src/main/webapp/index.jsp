@@ -1,25 +1,23 @@
-<%@page import="java.io.*, java.util.*, java.sql.*"%>
+<%@page import="java.io.*, java.util.*"%>
 <%@page contentType="text/html" pageEncoding="UTF-8"%>
 <%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
-<%@ taglib uri="http://java.sun.com/jsp/jstl/sql" prefix = "sql"%>
+
+<!-- The page of MYDATA table records is prepared by the display servlet, 
+direct requests of the page are forwarded to it. -->
+<c:if test="${tableViewPrepared == null}">
+    <jsp:forward page="/display.do"/>
+</c:if>
 
 <!DOCTYPE html>
 <html lang="en" class="js"> 
-    <!-- JSTL database connection -->
-    <sql:setDataSource driver="org.apache.derby.jdbc.ClientDriver"
-                       url="jdbc:derby://localhost:1527/DatabaseCsvFileIOAppDB"
-                       user="app"
-                       password="app"
-                       var="JSTLDBConnection"/>
-    
-    <!-- JSTL get all data from MYDATA table -->
-    <sql:query dataSource="${JSTLDBConnection}" var="MYDATAResultSet">
-        SELECT * FROM MYDATA
-    </sql:query>
-    
     <head>
         <meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
         <title>Web App to read/write csv-file from/to a database</title>
+        <!-- The page is refreshed while an upload job is running to display
+        its progress. -->
+        <c:if test="${refreshSeconds != null}">
+            <meta http-equiv="refresh" content="${refreshSeconds}">
+        </c:if>
         
         <link rel="stylesheet" type="text/css" href="css/generalStyles.css">
         <link rel="stylesheet" type="text/css" href="css/inputFileStyle.css">
@@ -65,7 +63,38 @@
                         <option value="OpenCSV">
                             Open CSV
                         </option>
-                    </select>                    
+                        <option value="FastCSV">
+                            FastCSV (upload only)
+                        </option>
+                        <option value="ParallelFastCSV">
+                            Parallel FastCSV (upload only)
+                        </option>
+                        <option value="DerbyBulk">
+                            Derby bulk import (upload only)
+                        </option>
+                    </select>
+                    <select name = "upload_mode" class="inputSelectBox">
+                        <option value="Streaming" selected>
+                            Single connection upload
+                        </option>
+                        <option value="Parallel">
+                            Parallel connections upload
+                        </option>
+                        <option value="Replace">
+                            Replace all data (staging table swap)
+                        </option>
+                        <option value="Upsert">
+                            Upsert by key (update existing records)
+                        </option>
+                    </select>
+                    <select name = "files_transaction" class="inputSelectBox">
+                        <option value="Independent" selected>
+                            Each file in its own transaction
+                        </option>
+                        <option value="Shared">
+                            All files in one transaction
+                        </option>
+                    </select>
                 </div>
 
                 <div class="div-in-upload">
@@ -77,12 +106,33 @@
                     </label>
                     <img src="img/arrow.ico" style="width: 1.5rem; height: 1.5rem; display:inline-block; margin-right: 0.625rem; vertical-align: middle;">
                     <input type="submit" name="clicked_Upload" value="Upload" class="button"/>                    
+                    <!-- A file identical to an already uploaded one is 
+                    acknowledged without uploading it, unless forced. -->
+                    <label style="font-size: 0.8rem;">
+                        <input type="checkbox" name="upload_force"/> upload identical files again
+                    </label>
                 </div>
 
                 <div class="div-in-download">
                     <p style="font-size: 0.8rem; font-weight: bold;">Download database data to csv</p>
                     <br/>
                     <input type="submit" name="clicked_Download" value="Download" class="button"/>
+                    <label style="font-size: 0.8rem;">
+                        <input type="checkbox" name="download_gzip"/> compressed (.csv.gz)
+                    </label>
+                    <!-- Download filter, the conditions are applied by the 
+                    database query (an empty field is no condition). -->
+                    <div style="font-size: 0.8rem;">
+                        <label><input type="checkbox" name="export_columns" value="TEXTDATA" checked/> Text</label>
+                        <label><input type="checkbox" name="export_columns" value="DOUBLEDATA" checked/> Double</label>
+                        <input type="text" name="export_double_from" placeholder="Double from" inputmode="decimal" size="8"/>
+                        <input type="text" name="export_double_to" placeholder="Double to" inputmode="decimal" size="8"/>
+                        <input type="text" name="export_text_prefix" placeholder="Text starts with" size="12"/>
+                        <!-- Incremental export: the records added after the
+                        ID, the new high-water mark is returned in the 
+                        "X-Export-High-Water-Mark" response header. -->
+                        <input type="text" name="export_after_id" placeholder="After ID" inputmode="numeric" size="8"/>
+                    </div>
                 </div>
             </form>
             
@@ -93,6 +143,10 @@
                     <h4>No operation performed yet ...</h4>
                 </c:if>
                 <h4><c:out value="${operationResultDesc}"></c:out></h4>  
+                <!-- Results of the files of a multi-file upload. -->
+                <c:forEach items="${uploadJob.files}" var="fileJob">
+                    <p><c:out value="${fileJob.fileName}: ${fileJob.description}"></c:out></p>
+                </c:forEach>
             </div>
         </div>
         
@@ -110,14 +164,37 @@
                     <th>Player Name [Text]</th>
                     <th>Score [Double]</th>
                 </tr>
-                <c:forEach var="row" items="${MYDATAResultSet.rows}">
+                <c:forEach var="row" items="${tablePage.records}">
                     <tr>
-                        <td> <c:out value="${row.ID}"/> </td>
-                        <td> <c:out value="${row.TEXTDATA}"/> </td>
-                        <td> <c:out value="${row.DOUBLEDATA}"/> </td>
+                        <td> <c:out value="${row.id}"/> </td>
+                        <td> <c:out value="${row.textData}"/> </td>
+                        <td> <c:out value="${row.doubleData}"/> </td>
                     </tr>
                 </c:forEach>
             </table>
+            
+            <!-- Table pages navigation (keyset pagination by ID). -->
+            <div class="div-out-pages">
+                <c:if test="${tableLoadingError != null}">
+                    <h4><c:out value="Table data could not be loaded: ${tableLoadingError}"/></h4>
+                </c:if>
+                <c:if test="${tablePage.previousAvailable}">
+                    <a href="display.do?ps=${pageSize}&before=${tablePage.firstId}">&laquo; Previous</a>
+                </c:if>
+                <span>~ <c:out value="${tablePage.estimatedTotal}"/> records</span>
+                <c:if test="${tablePage.nextAvailable}">
+                    <a href="display.do?ps=${pageSize}&after=${tablePage.lastId}">Next &raquo;</a>
+                </c:if>
+                <form method="get" action="display.do" style="display:inline-block;">
+                    <select name="ps" onchange="this.form.submit()">
+                        <c:forEach var="size" items="${pageSizes}">
+                            <option value="${size}" ${size == pageSize ? 'selected' : ''}>
+                                <c:out value="${size}"/> per page
+                            </option>
+                        </c:forEach>
+                    </select>
+                </form>
+            </div>
         </div>
         
         <script src="js/custom-file-input.js"></script>          
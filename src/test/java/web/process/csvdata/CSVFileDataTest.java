@@ -0,0 +1,59 @@
+package web.process.csvdata;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the CSVFileData records read back as they were added.
+ *
+ * @author SoundlyGifted
+ */
+class CSVFileDataTest {
+
+    @Test
+    void emptyFirstTextValue() {
+        CSVFileData data = new CSVFileData();
+        data.addRecord(record("", "1"));
+        data.addRecord(record("b", "2,5"));
+        assertEquals(2, data.size());
+        assertEquals("", data.getString(0, "TEXTDATA"));
+        assertEquals(1.0, data.getDouble(0, "DOUBLEDATA"));
+        assertEquals("b", data.getString(1, "TEXTDATA"));
+        assertEquals(2.5, data.getDouble(1, "DOUBLEDATA"));
+    }
+
+    @Test
+    void recordsWithCSVFileHeaders() {
+        CSVFileData data = new CSVFileData();
+        data.addRecord(record("\u00e9t\u00e9", ""));
+        data.addRecord(record(null, "-1e3"));
+        List<Map<String, String>> records
+                = data.getRecordListWithCSVFileHeaders();
+        assertEquals(List.of(record("\u00e9t\u00e9", "0.0"),
+                record(null, "-1000.0")), records);
+    }
+
+    @Test
+    void invalidRecordIsNotAdded() {
+        CSVFileData data = new CSVFileData();
+        data.addRecord(record("a", "1"));
+        assertThrows(NumberFormatException.class,
+                () -> data.addRecord(record("b", "x")));
+        data.addRecord(record("c", "3"));
+        assertEquals(2, data.size());
+        assertEquals("c", data.getString(1, "TEXTDATA"));
+    }
+
+
+    private Map<String, String> record(String text, String number) {
+        Map<String, String> record = new LinkedHashMap<>();
+        record.put("TEXTDATA", text);
+        record.put("DOUBLEDATA", number);
+        return record;
+    }
+}
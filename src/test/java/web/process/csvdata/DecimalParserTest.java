@@ -0,0 +1,111 @@
+package web.process.csvdata;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the DecimalParser results against Double.parseDouble, which must
+ * be the same to the last bit, with ',' accepted as the decimal separator.
+ *
+ * @author SoundlyGifted
+ */
+class DecimalParserTest {
+
+    @Test
+    void decimalsWithPoint() {
+        assertSameAsDouble("0", "1", "-1", "+1", "1.5", "-0.25", "123.456",
+                "0.1", "0.3", "000123.4500", ".5", "5.", "-.5",
+                "999999999999999", "0.000000000000001",
+                "123456789012345.0", "1.23456789012345");
+    }
+
+    @Test
+    void decimalsWithComma() {
+        assertSameAsDouble("1,5", "-0,25", "123,456", ",5", "5,",
+                "0,1", "1,23456789012345");
+    }
+
+    @Test
+    void exponents() {
+        assertSameAsDouble("1e0", "1E5", "1e-5", "1.5e+3", "-2,5E-2",
+                "1e22", "1e23", "1e-22", "1e-23", "123.456e-300",
+                "1e308", "1e309", "-1e-330", "4.9e-324", "0e99999999");
+    }
+
+    @Test
+    void moreThanFifteenDigits() {
+        assertSameAsDouble("1234567890123456", "0.12345678901234567890",
+                "9007199254740993", "3.141592653589793238",
+                "12345678901234567890e-5",
+                "0.000000000000000000001234567890123456");
+    }
+
+    @Test
+    void signedZeros() {
+        assertSameAsDouble("0.0", "-0", "-0.0", "+0,000", "-0e5");
+    }
+
+    @Test
+    void valuesHandledByDoubleParsing() {
+        assertSameAsDouble("NaN", "Infinity", "-Infinity", "0x1p3", "1d",
+                "2.5f");
+    }
+
+    @Test
+    void surroundingWhitespaceIsIgnored() {
+        assertSameAsDouble(" 1.5", "1,5 ", "\t-2e3\t");
+    }
+
+    @Test
+    void emptyValuesAreZero() {
+        assertEquals(0.0, DecimalParser.parseDouble(null));
+        assertEquals(0.0, DecimalParser.parseDouble(""));
+        assertEquals(0.0, DecimalParser.parseDouble("   "));
+    }
+
+    @Test
+    void invalidValuesAreRejected() {
+        for (String value : new String[] {"abc", "-", ".", ",", "1e",
+                "1e+", "1.2.3", "1,2,3", "1.2,3", "1 2", "--1", "1-"}) {
+            assertThrows(NumberFormatException.class,
+                    () -> DecimalParser.parseDouble(value),
+                    "Value '" + value + "' must be rejected.");
+        }
+    }
+
+    @Test
+    void randomDecimals() {
+        Random random = new Random(18);
+        for (int i = 0; i < 100000; i++) {
+            int digits = 1 + random.nextInt(18);
+            StringBuilder value = new StringBuilder();
+            if (random.nextBoolean()) {
+                value.append('-');
+            }
+            int separatorAt = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == separatorAt) {
+                    value.append(random.nextBoolean() ? '.' : ',');
+                }
+                value.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextInt(4) == 0) {
+                value.append('e').append(random.nextInt(80) - 40);
+            }
+            assertSameAsDouble(value.toString());
+        }
+    }
+
+
+    private void assertSameAsDouble(String... values) {
+        for (String value : values) {
+            double expected = Double.parseDouble(
+                    value.replace(',', '.'));
+            assertEquals(expected, DecimalParser.parseDouble(value),
+                    "Value '" + value + "'");
+        }
+    }
+}
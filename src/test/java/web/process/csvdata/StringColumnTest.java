@@ -0,0 +1,97 @@
+package web.process.csvdata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the StringColumn values read back as they were added, whatever
+ * their place in the byte arrays of the column.
+ *
+ * @author SoundlyGifted
+ */
+class StringColumnTest {
+
+    @Test
+    void emptyFirstValue() {
+        assertSameValues("", "a", "");
+    }
+
+    @Test
+    void nullValues() {
+        assertSameValues(null, "a", null, "", null);
+    }
+
+    @Test
+    void multiByteValues() {
+        assertSameValues("\u00e9t\u00e9", "\u65e5\u672c", "\ud83d\ude00",
+                "a\u00e9");
+    }
+
+    @Test
+    void valueOfExactlyOneChunk() {
+        String chunk = repeat('a', StringColumn.BYTES_PER_CHUNK);
+        assertSameValues(chunk, "", "b", chunk, chunk);
+        assertSameValues("b", chunk, "");
+    }
+
+    @Test
+    void valueLargerThanAChunk() {
+        String large = repeat('a', StringColumn.BYTES_PER_CHUNK + 1);
+        assertSameValues(large, "", "b", large, large, "c");
+        assertSameValues("", large, "");
+        assertSameValues(null, large, null);
+    }
+
+    @Test
+    void multiByteValueLargerThanAChunk() {
+        // The character count is below the chunk size, the UTF-8 length not.
+        String large = repeat('\u00e9', StringColumn.BYTES_PER_CHUNK / 2 + 1);
+        assertSameValues(large, "\u00e9", large);
+    }
+
+    @Test
+    void valuesFillingSeveralChunks() {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 3 * StringColumn.ROWS_PER_CHUNK; i++) {
+            values.add(i % 7 == 0 ? "" : repeat('x', i % 100) + i);
+        }
+        assertSameValues(values.toArray(new String[0]));
+    }
+
+    @Test
+    void rowOutOfColumnSize() {
+        StringColumn column = new StringColumn();
+        column.add("a");
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(-1));
+    }
+
+
+    private void assertSameValues(String... values) {
+        StringColumn column = new StringColumn();
+        for (String value : values) {
+            column.add(value);
+        }
+        assertEquals(values.length, column.size());
+        for (int row = 0; row < values.length; row++) {
+            if (values[row] == null) {
+                assertNull(column.get(row), "Row " + row);
+            } else {
+                assertEquals(values[row], column.get(row), "Row " + row);
+            }
+        }
+    }
+
+
+    private String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,211 @@
+package web.process.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the ConnectionPool borrowing, validation and eviction of the
+ * connections, with the physical connections replaced by fake connections.
+ *
+ * @author SoundlyGifted
+ */
+class ConnectionPoolTest {
+
+    /* Physical connections created by the pool, in the order of creation. */
+    private final List<FakeConnection> physical = new ArrayList<>();
+
+    private ConnectionPool pool;
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void closedConnectionIsReturnedToThePool() throws SQLException {
+        pool = newPool(0, 2, 60000, 1000);
+        Connection first = pool.borrow();
+        assertEquals(1, pool.getStats().getActiveConnections());
+        first.close();
+        assertEquals(0, pool.getStats().getActiveConnections());
+        assertEquals(1, pool.getStats().getIdleConnections());
+        assertFalse(physical.get(0).closed,
+                "The physical connection must stay open.");
+
+        pool.borrow().close();
+        assertEquals(1, physical.size(),
+                "The idle connection must be borrowed again.");
+        assertEquals(2, pool.getStats().getBorrowCount());
+    }
+
+    @Test
+    void closedLeaseCanNotBeUsed() throws SQLException {
+        pool = newPool(0, 1, 60000, 1000);
+        Connection connection = pool.borrow();
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+        // Closing the lease again does not return the connection twice.
+        connection.close();
+        assertEquals(1, pool.getStats().getIdleConnections());
+    }
+
+    @Test
+    void borrowWaitsForAFreeConnectionUpToTheTimeout() throws Exception {
+        pool = newPool(0, 1, 60000, 100);
+        Connection connection = pool.borrow();
+        assertThrows(SQLException.class, pool::borrow);
+
+        Thread returning = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+                connection.close();
+            } catch (InterruptedException | SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        returning.start();
+        pool.borrow().close();
+        assertEquals(1, physical.size());
+        returning.join();
+    }
+
+    @Test
+    void returnedConnectionIsRolledBack() throws SQLException {
+        pool = newPool(0, 1, 60000, 1000);
+        try (Connection connection = pool.borrow()) {
+            connection.setAutoCommit(false);
+        }
+        assertEquals(1, physical.get(0).rollbacks);
+        assertTrue(physical.get(0).autoCommit);
+    }
+
+    @Test
+    void invalidIdleConnectionIsReplacedOnBorrow() throws SQLException {
+        pool = newPool(0, 2, 60000, 1000);
+        pool.borrow().close();
+        physical.get(0).valid = false;
+
+        pool.borrow().close();
+        assertEquals(2, physical.size());
+        assertTrue(physical.get(0).closed);
+        assertEquals(1, pool.getStats().getDestroyedConnections());
+        assertEquals(1, pool.getStats().getIdleConnections());
+    }
+
+    @Test
+    void brokenConnectionIsNotReturnedToThePool() throws SQLException {
+        pool = newPool(0, 1, 60000, 1000);
+        Connection connection = pool.borrow();
+        physical.get(0).failure = new SQLException("connection lost",
+                "08006");
+        assertThrows(SQLException.class, connection::createStatement);
+        connection.close();
+        assertTrue(physical.get(0).closed);
+        assertEquals(0, pool.getStats().getIdleConnections());
+    }
+
+    @Test
+    void evictionClosesIdleConnectionsDownToTheMinimumSize()
+            throws Exception {
+        pool = newPool(1, 3, 10, 1000);
+        pool.fillToMinSize();
+        assertEquals(1, physical.size());
+
+        List<Connection> borrowed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            borrowed.add(pool.borrow());
+        }
+        for (Connection connection : borrowed) {
+            connection.close();
+        }
+        assertEquals(3, pool.getStats().getIdleConnections());
+
+        Thread.sleep(50);
+        pool.evictIdle();
+        assertEquals(1, pool.getStats().getIdleConnections());
+        assertEquals(2, pool.getStats().getDestroyedConnections());
+    }
+
+    @Test
+    void evictionKeepsTheConnectionsUsedRecently() throws SQLException {
+        pool = newPool(0, 2, 60000, 1000);
+        pool.borrow().close();
+        pool.evictIdle();
+        assertEquals(1, pool.getStats().getIdleConnections());
+        assertEquals(0, pool.getStats().getDestroyedConnections());
+    }
+
+
+    private ConnectionPool newPool(int minSize, int maxSize,
+            long idleTimeoutMillis, long borrowTimeoutMillis) {
+        return new ConnectionPool(() -> {
+            FakeConnection connection = new FakeConnection();
+            physical.add(connection);
+            return connection.proxy();
+        }, minSize, maxSize, idleTimeoutMillis, borrowTimeoutMillis, 1);
+    }
+
+
+    /**
+     * Physical connection keeping the state the pool depends on.
+     */
+    private static class FakeConnection implements InvocationHandler {
+
+        private boolean closed = false;
+        private boolean valid = true;
+        private boolean autoCommit = true;
+        private int rollbacks = 0;
+        /* Thrown by the other calls once it is set. */
+        private SQLException failure;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPoolTest.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return valid && !closed;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "rollback":
+                    rollbacks++;
+                    return null;
+                case "clearWarnings":
+                    return null;
+                default:
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return null;
+            }
+        }
+    }
+}
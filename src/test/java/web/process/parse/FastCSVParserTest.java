@@ -0,0 +1,157 @@
+package web.process.parse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.io.input.BOMInputStream;
+import org.junit.jupiter.api.Test;
+import web.process.csvdata.CSVFileData;
+import web.process.parse.exceptions.FileValidationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the FastCSVParser records against the records of Apache Commons
+ * CSV parsing the same csv-file with the format of AppCSVParser. Each file is
+ * fed to FastCSVParser in buffers of several sizes, so the buffer boundaries
+ * fall inside the BOM, inside the quoted values and between CR and LF.
+ *
+ * @author SoundlyGifted
+ */
+class FastCSVParserTest {
+
+    private static final String HEADER = "TEXTDATA;DOUBLEDATA";
+
+    /* Sizes of the buffers the files are fed in, 0 for the whole file. */
+    private static final int[] BUFFER_SIZES = {1, 2, 3, 5, 7, 64, 0};
+
+    @Test
+    void plainRecordsWithCRLF() throws Exception {
+        assertSameRecords(HEADER + "\r\nabc;1.5\r\ndef;2\r\nghi;-3e2\r\n");
+    }
+
+    @Test
+    void lastRecordWithoutLineEnd() throws Exception {
+        assertSameRecords(HEADER + "\nabc;1.5\ndef;2");
+    }
+
+    @Test
+    void emptyValues() throws Exception {
+        assertSameRecords(HEADER + "\nabc;\n;2\n\"\";\"\"\n");
+    }
+
+    @Test
+    void quotedValues() throws Exception {
+        assertSameRecords(HEADER + "\r\n\"a;b\";\"3\"\r\n"
+                + "\"say \"\"hi\"\"\";4\r\n\"\"\"\";5\r\n");
+    }
+
+    @Test
+    void multiLineQuotedValues() throws Exception {
+        assertSameRecords(HEADER + "\r\n\"line1\r\nline2\";5\r\n"
+                + "\"x\ny\";6\r\n\"p\rq\";7\r\n\"end\r\n\";8");
+    }
+
+    @Test
+    void lineEndsWithCROnly() throws Exception {
+        assertSameRecords(HEADER + "\ra;1\rb;2\r\"c\rd\";3\r");
+    }
+
+    @Test
+    void mixedLineEnds() throws Exception {
+        assertSameRecords(HEADER + "\na;1\r\nb;2\rc;3\n");
+    }
+
+    @Test
+    void byteOrderMark() throws Exception {
+        assertSameRecords("\uFEFF" + HEADER + "\r\n\"\uFEFFa\";1\r\nb;2\r\n");
+    }
+
+    @Test
+    void multiByteCharacters() throws Exception {
+        assertSameRecords(HEADER + "\n\u00e9t\u00e9;1\n\"\u65e5;\u672c\";2\n");
+    }
+
+    @Test
+    void invalidHeadersAreRejected() {
+        for (int bufferSize : BUFFER_SIZES) {
+            assertThrows(FileValidationException.class,
+                    () -> parseWithFastCSV(bytes("TEXT;DOUBLEDATA\na;1\n"),
+                            bufferSize, new ArrayList<>()));
+        }
+    }
+
+    @Test
+    void emptyFileIsRejected() {
+        for (int bufferSize : BUFFER_SIZES) {
+            assertThrows(FileValidationException.class,
+                    () -> parseWithFastCSV(bytes(""), bufferSize,
+                            new ArrayList<>()));
+        }
+    }
+
+
+    private void assertSameRecords(String content) throws Exception {
+        byte[] file = bytes(content);
+        List<Map<String, String>> expected = parseWithCommonsCSV(file);
+        for (int bufferSize : BUFFER_SIZES) {
+            List<Map<String, String>> records = new ArrayList<>();
+            int count = parseWithFastCSV(file, bufferSize, records);
+            assertEquals(expected, records,
+                    "Records differ with the buffer size " + bufferSize);
+            assertEquals(expected.size(), count);
+        }
+    }
+
+
+    private int parseWithFastCSV(byte[] file, int bufferSize,
+            List<Map<String, String>> records)
+            throws IOException, SQLException, FileValidationException {
+        FastCSVParser parser = new FastCSVParser(allowedHeaders(),
+                records::add);
+        int step = bufferSize == 0 ? Math.max(1, file.length) : bufferSize;
+        for (int offset = 0; offset < file.length; offset += step) {
+            parser.feed(ByteBuffer.wrap(file, offset,
+                    Math.min(step, file.length - offset)));
+        }
+        return parser.finish();
+    }
+
+
+    /* Parsing as AppCSVParser parses with Apache Commons CSV. */
+    private List<Map<String, String>> parseWithCommonsCSV(byte[] file)
+            throws IOException {
+        CSVFormat format = CSVFormat.EXCEL.builder().setDelimiter(';')
+                .setHeader().setSkipHeaderRecord(true).build();
+        List<Map<String, String>> records = new ArrayList<>();
+        try (CSVParser parser = new CSVParser(new InputStreamReader(
+                new BOMInputStream(new ByteArrayInputStream(file)),
+                StandardCharsets.UTF_8), format)) {
+            assertEquals(allowedHeaders(), parser.getHeaderNames());
+            for (CSVRecord record : parser) {
+                records.add(record.toMap());
+            }
+        }
+        return records;
+    }
+
+
+    private List<String> allowedHeaders() {
+        return new CSVFileData().getAllowedCSVFileHeaders();
+    }
+
+
+    private byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package web.process.parse;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import web.process.csvdata.CSVFileData;
+import web.process.parse.exceptions.FileValidationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the ParallelFastCSVParser records against the records of Apache
+ * Commons CSV parsing the same csv-file with the format of AppCSVParser. Each
+ * file is parsed with every chunk size up to the file size, so the chunk cuts
+ * fall on every line end of the file, including the cuts between CR and LF.
+ *
+ * @author SoundlyGifted
+ */
+class ParallelFastCSVParserTest {
+
+    private static final String HEADER = "TEXTDATA;DOUBLEDATA";
+
+    private static final int[] PARALLELISMS = {1, 2, 4};
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("ParallelFastCSVParserTest", ".csv");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void lineEndsWithCRLF() throws Exception {
+        assertSameRecords(HEADER + "\r\na;1\r\nb;2\r\nc;3\r\nd;4\r\n");
+    }
+
+    @Test
+    void lineEndsWithCROnly() throws Exception {
+        assertSameRecords(HEADER + "\ra;1\rb;2\rc;3\rd;4\r");
+    }
+
+    @Test
+    void mixedLineEndsWithoutLastLineEnd() throws Exception {
+        assertSameRecords(HEADER + "\na;1\r\nb;2\rc;3\nd;4\r\ne;5");
+    }
+
+    @Test
+    void lineEndsInsideQuotedValues() throws Exception {
+        assertSameRecords(HEADER + "\r\n\"a\r\nb\";1\r\n\"c\rd\";2\r\n"
+                + "\"e\nf\";3\r\n\"g;\"\"h\r\n\"\"\";4\r\ni;5\r\n");
+    }
+
+    @Test
+    void byteOrderMark() throws Exception {
+        assertSameRecords("\uFEFF" + HEADER + "\r\na;1\r\nb;2\r\nc;3\r\n");
+    }
+
+    @Test
+    void invalidLineIsReportedAfterTheRecordsBeforeIt() throws Exception {
+        write(HEADER + "\r\na;1\r\nb;2\r\n\"c\"d;3\r\ne;4\r\n");
+        for (long chunkBytes = 1; chunkBytes <= Files.size(file);
+                chunkBytes++) {
+            List<Map<String, String>> records = new ArrayList<>();
+            long cut = chunkBytes;
+            FileValidationException fvex = assertThrows(
+                    FileValidationException.class,
+                    () -> parseWithParallelFastCSV(2, cut, records));
+            assertEquals(2, records.size(),
+                    "Records passed with the chunk size " + chunkBytes);
+            assertTrue(fvex.getMessage().contains("Line 4:"),
+                    "The invalid line is not reported: "
+                            + fvex.getMessage());
+        }
+    }
+
+    @Test
+    void invalidHeadersAreRejected() throws Exception {
+        write("TEXT;DOUBLEDATA\r\na;1\r\nb;2\r\n");
+        assertThrows(FileValidationException.class,
+                () -> parseWithParallelFastCSV(2, 1, new ArrayList<>()));
+    }
+
+
+    private void assertSameRecords(String content) throws Exception {
+        write(content);
+        List<Map<String, String>> expected = parseWithCommonsCSV();
+        for (int parallelism : PARALLELISMS) {
+            for (long chunkBytes = 1; chunkBytes <= Files.size(file);
+                    chunkBytes++) {
+                List<Map<String, String>> records = new ArrayList<>();
+                int count = parseWithParallelFastCSV(parallelism, chunkBytes,
+                        records);
+                assertEquals(expected, records, "Records differ with the "
+                        + "parallelism " + parallelism + " and the chunk "
+                        + "size " + chunkBytes);
+                assertEquals(expected.size(), count);
+            }
+        }
+    }
+
+
+    private int parseWithParallelFastCSV(int parallelism, long chunkBytes,
+            List<Map<String, String>> records)
+            throws IOException, SQLException, FileValidationException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            return new ParallelFastCSVParser(channel, allowedHeaders(),
+                    parallelism, chunkBytes).parse(records::add);
+        }
+    }
+
+
+    /* Parsing as AppCSVParser parses with Apache Commons CSV. */
+    private List<Map<String, String>> parseWithCommonsCSV()
+            throws IOException {
+        CSVFormat format = CSVFormat.EXCEL.builder().setDelimiter(';')
+                .setHeader().setSkipHeaderRecord(true).build();
+        List<Map<String, String>> records = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            // The reader does not skip the BOM.
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+            try (CSVParser parser = new CSVParser(reader, format)) {
+                assertEquals(allowedHeaders(), parser.getHeaderNames());
+                for (CSVRecord record : parser) {
+                    records.add(record.toMap());
+                }
+            }
+        }
+        return records;
+    }
+
+
+    private List<String> allowedHeaders() {
+        return new CSVFileData().getAllowedCSVFileHeaders();
+    }
+
+
+    private void write(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}